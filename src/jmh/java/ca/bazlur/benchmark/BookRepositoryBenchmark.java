@@ -0,0 +1,106 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookRepositoryImpl;
+import ca.bazlur.repository.ColumnarBookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and save latency of both repository implementations over synthetic catalogs. Each
+ * lookup probes the next of a fixed set of books known to be in the catalog. Each save adds
+ * the next of a fixed set of books beyond the catalog, and replaces it once the set wraps
+ * around; a save copies only the touched parts of the catalog, so its cost should barely
+ * grow with the catalog size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class BookRepositoryBenchmark {
+
+    private static final int PROBES = 1 << 10;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int catalogSize;
+
+    @Param({"indexed", "columnar"})
+    public String repositoryType;
+
+    private BookRepository repository;
+    private final String[] titles = new String[PROBES];
+    private final String[] authors = new String[PROBES];
+    private final String[] isbns = new String[PROBES];
+    private final BookGenre[] genres = new BookGenre[PROBES];
+    private final Book[] saves = new Book[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation(SyntheticCatalog.location(catalogSize, 1));
+        properties.setCatalogSnapshotPath("");
+        repository = "columnar".equals(repositoryType)
+                ? new ColumnarBookRepository(properties)
+                : new BookRepositoryImpl(properties);
+
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < PROBES; i++) {
+            Book book = SyntheticCatalog.book(random.nextInt(catalogSize));
+            titles[i] = book.title();
+            authors[i] = book.author();
+            isbns[i] = book.isbn();
+            genres[i] = book.genre();
+            saves[i] = SyntheticCatalog.book((long) catalogSize + i);
+        }
+    }
+
+    @Benchmark
+    public List<Book> findByGenre() {
+        return repository.findByGenre(genres[probe()]);
+    }
+
+    @Benchmark
+    public List<Book> findByTitle() {
+        return repository.findByTitle(titles[probe()]);
+    }
+
+    @Benchmark
+    public List<Book> findByAuthor() {
+        return repository.findByAuthor(authors[probe()]);
+    }
+
+    @Benchmark
+    public Optional<Book> findByIsbn() {
+        return repository.findByIsbn(isbns[probe()]);
+    }
+
+    @Benchmark
+    public Book save() {
+        return repository.save(saves[probe()]);
+    }
+
+    private int probe() {
+        return next++ & (PROBES - 1);
+    }
+}
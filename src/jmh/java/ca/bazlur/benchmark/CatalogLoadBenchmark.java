@@ -0,0 +1,52 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.util.BookUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time for {@link BookUtil#loadBooks(String, java.util.function.Consumer)} to parse a whole
+ * synthetic catalog, from one file or split into shards loaded in parallel. Books per second
+ * is {@code catalogSize} divided by the reported time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    private String location;
+
+    @Setup(Level.Trial)
+    public void writeCatalog() {
+        location = SyntheticCatalog.location(catalogSize, shards);
+    }
+
+    @Benchmark
+    public long loadBooks() {
+        LongAdder pages = new LongAdder();
+        BookUtil.loadBooks(location, book -> pages.add(book.pageCount()));
+        return pages.sum();
+    }
+}
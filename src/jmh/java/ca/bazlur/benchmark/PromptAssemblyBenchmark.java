@@ -0,0 +1,64 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.RecommendationPrompts;
+import ca.bazlur.agent.RecommendationRanker;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.repository.WeightedBookScorer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Local work done by {@code generateRecommendationReport} before its LLM call: ranking the
+ * candidate books and assembling the narrative prompt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblyBenchmark {
+
+    private static final int CANDIDATES = 50;
+
+    private RecommendationRanker ranker;
+    private WeightedBookScorer scorer;
+    private UserPreferences preferences;
+    private List<Book> candidates;
+    private List<BookRecommendation> ranked;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        ranker = new RecommendationRanker(new BookRecommendationProperties());
+        preferences = new UserPreferences("MYSTERY", "ADVENTUROUS", "6", "Ada Abbott");
+        scorer = ranker.scorerFor(preferences);
+        candidates = LongStream.range(0, CANDIDATES).mapToObj(SyntheticCatalog::book).toList();
+        ranked = ranker.rank(scorer, candidates);
+    }
+
+    @Benchmark
+    public String reportPrompt() {
+        return RecommendationPrompts.reportNarrative(preferences, ranked);
+    }
+
+    @Benchmark
+    public String rankAndReportPrompt() {
+        return RecommendationPrompts.reportNarrative(preferences, ranker.rank(scorer, candidates));
+    }
+}
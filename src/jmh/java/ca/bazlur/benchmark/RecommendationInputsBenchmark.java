@@ -0,0 +1,97 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.BookRecommendationAgent;
+import ca.bazlur.agent.ReadingPlanner;
+import ca.bazlur.agent.RecommendationRanker;
+import ca.bazlur.agent.ReportCache;
+import ca.bazlur.agent.RuleBasedPreferenceExtractor;
+import ca.bazlur.agent.SimilarBooksBatcher;
+import ca.bazlur.agent.UserPreferencesCache;
+import ca.bazlur.agent.WebResourceCache;
+import ca.bazlur.loadtest.ReplayingLlmClient;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.model.RecommendationInputs;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookRepositoryImpl;
+import ca.bazlur.repository.SimilarBookIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code gatherRecommendationInputs} with the LLM replaced by
+ * {@link ReplayingLlmClient}, with the catalog search running beside the web resource search
+ * and one after the other. Every call uses a different reading time, so the web resource
+ * cache never answers and each call waits for a replayed LLM latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RecommendationInputsBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean parallelism;
+
+    @Param({"200"})
+    public int llmLatencyMillis;
+
+    private BookRecommendationAgent agent;
+    private long readingTime;
+
+    @Setup(Level.Trial)
+    public void createAgent() {
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation(SyntheticCatalog.location(catalogSize, 1));
+        properties.setCatalogSnapshotPath("");
+        properties.getParallelism().setEnabled(parallelism);
+        properties.getSimilarity().setEnabled(false);
+        properties.getReportCache().setEnabled(false);
+        properties.getLlmReplay().setLatencyMedian(Duration.ofMillis(llmLatencyMillis));
+        properties.getLlmReplay().setLatencyP99(Duration.ofMillis(llmLatencyMillis * 3L));
+
+        var metrics = new RecommendationMetrics(new SimpleMeterRegistry());
+        var llmClient = new ReplayingLlmClient(properties, metrics);
+        BookRepository repository = new BookRepositoryImpl(properties);
+        var similarBookIndex = new SimilarBookIndex(repository, properties);
+        agent = new BookRecommendationAgent(
+                properties,
+                repository,
+                new UserPreferencesCache(properties),
+                new WebResourceCache(properties),
+                new RecommendationRanker(properties),
+                new RuleBasedPreferenceExtractor(),
+                similarBookIndex,
+                new ReadingPlanner(properties, repository, similarBookIndex),
+                metrics,
+                llmClient,
+                new ReportCache(properties),
+                new SimilarBooksBatcher(properties, llmClient, metrics));
+    }
+
+    @Benchmark
+    public RecommendationInputs gatherRecommendationInputs() {
+        var preferences = new UserPreferences("MYSTERY", "ADVENTUROUS", Long.toString(++readingTime), null);
+        return agent.gatherRecommendationInputs(preferences);
+    }
+}
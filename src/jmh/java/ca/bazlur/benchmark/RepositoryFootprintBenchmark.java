@@ -0,0 +1,72 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookRepositoryImpl;
+import ca.bazlur.repository.ColumnarBookRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by each repository implementation once a synthetic catalog is loaded,
+ * walked with JOL from the repository instance: the books or columns and every index built
+ * over them. Reported as the {@code retainedBytes} and {@code bytesPerBook} counters next to
+ * the load time; the counters hold the footprint of the last load, not a sum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class RepositoryFootprintBenchmark {
+
+    @Param({"100000", "300000", "1000000"})
+    public int catalogSize;
+
+    @Param({"indexed", "columnar"})
+    public String repositoryType;
+
+    private String location;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long retainedBytes;
+        public long bytesPerBook;
+    }
+
+    @Setup(Level.Trial)
+    public void writeCatalog() {
+        location = SyntheticCatalog.location(catalogSize, 1);
+    }
+
+    @Benchmark
+    public BookRepository load(Footprint footprint) {
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation(location);
+        properties.setCatalogSnapshotPath("");
+        BookRepository repository = "columnar".equals(repositoryType)
+                ? new ColumnarBookRepository(properties)
+                : new BookRepositoryImpl(properties);
+
+        footprint.retainedBytes = GraphLayout.parseInstance(repository).totalSize();
+        footprint.bytesPerBook = footprint.retainedBytes / catalogSize;
+        return repository;
+    }
+}
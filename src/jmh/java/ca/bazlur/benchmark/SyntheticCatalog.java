@@ -0,0 +1,131 @@
+package ca.bazlur.benchmark;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic catalogs for benchmarks. Book {@code i} is always the same, so
+ * benchmarks can pick probe titles, authors and ISBNs without reading the catalog back.
+ * Catalog files are written once per size and shard count under the temp directory and
+ * reused by later forks and runs.
+ */
+final class SyntheticCatalog {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final String[] ADJECTIVES = {
+            "Silent", "Hidden", "Broken", "Golden", "Last", "Distant", "Burning", "Frozen", "Secret", "Wild",
+            "Quiet", "Lost", "Crimson", "Endless", "Forgotten", "Hollow"};
+    private static final String[] NOUNS = {
+            "River", "Garden", "Empire", "Library", "Harbor", "Mountain", "Letter", "Orchard", "Station",
+            "Kingdom", "Lighthouse", "Forest", "Bridge", "Island", "Mirror", "Winter"};
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Ben", "Clara", "Dmitri", "Elena", "Farid", "Grace", "Hiro", "Ines", "Jonas", "Kemi", "Liam",
+            "Maya", "Noor", "Omar", "Priya"};
+    private static final String[] LAST_NAMES = {
+            "Abbott", "Bauer", "Castillo", "Dubois", "Eriksen", "Fischer", "Gallagher", "Haddad", "Ivanova",
+            "Jensen", "Kowalski", "Lindqvist", "Moreau", "Nakamura", "Okafor", "Petrov"};
+    private static final String[] WORDS = {
+            "journey", "family", "war", "love", "memory", "secret", "city", "sea", "detective", "murder",
+            "kingdom", "magic", "history", "science", "friendship", "betrayal", "village", "winter", "ship",
+            "escape", "survival", "letters", "music", "island", "revolution", "childhood", "grief", "hope"};
+    private static final int BOOKS_PER_AUTHOR = 20;
+
+    private SyntheticCatalog() {
+    }
+
+    static Book book(long i) {
+        SplittableRandom random = new SplittableRandom(mix(i));
+        String title = "%s %s of the %s %d".formatted(
+                pick(random, ADJECTIVES), pick(random, NOUNS), pick(random, NOUNS), i);
+        long author = i / BOOKS_PER_AUTHOR;
+        String authorName = "%s %s %d".formatted(
+                FIRST_NAMES[(int) (author % FIRST_NAMES.length)],
+                LAST_NAMES[(int) (author / FIRST_NAMES.length % LAST_NAMES.length)],
+                author);
+        StringBuilder description = new StringBuilder("A story of");
+        int words = 15 + random.nextInt(16);
+        for (int w = 0; w < words; w++) {
+            description.append(' ').append(pick(random, WORDS));
+        }
+        return new Book(
+                title,
+                authorName,
+                GENRES[random.nextInt(GENRES.length)],
+                isbn(i),
+                80 + random.nextInt(1_100),
+                description.append('.').toString(),
+                Math.round((1 + random.nextDouble() * 4) * 10) / 10.0);
+    }
+
+    /**
+     * Writes the catalog as JSON Lines shards unless already present.
+     *
+     * @return the Spring resource pattern matching the shards
+     */
+    static String location(int size, int shards) {
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "book-benchmarks", size + "-" + shards);
+        try {
+            Files.createDirectories(directory);
+            for (int shard = 0; shard < shards; shard++) {
+                Path file = directory.resolve("books-%03d.jsonl".formatted(shard));
+                if (!Files.exists(file)) {
+                    write(file, (long) size * shard / shards, (long) size * (shard + 1) / shards);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write synthetic catalog to " + directory, e);
+        }
+        return "file:" + directory.toAbsolutePath() + "/books-*.jsonl";
+    }
+
+    private static void write(Path file, long from, long to) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            for (long i = from; i < to; i++) {
+                Book book = book(i);
+                writer.write(String.format(Locale.ROOT,
+                        "{\"title\":\"%s\",\"author\":\"%s\",\"genre\":\"%s\",\"isbn\":\"%s\","
+                                + "\"pageCount\":%d,\"description\":\"%s\",\"averageRating\":%.1f}",
+                        book.title(), book.author(), book.genre(), book.isbn(),
+                        book.pageCount(), book.description(), book.averageRating()));
+                writer.newLine();
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return a valid ISBN-13 in the 978 prefix numbered {@code i}
+     */
+    private static String isbn(long i) {
+        String digits = "978" + String.format("%09d", i);
+        int sum = 0;
+        for (int d = 0; d < 12; d++) {
+            sum += (digits.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Scrambles the book number into a seed, so neighboring books get unrelated random streams.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
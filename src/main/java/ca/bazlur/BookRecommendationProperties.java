@@ -2,9 +2,14 @@ package ca.bazlur;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Configuration properties for the book recommendation engine.
- * Contains settings for the LLM model used for recommendations.
+ * Contains settings for the LLM model used for recommendations and for the book catalog.
  */
 @ConfigurationProperties(prefix = "book.recommendation")
 public class BookRecommendationProperties {
@@ -14,6 +19,103 @@ public class BookRecommendationProperties {
      */
     private String recommendationLlm = "gpt-4o";
 
+    /**
+     * Models used by particular actions in place of {@link #recommendationLlm}, and hedging of
+     * slow calls with an alternate model.
+     */
+    private final ModelRouting modelRouting = new ModelRouting();
+
+    /**
+     * Spring resource pattern of the catalog files, e.g. {@code file:/data/books-*.json}.
+     * Matching shards are loaded in parallel; each holds a JSON array or JSON Lines.
+     */
+    private String catalogLocation = "classpath:books.json";
+
+    /**
+     * File holding a memory-mapped binary snapshot of the catalog and its indexes.
+     * It is rebuilt from the catalog files whenever they change. Empty, the default, disables
+     * snapshots; the file should be in a directory only this application can write.
+     */
+    private String catalogSnapshotPath = "";
+
+    /**
+     * Book repository implementation: {@code indexed} keeps book objects with bitmap and
+     * trigram indexes, {@code columnar} keeps compact dictionary-encoded columns.
+     */
+    private String repositoryType = "indexed";
+
+    /**
+     * Whether preferences that name a genre, mood and reading time outright are extracted
+     * by local rules, calling the LLM only for input the rules cannot fully resolve.
+     */
+    private boolean ruleBasedPreferences = true;
+
+    /**
+     * How LLM calls are made: {@code live} through the agent platform, {@code record} live while
+     * saving responses to {@link LlmReplay#getRecordings()}, or {@code replay} from the saved responses.
+     */
+    private String llmClient = "live";
+
+    /**
+     * Settings for ranking candidate books before they are passed to the LLM.
+     */
+    private final Ranking ranking = new Ranking();
+
+    /**
+     * Settings for caching the preferences extracted from user input.
+     */
+    private final CacheSettings preferenceCache = new CacheSettings(10_000, Duration.ofMinutes(30));
+
+    /**
+     * Settings for caching the results of web resource searches.
+     */
+    private final CacheSettings webResourceCache = new CacheSettings(1_000, Duration.ofHours(6));
+
+    /**
+     * Settings for caching similar-book and thematic reading list reports.
+     */
+    private final ReportCacheSettings reportCache = new ReportCacheSettings();
+
+    /**
+     * Settings for running independent actions concurrently.
+     */
+    private final Parallelism parallelism = new Parallelism();
+
+    /**
+     * Settings for the nearest-neighbor index used to find similar books in the catalog.
+     */
+    private final Similarity similarity = new Similarity();
+
+    /**
+     * Settings for combining concurrent similar-book LLM calls into one.
+     */
+    private final Batching batching = new Batching();
+
+    /**
+     * Settings for limiting concurrent LLM calls per model.
+     */
+    private final LlmConcurrency llmConcurrency = new LlmConcurrency();
+
+    /**
+     * Settings for scheduling thematic reading lists from the catalog.
+     */
+    private final ReadingPlan readingPlan = new ReadingPlan();
+
+    /**
+     * Settings for recording LLM responses and replaying them in place of the provider.
+     */
+    private final LlmReplay llmReplay = new LlmReplay();
+
+    /**
+     * Settings for the load generator run by the {@code load-test} profile.
+     */
+    private final LoadTest loadTest = new LoadTest();
+
+    /**
+     * Settings for reports streamed as server-sent events.
+     */
+    private final Streaming streaming = new Streaming();
+
     public String getRecommendationLlm() {
         return recommendationLlm;
     }
@@ -21,4 +123,952 @@ public class BookRecommendationProperties {
     public void setRecommendationLlm(String recommendationLlm) {
         this.recommendationLlm = recommendationLlm;
     }
+
+    public ModelRouting getModelRouting() {
+        return modelRouting;
+    }
+
+    /**
+     * @return the model the action is routed to, or the recommendation model
+     */
+    public String modelFor(String action) {
+        return modelRouting.modelFor(action, recommendationLlm);
+    }
+
+    public String getCatalogLocation() {
+        return catalogLocation;
+    }
+
+    public void setCatalogLocation(String catalogLocation) {
+        this.catalogLocation = catalogLocation;
+    }
+
+    public String getCatalogSnapshotPath() {
+        return catalogSnapshotPath;
+    }
+
+    public void setCatalogSnapshotPath(String catalogSnapshotPath) {
+        this.catalogSnapshotPath = catalogSnapshotPath;
+    }
+
+    public String getRepositoryType() {
+        return repositoryType;
+    }
+
+    public void setRepositoryType(String repositoryType) {
+        this.repositoryType = repositoryType;
+    }
+
+    public boolean isRuleBasedPreferences() {
+        return ruleBasedPreferences;
+    }
+
+    public void setRuleBasedPreferences(boolean ruleBasedPreferences) {
+        this.ruleBasedPreferences = ruleBasedPreferences;
+    }
+
+    public String getLlmClient() {
+        return llmClient;
+    }
+
+    public void setLlmClient(String llmClient) {
+        this.llmClient = llmClient;
+    }
+
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    public CacheSettings getPreferenceCache() {
+        return preferenceCache;
+    }
+
+    public CacheSettings getWebResourceCache() {
+        return webResourceCache;
+    }
+
+    public ReportCacheSettings getReportCache() {
+        return reportCache;
+    }
+
+    public Parallelism getParallelism() {
+        return parallelism;
+    }
+
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public LlmConcurrency getLlmConcurrency() {
+        return llmConcurrency;
+    }
+
+    public ReadingPlan getReadingPlan() {
+        return readingPlan;
+    }
+
+    public LlmReplay getLlmReplay() {
+        return llmReplay;
+    }
+
+    public LoadTest getLoadTest() {
+        return loadTest;
+    }
+
+    public Streaming getStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Routing of actions to models and hedging of slow LLM calls.
+     */
+    public static class ModelRouting {
+
+        /**
+         * Model per action, keyed by action name in kebab case, e.g.
+         * {@code actions.extract-user-preferences=gpt-4.1-mini}.
+         */
+        private final Map<String, String> actions = new HashMap<>();
+
+        /**
+         * Settings for hedging slow calls with a second request to an alternate model.
+         */
+        private final Hedging hedging = new Hedging();
+
+        public Map<String, String> getActions() {
+            return actions;
+        }
+
+        public Hedging getHedging() {
+            return hedging;
+        }
+
+        /**
+         * @return the model configured for the action, or the fallback if there is none
+         */
+        public String modelFor(String action, String fallback) {
+            String wanted = normalize(action);
+            for (Map.Entry<String, String> route : actions.entrySet()) {
+                if (normalize(route.getKey()).equals(wanted) && !route.getValue().isBlank()) {
+                    return route.getValue();
+                }
+            }
+            return fallback;
+        }
+
+        private static String normalize(String action) {
+            return action.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Hedged requests: a call still running after its model's latency percentile is raced
+     * against the same call to an alternate model, and the first answer wins.
+     */
+    public static class Hedging {
+
+        /**
+         * Whether slow calls are hedged.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Alternate model by primary model, e.g. {@code alternates[gpt-4.1]=gpt-4.1-mini}.
+         * Calls to models without an alternate are not hedged.
+         */
+        private final Map<String, String> alternates = new HashMap<>();
+
+        /**
+         * Latency percentile of the primary model after which the hedge is sent.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Calls observed per model before hedging starts.
+         */
+        private int minSamples = 20;
+
+        /**
+         * Shortest wait before a hedge is sent, however fast the model usually is.
+         */
+        private Duration minDelay = Duration.ofMillis(200);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Map<String, String> getAlternates() {
+            return alternates;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+    }
+
+    /**
+     * Weights and reading-speed model used to pick the top K books for a reader.
+     */
+    public static class Ranking {
+
+        /**
+         * Number of books passed on to the recommendation report.
+         */
+        private int topK = 5;
+
+        /**
+         * Weight of the book's average rating.
+         */
+        private double ratingWeight = 1.0;
+
+        /**
+         * Weight of how well the book's length fits the reader's weekly reading time.
+         */
+        private double pageFitWeight = 0.5;
+
+        /**
+         * Weight of a match with the author the reader is interested in.
+         */
+        private double authorWeight = 1.0;
+
+        /**
+         * Weight of how close the book's genre is to the reader's favorite genre.
+         */
+        private double genreWeight = 1.0;
+
+        /**
+         * Weight of how well the book's description matches the reader's mood.
+         */
+        private double moodWeight = 0.5;
+
+        /**
+         * Assumed reading speed.
+         */
+        private double pagesPerHour = 40.0;
+
+        /**
+         * Number of weeks a reader should ideally spend on one book.
+         */
+        private double targetWeeksPerBook = 2.0;
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public double getRatingWeight() {
+            return ratingWeight;
+        }
+
+        public void setRatingWeight(double ratingWeight) {
+            this.ratingWeight = ratingWeight;
+        }
+
+        public double getPageFitWeight() {
+            return pageFitWeight;
+        }
+
+        public void setPageFitWeight(double pageFitWeight) {
+            this.pageFitWeight = pageFitWeight;
+        }
+
+        public double getAuthorWeight() {
+            return authorWeight;
+        }
+
+        public void setAuthorWeight(double authorWeight) {
+            this.authorWeight = authorWeight;
+        }
+
+        public double getGenreWeight() {
+            return genreWeight;
+        }
+
+        public void setGenreWeight(double genreWeight) {
+            this.genreWeight = genreWeight;
+        }
+
+        public double getMoodWeight() {
+            return moodWeight;
+        }
+
+        public void setMoodWeight(double moodWeight) {
+            this.moodWeight = moodWeight;
+        }
+
+        public double getPagesPerHour() {
+            return pagesPerHour;
+        }
+
+        public void setPagesPerHour(double pagesPerHour) {
+            this.pagesPerHour = pagesPerHour;
+        }
+
+        public double getTargetWeeksPerBook() {
+            return targetWeeksPerBook;
+        }
+
+        public void setTargetWeeksPerBook(double targetWeeksPerBook) {
+            this.targetWeeksPerBook = targetWeeksPerBook;
+        }
+    }
+
+    /**
+     * Size and lifetime of a cache of LLM results.
+     */
+    public static class CacheSettings {
+
+        /**
+         * Maximum number of entries kept; the least recently used are evicted first.
+         */
+        private int maxSize;
+
+        /**
+         * How long a result is reused after it was produced.
+         */
+        private Duration ttl;
+
+        public CacheSettings(int maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Cache of reports that outlives restarts. Reports are kept until their next update date;
+     * {@link #getTtl()} applies to reports without a future one.
+     */
+    public static class ReportCacheSettings extends CacheSettings {
+
+        /**
+         * Whether similar-book and thematic reading list reports are cached.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory the reports are written to and reloaded from on startup, created readable by the
+         * application's user only. Reports read from it are trusted, so it must not be shared with other
+         * users, as a system temporary directory is. Empty keeps them in memory only.
+         */
+        private String directory = "";
+
+        /**
+         * Longest a report is kept, whatever its next update date.
+         */
+        private Duration maxTtl = Duration.ofDays(30);
+
+        public ReportCacheSettings() {
+            super(500, Duration.ofDays(7));
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+    }
+
+    /**
+     * Whether the book search and the web resource search run concurrently, and how long each may take.
+     */
+    public static class Parallelism {
+
+        /**
+         * Runs the catalog search on a virtual thread while the web resource search runs on
+         * the action's thread; when disabled they run one after the other.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time allowed for the catalog search. The recommendation fails if it is exceeded.
+         */
+        private Duration booksTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Time allowed for the web resource search. The search is interrupted and the report
+         * is written without web resources if it is exceeded.
+         */
+        private Duration webResourcesTimeout = Duration.ofSeconds(90);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getBooksTimeout() {
+            return booksTimeout;
+        }
+
+        public void setBooksTimeout(Duration booksTimeout) {
+            this.booksTimeout = booksTimeout;
+        }
+
+        public Duration getWebResourcesTimeout() {
+            return webResourcesTimeout;
+        }
+
+        public void setWebResourcesTimeout(Duration webResourcesTimeout) {
+            this.webResourcesTimeout = webResourcesTimeout;
+        }
+    }
+
+    /**
+     * Shape of the HNSW graph built over the catalog's text vectors.
+     */
+    public static class Similarity {
+
+        /**
+         * Builds the index in the background on startup; when disabled, similar books are always
+         * suggested by the LLM.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Links kept per node on the upper layers; the base layer keeps twice as many. At least 2.
+         */
+        private int maxLinks = 16;
+
+        /**
+         * Candidates considered while inserting a book. Higher values build a better graph more slowly.
+         */
+        private int efConstruction = 100;
+
+        /**
+         * Candidates considered per query. Higher values raise recall at the cost of latency.
+         */
+        private int efSearch = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxLinks() {
+            return maxLinks;
+        }
+
+        public void setMaxLinks(int maxLinks) {
+            this.maxLinks = maxLinks;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+    }
+
+    /**
+     * Micro-batching of similar-book LLM calls: calls arriving within the window share one prompt.
+     */
+    public static class Batching {
+
+        /**
+         * Whether concurrent calls are batched; when disabled each call is sent on its own.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Longest a call waits for others to join its batch.
+         */
+        private Duration window = Duration.ofMillis(50);
+
+        /**
+         * Most calls in one batch; a full batch is sent without waiting for the window to end.
+         */
+        private int maxBatchSize = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    /**
+     * Adaptive concurrency limits on LLM calls, one limiter per model.
+     */
+    public static class LlmConcurrency {
+
+        /**
+         * Whether LLM calls are limited; when disabled every call goes straight to the model.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Limits for models without their own entry in {@link #models}.
+         */
+        private final Limits defaults = new Limits();
+
+        /**
+         * Limits by model name, e.g. {@code models[gpt-4.1].max-limit=32}. Fields left unset
+         * take the built-in defaults, not those of {@link #defaults}.
+         */
+        private final Map<String, Limits> models = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Limits getDefaults() {
+            return defaults;
+        }
+
+        public Map<String, Limits> getModels() {
+            return models;
+        }
+
+        public Limits forModel(String model) {
+            return models.getOrDefault(model, defaults);
+        }
+    }
+
+    /**
+     * Concurrency limits of one model.
+     */
+    public static class Limits {
+
+        /**
+         * Concurrent calls allowed before any latency has been observed.
+         */
+        private int initialLimit = 16;
+
+        /**
+         * Fewest concurrent calls the limit can shrink to.
+         */
+        private int minLimit = 2;
+
+        /**
+         * Most concurrent calls the limit can grow to.
+         */
+        private int maxLimit = 128;
+
+        /**
+         * Most calls waiting for a permit; calls beyond it are rejected at once.
+         */
+        private int maxQueued = 64;
+
+        /**
+         * Longest a call waits for a permit before it is rejected.
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        /**
+         * How many times its usual latency a model may take before the limit shrinks.
+         */
+        private double tolerance = 2.0;
+
+        /**
+         * Weight of each adjustment, between 0 and 1; higher values adapt faster.
+         */
+        private double smoothing = 0.2;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+    }
+
+    /**
+     * How thematic reading lists are filled and paced. Reading speed comes from
+     * {@link Ranking#getPagesPerHour()}.
+     */
+    public static class ReadingPlan {
+
+        /**
+         * Weekly reading time assumed for thematic lists, which are requested without one.
+         */
+        private double hoursPerWeek = 5.0;
+
+        /**
+         * Most books placed on one list.
+         */
+        private int maxBooks = 5;
+
+        public double getHoursPerWeek() {
+            return hoursPerWeek;
+        }
+
+        public void setHoursPerWeek(double hoursPerWeek) {
+            this.hoursPerWeek = hoursPerWeek;
+        }
+
+        public int getMaxBooks() {
+            return maxBooks;
+        }
+
+        public void setMaxBooks(int maxBooks) {
+            this.maxBooks = maxBooks;
+        }
+    }
+
+    /**
+     * Recorded LLM responses and the simulated latency and failures of replaying them.
+     */
+    public static class LlmReplay {
+
+        /**
+         * JSON Lines file of recorded responses. Replay reads any Spring resource;
+         * recording appends to a {@code file:} location.
+         */
+        private String recordings = "classpath:llm-recordings.jsonl";
+
+        /**
+         * Median latency of a replayed call.
+         */
+        private Duration latencyMedian = Duration.ofMillis(800);
+
+        /**
+         * 99th percentile latency of a replayed call; latencies follow a log-normal distribution.
+         */
+        private Duration latencyP99 = Duration.ofSeconds(4);
+
+        /**
+         * Fraction of replayed calls that fail, between 0 and 1.
+         */
+        private double errorRate = 0.0;
+
+        /**
+         * Interval at which simulated provider slowdowns recur; zero disables them.
+         */
+        private Duration slowdownPeriod = Duration.ZERO;
+
+        /**
+         * How long each slowdown lasts, at the end of every period.
+         */
+        private Duration slowdownDuration = Duration.ZERO;
+
+        /**
+         * Factor applied to latencies during a slowdown.
+         */
+        private double slowdownFactor = 1.0;
+
+        /**
+         * Share of a streamed response's latency that passes before its first chunk; the
+         * other chunks follow evenly over the rest.
+         */
+        private double firstChunkShare = 0.2;
+
+        public String getRecordings() {
+            return recordings;
+        }
+
+        public void setRecordings(String recordings) {
+            this.recordings = recordings;
+        }
+
+        public Duration getLatencyMedian() {
+            return latencyMedian;
+        }
+
+        public void setLatencyMedian(Duration latencyMedian) {
+            this.latencyMedian = latencyMedian;
+        }
+
+        public Duration getLatencyP99() {
+            return latencyP99;
+        }
+
+        public void setLatencyP99(Duration latencyP99) {
+            this.latencyP99 = latencyP99;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public Duration getSlowdownPeriod() {
+            return slowdownPeriod;
+        }
+
+        public void setSlowdownPeriod(Duration slowdownPeriod) {
+            this.slowdownPeriod = slowdownPeriod;
+        }
+
+        public Duration getSlowdownDuration() {
+            return slowdownDuration;
+        }
+
+        public void setSlowdownDuration(Duration slowdownDuration) {
+            this.slowdownDuration = slowdownDuration;
+        }
+
+        public double getSlowdownFactor() {
+            return slowdownFactor;
+        }
+
+        public void setSlowdownFactor(double slowdownFactor) {
+            this.slowdownFactor = slowdownFactor;
+        }
+
+        public double getFirstChunkShare() {
+            return firstChunkShare;
+        }
+
+        public void setFirstChunkShare(double firstChunkShare) {
+            this.firstChunkShare = firstChunkShare;
+        }
+    }
+
+    /**
+     * Size and shape of a load test.
+     */
+    public static class LoadTest {
+
+        /**
+         * Recommendation runs to make.
+         */
+        private int runs = 2_000;
+
+        /**
+         * Most runs in flight at once.
+         */
+        private int concurrency = 500;
+
+        /**
+         * Whether each run's input is made unique, so preference extraction is not answered from cache.
+         */
+        private boolean uniqueInputs = true;
+
+        /**
+         * Whether the application exits once the results are reported.
+         */
+        private boolean exitWhenDone = true;
+
+        /**
+         * Whether runs stream their reports, adding time to the first recommendation to the results.
+         */
+        private boolean streaming = false;
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public void setRuns(int runs) {
+            this.runs = runs;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public boolean isUniqueInputs() {
+            return uniqueInputs;
+        }
+
+        public void setUniqueInputs(boolean uniqueInputs) {
+            this.uniqueInputs = uniqueInputs;
+        }
+
+        public boolean isExitWhenDone() {
+            return exitWhenDone;
+        }
+
+        public void setExitWhenDone(boolean exitWhenDone) {
+            this.exitWhenDone = exitWhenDone;
+        }
+
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        public void setStreaming(boolean streaming) {
+            this.streaming = streaming;
+        }
+    }
+
+    /**
+     * Delivery of recommendation reports as server-sent events.
+     */
+    public static class Streaming {
+
+        /**
+         * Whether {@code /recommendations/stream} is served. Off by default: the endpoint runs the
+         * actions outside the agent platform, and the live client hands the narrative over whole.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Longest a report stream stays open before it is closed unfinished.
+         */
+        private Duration timeout = Duration.ofMinutes(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
 }
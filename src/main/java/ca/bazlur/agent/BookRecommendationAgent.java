@@ -2,21 +2,32 @@
 package ca.bazlur.agent;
 
 import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
 import ca.bazlur.model.*;
+import ca.bazlur.repository.BookQuery;
 import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.GenreAffinity;
+import ca.bazlur.repository.SimilarBook;
+import ca.bazlur.repository.SimilarBookIndex;
+import ca.bazlur.repository.WeightedBookScorer;
+import ca.bazlur.util.FanOut;
+import ca.bazlur.util.IncrementalJsonReader;
+import ca.bazlur.util.PreferenceNormalizer;
 import com.embabel.agent.api.annotation.AchievesGoal;
 import com.embabel.agent.api.annotation.Action;
 import com.embabel.agent.api.annotation.Agent;
 import com.embabel.agent.api.annotation.WaitFor;
-import com.embabel.agent.api.common.PromptRunner;
 import com.embabel.agent.core.CoreToolGroups;
 import com.embabel.agent.domain.io.UserInput;
 import com.embabel.agent.domain.library.InternetResource;
-import com.embabel.common.ai.model.LlmOptions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @Agent(
@@ -26,27 +37,67 @@ import java.util.*;
 public class BookRecommendationAgent {
 
     private static final Logger logger = LoggerFactory.getLogger(BookRecommendationAgent.class);
+    private static final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
     private final BookRecommendationProperties recommendationProperties;
     private final BookRepository bookRepository;
+    private final UserPreferencesCache userPreferencesCache;
+    private final WebResourceCache webResourceCache;
+    private final RecommendationRanker recommendationRanker;
+    private final RuleBasedPreferenceExtractor ruleBasedPreferenceExtractor;
+    private final SimilarBookIndex similarBookIndex;
+    private final ReadingPlanner readingPlanner;
+    private final RecommendationMetrics recommendationMetrics;
+    private final LlmClient llmClient;
+    private final ReportCache reportCache;
+    private final SimilarBooksBatcher similarBooksBatcher;
 
     public BookRecommendationAgent(
             BookRecommendationProperties recommendationProperties,
-            BookRepository bookRepository) {
+            BookRepository bookRepository,
+            UserPreferencesCache userPreferencesCache,
+            WebResourceCache webResourceCache,
+            RecommendationRanker recommendationRanker,
+            RuleBasedPreferenceExtractor ruleBasedPreferenceExtractor,
+            SimilarBookIndex similarBookIndex,
+            ReadingPlanner readingPlanner,
+            RecommendationMetrics recommendationMetrics,
+            LlmClient llmClient,
+            ReportCache reportCache,
+            SimilarBooksBatcher similarBooksBatcher) {
         this.recommendationProperties = recommendationProperties;
         this.bookRepository = bookRepository;
+        this.userPreferencesCache = userPreferencesCache;
+        this.webResourceCache = webResourceCache;
+        this.recommendationRanker = recommendationRanker;
+        this.ruleBasedPreferenceExtractor = ruleBasedPreferenceExtractor;
+        this.similarBookIndex = similarBookIndex;
+        this.readingPlanner = readingPlanner;
+        this.recommendationMetrics = recommendationMetrics;
+        this.llmClient = llmClient;
+        this.reportCache = reportCache;
+        this.similarBooksBatcher = similarBooksBatcher;
     }
 
     @Action
     public UserPreferences extractUserPreferences(UserInput userInput) {
-        logger.info("Extracting user preferences from input: {}", userInput.getContent());
-        return PromptRunner.withLlm(LlmOptions.fromModel(recommendationProperties.getRecommendationLlm()))
-                .createObjectIfPossible(
-                        """
-                                Extract reading preferences from this user input, including favorite genre,
-                                current reading mood, available reading time per week, and any specific author interest:
-                                %s""".formatted(userInput.getContent()),
-                        UserPreferences.class
-                );
+        return recommendationMetrics.action("extractUserPreferences", () -> {
+            logger.info("Extracting user preferences from input: {}", userInput.getContent());
+            if (recommendationProperties.isRuleBasedPreferences()) {
+                var extracted = ruleBasedPreferenceExtractor.extract(userInput.getContent());
+                if (extracted.isPresent()) {
+                    logger.debug("Extracted preferences without the LLM: {}", extracted.get());
+                    return extracted.get();
+                }
+            }
+            var model = recommendationProperties.modelFor("extractUserPreferences");
+            var prompt = """
+                    Extract reading preferences from this user input, including favorite genre,
+                    current reading mood, available reading time per week, and any specific author interest:
+                    %s""".formatted(userInput.getContent());
+            return userPreferencesCache.get(userInput.getContent(), () -> PreferenceNormalizer.canonicalize(
+                    llmClient.createObjectIfPossible(
+                            LlmCall.of("extractUserPreferences", model, prompt), UserPreferences.class)));
+        });
     }
 
     @Action(cost = 100.0)
@@ -58,141 +109,282 @@ public class BookRecommendationAgent {
     @Action(toolGroups = {CoreToolGroups.WEB})
     @JsonDeserialize(as = ArrayList.class)
     public List<InternetResource> findBookRelatedResources(String bookTitle, String author, String genre) {
-        logger.info("Finding book-related resources for: {} by {} in genre {}", bookTitle, author, genre);
+        return recommendationMetrics.action("findBookRelatedResources", () -> {
+            logger.info("Finding book-related resources for: {} by {} in genre {}", bookTitle, author, genre);
 
-        var prompt = """
-                Find relevant online resources related to the book "%s" by %s in the genre %s.
-                Use web tools and generate search queries to find:
-                1. Book reviews from reputable sources
-                2. Author interviews or profiles
-                3. Reading guides or discussion questions
-                4. Similar book recommendations
-                5. Literary analyses or critical essays
-                
-                For each resource, provide:
-                - A brief summary (2-3 sentences)
-                - The URL
-                - Why it would be valuable to a reader interested in this book
-                
-                Return 5-7 high-quality resources that would enhance the reading experience.
-                """.formatted(bookTitle, author, genre);
-
-        return PromptRunner.withLlm().createObject(prompt, ArrayList.class);
+            var prompt = """
+                    Find relevant online resources related to the book "%s" by %s in the genre %s.
+                    Use web tools and generate search queries to find:
+                    1. Book reviews from reputable sources
+                    2. Author interviews or profiles
+                    3. Reading guides or discussion questions
+                    4. Similar book recommendations
+                    5. Literary analyses or critical essays
+                    
+                    For each resource, provide:
+                    - A brief summary (2-3 sentences)
+                    - The URL
+                    - Why it would be valuable to a reader interested in this book
+                    
+                    Return 5-7 high-quality resources that would enhance the reading experience.
+                    """.formatted(bookTitle, author, genre);
+
+            return webResourceCache.forBook(bookTitle, author, genre,
+                    () -> llmClient.createObject(LlmCall.of("findBookRelatedResources", webSearchModel("findBookRelatedResources"), prompt), ArrayList.class));
+        });
     }
 
     @Action
     @JsonDeserialize(as = ArrayList.class)
     public List<Book> findBooksByGenre(UserPreferences userPreferences) {
-        logger.info("Finding books in genre: {}", userPreferences.favoriteGenre());
-        try {
-            return bookRepository.findByGenre(BookGenre.valueOf(userPreferences.favoriteGenre().toUpperCase()));
-        } catch (IllegalArgumentException e) {
-            logger.warn("Invalid genre: {}, using FICTION as default", userPreferences.favoriteGenre());
-            return bookRepository.findByGenre(BookGenre.FICTION);
-        }
+        return recommendationMetrics.action("findBooksByGenre", () -> {
+            logger.info("Finding books in genre: {}", userPreferences.favoriteGenre());
+            var scorer = recommendationRanker.scorerFor(userPreferences);
+            var genre = scorer.favoriteGenre();
+            if (genre == null) {
+                logger.warn("Unrecognized genre: {}, using FICTION as default", userPreferences.favoriteGenre());
+                genre = BookGenre.FICTION;
+            }
+            return bookRepository.findTopByQuery(BookQuery.forGenre(genre), scorer,
+                    recommendationProperties.getRanking().getTopK());
+        });
     }
 
     @Action(toolGroups = {CoreToolGroups.WEB})
     @JsonDeserialize(as = ArrayList.class)
     public List<InternetResource> findWebResources(UserPreferences userPreferences) {
-        logger.info("Finding web resources for preferences: {}", userPreferences);
+        return recommendationMetrics.action("findWebResources", () -> {
+            logger.info("Finding web resources for preferences: {}", userPreferences);
 
-        var prompt = """
-                Find online resources for someone who loves %s books and is in a %s mood.
-                They have %s hours per week to read.
-                Use web tools to find:
-                1. Reading recommendation sites
-                2. Book review blogs
-                3. Genre-specific communities
-                4. Author interviews or spotlights
-                
-                Return 3-5 high-quality resources with URLs and brief descriptions.
-                """.formatted(
-                userPreferences.favoriteGenre(),
-                userPreferences.currentMood(),
-                userPreferences.readingTimePerWeek()
-        );
-
-        return PromptRunner.withLlm().createObject(prompt, ArrayList.class);
+            var prompt = """
+                    Find online resources for someone who loves %s books and is in a %s mood.
+                    They have %s hours per week to read.
+                    Use web tools to find:
+                    1. Reading recommendation sites
+                    2. Book review blogs
+                    3. Genre-specific communities
+                    4. Author interviews or spotlights
+                    
+                    Return 3-5 high-quality resources with URLs and brief descriptions.
+                    """.formatted(
+                    userPreferences.favoriteGenre(),
+                    userPreferences.currentMood(),
+                    userPreferences.readingTimePerWeek()
+            );
+
+            return webResourceCache.forPreferences(
+                    userPreferences.favoriteGenre(),
+                    userPreferences.currentMood(),
+                    userPreferences.readingTimePerWeek(),
+                    () -> llmClient.createObject(LlmCall.of("findWebResources", webSearchModel("findWebResources"), prompt), ArrayList.class));
+        });
+    }
+
+    /**
+     * Runs the catalog search and the web resource search, which depend only on the
+     * preferences, side by side so the report waits for the slower of the two rather than both.
+     * The catalog search is forked; the web search stays on this thread, which the agent
+     * platform runs the action on, so its LLM call keeps the action's process and web tools.
+     */
+    @Action(toolGroups = {CoreToolGroups.WEB})
+    public RecommendationInputs gatherRecommendationInputs(UserPreferences userPreferences) {
+        return recommendationMetrics.action("gatherRecommendationInputs", () -> {
+            var parallelism = recommendationProperties.getParallelism();
+            try (var fanOut = parallelism.isEnabled() ? FanOut.concurrent() : FanOut.sequential()) {
+                var books = fanOut.fork("books", parallelism.getBooksTimeout(),
+                        () -> findBooksByGenre(userPreferences));
+                List<InternetResource> resources = fanOut.callOrElse("web resources",
+                        parallelism.getWebResourcesTimeout(), () -> findWebResources(userPreferences), null);
+                if (resources == null) {
+                    logger.info("Continuing without web resources");
+                    resources = List.of();
+                }
+                List<Book> availableBooks = fanOut.join(books);
+                return new RecommendationInputs(availableBooks, resources);
+            }
+        });
     }
 
     @AchievesGoal(description = "Personalized book recommendations have been generated for the user")
     @Action
     public BookRecommendationReport generateRecommendationReport(
             UserPreferences userPreferences,
-            List<Book> availableBooks,
-            List<InternetResource> webResources) {
-        logger.info("Generating final recommendation report for user: {}", userPreferences);
+            RecommendationInputs recommendationInputs) {
+        return recommendationMetrics.action("generateRecommendationReport", () -> {
+            logger.info("Generating final recommendation report for user: {}", userPreferences);
+            long start = System.nanoTime();
+            var scorer = recommendationRanker.scorerFor(userPreferences);
+            var ranked = recommendationRanker.rank(scorer, recommendationInputs.books());
 
-        var llm = LlmOptions.fromModel(recommendationProperties.getRecommendationLlm())
-                .withTemperature(0.7);
+            var prompt = RecommendationPrompts.reportNarrative(userPreferences, ranked);
+            var narrative = llmClient.createObject(reportCall(prompt), RecommendationNarrative.class);
+            var report = buildReport(scorer, ranked, narrative, recommendationInputs.webResources());
+            recommendationMetrics.firstRecommendation("blocking", System.nanoTime() - start);
+            return report;
+        });
+    }
 
-        var bookList = availableBooks.stream()
-                .map(book -> "- " + book.title() + " by " + book.author())
-                .limit(5)
-                .collect(java.util.stream.Collectors.joining("\n"));
+    /**
+     * Generates the same report as {@link #generateRecommendationReport}, but streams the
+     * narrative and hands each recommendation and the reading list to the listener as soon as
+     * it is complete, instead of after the whole report.
+     */
+    public BookRecommendationReport streamRecommendationReport(
+            UserPreferences userPreferences,
+            RecommendationInputs recommendationInputs,
+            ReportStreamListener listener) {
+        return recommendationMetrics.action("streamRecommendationReport", () -> {
+            logger.info("Streaming final recommendation report for user: {}", userPreferences);
+            long start = System.nanoTime();
+            var scorer = recommendationRanker.scorerFor(userPreferences);
+            var ranked = recommendationRanker.rank(scorer, recommendationInputs.books());
 
-        var resourceList = webResources.stream()
-                .map(resource -> "- " + resource.toString())
-                .limit(3)
-                .collect(java.util.stream.Collectors.joining("\n"));
+            var stream = new ReportStream(scorer, ranked, listener, recommendationMetrics, start);
+            var reader = new IncrementalJsonReader(objectMapper, stream::accept);
+            var prompt = RecommendationPrompts.streamedReportNarrative(userPreferences, ranked);
+            llmClient.streamText(reportCall(prompt), reader::feed);
+            RecommendationNarrative narrative;
+            try {
+                narrative = objectMapper.treeToValue(reader.finish(), RecommendationNarrative.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Streamed report narrative does not match the expected fields", e);
+            }
+            var report = buildReport(scorer, ranked, narrative, recommendationInputs.webResources());
+            stream.finish(report);
+            return report;
+        });
+    }
 
-        var prompt = """
-                Create personalized book recommendations for this reader:
-                
-                Preferences:
-                - Genre: %s
-                - Mood: %s
-                - Reading time: %s hours/week
-                - Author interest: %s
-                
-                Available books:
-                %s
-                
-                Web resources found:
-                %s
-                
-                Generate a comprehensive report with:
-                1. Personalized book recommendations with confidence scores
-                2. Reading lists tailored to their mood and time
-                3. Links to helpful resources
-                
-                Format as a complete recommendation report.
-                """.formatted(
-                userPreferences.favoriteGenre(),
-                userPreferences.currentMood(),
-                userPreferences.readingTimePerWeek(),
-                userPreferences.authorInterest() != null ? userPreferences.authorInterest() : "None specified",
-                bookList,
-                resourceList
-        );
-
-        return PromptRunner.withLlm(llm).createObject(prompt, BookRecommendationReport.class);
+    private LlmCall reportCall(String prompt) {
+        return LlmCall.of("generateRecommendationReport",
+                        recommendationProperties.modelFor("generateRecommendationReport"), prompt)
+                .withTemperature(0.7);
     }
 
     @Action
     public BookRecommendationReport createThematicReadingList(String theme, int timeframeWeeks) {
-        logger.info("Creating thematic reading list for theme: '{}' with timeframe: {} weeks", theme, timeframeWeeks);
+        return recommendationMetrics.action("createThematicReadingList", () -> {
+            logger.info("Creating thematic reading list for theme: '{}' with timeframe: {} weeks", theme, timeframeWeeks);
+            return reportCache.forThematicList(theme, timeframeWeeks, () -> planReadingList(theme, timeframeWeeks));
+        });
+    }
+
+    /**
+     * Plans the reading list from the catalog, asking the LLM only when no catalog book matches the theme.
+     */
+    private BookRecommendationReport planReadingList(String theme, int timeframeWeeks) {
+        var plan = readingPlanner.plan(theme, timeframeWeeks);
+        if (plan.isPresent()) {
+            var readingList = plan.get();
+            return new BookRecommendationReport(
+                    "%s. %s".formatted(readingList.listName(), readingList.description()),
+                    readingList.books(),
+                    GenreAffinity.of(PreferenceNormalizer.genre(theme)),
+                    List.of(readingList),
+                    List.of(),
+                    Map.of(),
+                    List.of(),
+                    LocalDate.now().plusWeeks(readingList.estimatedCompletionWeeks()),
+                    List.of());
+        }
 
-        return PromptRunner.withLlm(LlmOptions.fromModel(recommendationProperties.getRecommendationLlm()))
-                .createObject("""
-                        Create a curated reading list focused on: '%s'
-                        Design for completion within %d weeks.
-                        Include 3-5 books with brief descriptions and reading order.
-                        Explain thematic connections between books.
-                        """.formatted(theme, timeframeWeeks), BookRecommendationReport.class);
+        var model = recommendationProperties.modelFor("createThematicReadingList");
+        var prompt = """
+                Create a curated reading list focused on: '%s'
+                Design for completion within %d weeks.
+                Include 3-5 books with brief descriptions and reading order.
+                Explain thematic connections between books.
+                """.formatted(theme, timeframeWeeks);
+        return readingPlanner.retime(llmClient.createObject(
+                LlmCall.of("createThematicReadingList", model, prompt), BookRecommendationReport.class));
     }
 
     @Action
     public BookRecommendationReport recommendSimilarBooks(String bookTitle, String author) {
-        logger.info("Finding books similar to: '{}' by {}", bookTitle, author);
-
-        return PromptRunner.withLlm(LlmOptions.fromModel(recommendationProperties.getRecommendationLlm()))
-                .createObject("""
-                        Find books similar to '%s' by %s.
-                        Consider similar themes, writing style, and genre.
-                        Provide 3-5 recommendations with explanations of similarities.
-                        Include both well-known and lesser-known titles.
-                        """.formatted(bookTitle, author), BookRecommendationReport.class);
+        return recommendationMetrics.action("recommendSimilarBooks", () -> {
+            logger.info("Finding books similar to: '{}' by {}", bookTitle, author);
+            return reportCache.forSimilarBooks(bookTitle, author, () -> findSimilarBooks(bookTitle, author));
+        });
+    }
+
+    /**
+     * Finds similar books in the catalog, asking the LLM for them when the book is not in the catalog.
+     */
+    private BookRecommendationReport findSimilarBooks(String bookTitle, String author) {
+        var seed = similarBookIndex.isReady() ? findCatalogBook(bookTitle, author) : Optional.<Book>empty();
+        if (seed.isPresent()) {
+            var similar = similarBookIndex.findSimilar(seed.get(), recommendationProperties.getRanking().getTopK());
+            if (!similar.isEmpty()) {
+                return explainSimilarBooks(seed.get(), similar);
+            }
+        }
+
+        return similarBooksBatcher.report(bookTitle, author);
+    }
+
+    /**
+     * Web searches run on the platform's default model unless the action is routed to another.
+     */
+    private String webSearchModel(String action) {
+        return recommendationProperties.getModelRouting().modelFor(action, null);
+    }
+
+    /**
+     * Looks the book up in the catalog, preferring an exact title match by the given author.
+     */
+    private Optional<Book> findCatalogBook(String bookTitle, String author) {
+        if (bookTitle == null || bookTitle.isBlank()) {
+            return Optional.empty();
+        }
+        var query = BookQuery.forTitle(bookTitle);
+        if (author != null && !author.isBlank()) {
+            query = query.withAuthor(author);
+        }
+        var matches = bookRepository.findByQuery(query);
+        return matches.stream()
+                .filter(book -> book.title().equalsIgnoreCase(bookTitle.strip()))
+                .findFirst()
+                .or(() -> matches.stream().findFirst());
+    }
+
+    /**
+     * Reports the catalog's nearest neighbors of the seed book, asking the LLM only to explain the similarities.
+     */
+    private BookRecommendationReport explainSimilarBooks(Book seed, List<SimilarBook> similar) {
+        var recommendations = recommendationRanker.similarTo(seed, similar);
+        var narrative = similarBooksBatcher.narrative(seed, recommendations);
+        var explained = RecommendationRanker.withReasons(recommendations, narrative.reasonsByIsbn());
+        return new BookRecommendationReport(
+                narrative.personalizedSummary(),
+                explained,
+                GenreAffinity.of(seed.genre()),
+                List.of(),
+                narrative.identifiedReadingPatterns(),
+                narrative.authorRecommendations(),
+                narrative.expandHorizonsGenres(),
+                null,
+                List.of());
+    }
+
+    /**
+     * Combines the locally ranked books with the LLM's narrative into the final report.
+     */
+    private BookRecommendationReport buildReport(WeightedBookScorer scorer,
+                                                 List<BookRecommendation> ranked,
+                                                 RecommendationNarrative narrative,
+                                                 List<InternetResource> webResources) {
+        var recommendations = RecommendationRanker.withReasons(ranked, narrative.reasonsByIsbn());
+        var readingList = RecommendationRanker.readingList(scorer, recommendations, narrative.readingListDescription());
+
+        return new BookRecommendationReport(
+                narrative.personalizedSummary(),
+                recommendations,
+                GenreAffinity.of(scorer.favoriteGenre()),
+                recommendations.isEmpty() ? List.of() : List.of(readingList),
+                narrative.identifiedReadingPatterns(),
+                narrative.authorRecommendations(),
+                narrative.expandHorizonsGenres(),
+                LocalDate.now().plusWeeks(readingList.estimatedCompletionWeeks()),
+                webResources);
     }
 }
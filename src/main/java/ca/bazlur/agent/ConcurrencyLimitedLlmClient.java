@@ -0,0 +1,66 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.util.AdaptiveLimiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Decorates an {@link LlmClient} with one {@link AdaptiveLimiter} per model, so a slow model
+ * sheds load with {@link AdaptiveLimiter.RejectedException} instead of tying up ever more
+ * threads, without holding back calls to the other models.
+ */
+final class ConcurrencyLimitedLlmClient implements LlmClient {
+
+    static final String DEFAULT_MODEL = "default";
+
+    private final LlmClient delegate;
+    private final BookRecommendationProperties.LlmConcurrency settings;
+    private final RecommendationMetrics recommendationMetrics;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    ConcurrencyLimitedLlmClient(LlmClient delegate, BookRecommendationProperties properties,
+                                RecommendationMetrics recommendationMetrics) {
+        this.delegate = delegate;
+        this.settings = properties.getLlmConcurrency();
+        this.recommendationMetrics = recommendationMetrics;
+    }
+
+    @Override
+    public <T> T createObject(LlmCall call, Class<T> type) {
+        return limited(call, () -> delegate.createObject(call, type));
+    }
+
+    @Override
+    public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+        return limited(call, () -> delegate.createObjectIfPossible(call, type));
+    }
+
+    @Override
+    public String streamText(LlmCall call, Consumer<String> chunks) {
+        return limited(call, () -> delegate.streamText(call, chunks));
+    }
+
+    private <T> T limited(LlmCall call, Supplier<T> body) {
+        String model = call.model() != null ? call.model() : DEFAULT_MODEL;
+        return limiters.computeIfAbsent(model, this::limiter).call(body);
+    }
+
+    private AdaptiveLimiter limiter(String model) {
+        var limits = settings.forModel(model);
+        var limiter = new AdaptiveLimiter(
+                limits.getInitialLimit(),
+                limits.getMinLimit(),
+                limits.getMaxLimit(),
+                limits.getMaxQueued(),
+                limits.getMaxWait(),
+                limits.getTolerance(),
+                limits.getSmoothing());
+        recommendationMetrics.limiter(model, limiter);
+        return limiter;
+    }
+}
@@ -0,0 +1,173 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Decorates an {@link LlmClient} with hedged requests. A call to a model with an alternate is
+ * given a latency budget, the configured percentile of that model's recent latencies; if it has
+ * not answered within the budget, the same call is sent to the alternate model and whichever
+ * answers first wins. The other call is cancelled. Once the hedge is sent, a failure of either
+ * call waits for the answer of the other; a primary that fails within its budget is not hedged,
+ * and its failure is rethrown.
+ * <p>
+ * Hedging starts once enough latencies have been observed for the model. When the alternate
+ * wins, the primary's elapsed time is recorded as its latency, a lower bound that still pushes
+ * the percentile up while the model is slow.
+ * <p>
+ * Streamed calls are not hedged, since their first chunks may already have been handed on.
+ * Closing the client interrupts the calls still running on its threads.
+ */
+final class HedgingLlmClient implements LlmClient, AutoCloseable {
+
+    private static final int WINDOW = 256;
+
+    private final LlmClient delegate;
+    private final BookRecommendationProperties.Hedging settings;
+    private final RecommendationMetrics recommendationMetrics;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+
+    HedgingLlmClient(LlmClient delegate, BookRecommendationProperties properties,
+                     RecommendationMetrics recommendationMetrics) {
+        this.delegate = delegate;
+        this.settings = properties.getModelRouting().getHedging();
+        this.recommendationMetrics = recommendationMetrics;
+    }
+
+    @Override
+    public <T> T createObject(LlmCall call, Class<T> type) {
+        return hedged(call, attempt -> delegate.createObject(attempt, type));
+    }
+
+    @Override
+    public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+        return hedged(call, attempt -> delegate.createObjectIfPossible(attempt, type));
+    }
+
+    @Override
+    public String streamText(LlmCall call, Consumer<String> chunks) {
+        return delegate.streamText(call, chunks);
+    }
+
+    private <T> T hedged(LlmCall call, Function<LlmCall, T> body) {
+        String model = call.model() != null ? call.model() : ConcurrencyLimitedLlmClient.DEFAULT_MODEL;
+        String alternate = settings.getAlternates().get(model);
+        if (alternate == null || alternate.isBlank() || alternate.equals(model)) {
+            return body.apply(call);
+        }
+        Latencies observed = latencies.computeIfAbsent(model, ignored -> new Latencies());
+        long budget = observed.budget(settings.getPercentile(), settings.getMinSamples(),
+                settings.getMinDelay().toNanos());
+        long start = System.nanoTime();
+        if (budget < 0) {
+            T result = body.apply(call);
+            observed.record(System.nanoTime() - start);
+            return result;
+        }
+
+        var completion = new ExecutorCompletionService<T>(executor);
+        Future<T> primary = completion.submit(() -> body.apply(call));
+        Future<T> hedge = null;
+        try {
+            if (completion.poll(budget, TimeUnit.NANOSECONDS) != null) {
+                T result = value(primary);
+                observed.record(System.nanoTime() - start);
+                return result;
+            }
+            hedge = completion.submit(() -> body.apply(call.withModel(alternate)));
+            Future<T> winner = completion.take();
+            if (failed(winner)) {
+                winner = completion.take();
+            }
+            Future<T> loser = winner == primary ? hedge : primary;
+            if (failed(winner)) {
+                // Both failed: report the primary's failure.
+                return value(primary);
+            }
+            loser.cancel(true);
+            observed.record(System.nanoTime() - start);
+            recommendationMetrics.hedge(call.action(), model, winner == primary ? "primary" : "alternate");
+            return value(winner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a hedged LLM call");
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static boolean failed(Future<?> done) {
+        return done.state() != Future.State.SUCCESS;
+    }
+
+    /**
+     * @return the result of a completed call, rethrowing its failure unwrapped
+     */
+    private static <T> T value(Future<T> done) {
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a hedged LLM call");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The latest latencies of one model, in a ring buffer.
+     */
+    static final class Latencies {
+
+        private final long[] nanos = new long[WINDOW];
+        private int count;
+        private int next;
+
+        synchronized void record(long latencyNanos) {
+            nanos[next] = latencyNanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+        }
+
+        /**
+         * @return the latency percentile, no less than the minimum delay, or -1 with too few samples
+         */
+        synchronized long budget(double percentile, int minSamples, long minDelayNanos) {
+            if (count == 0 || count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            int index = Math.clamp((long) Math.ceil(percentile * count) - 1, 0, count - 1);
+            return Math.max(sorted[index], minDelayNanos);
+        }
+    }
+}
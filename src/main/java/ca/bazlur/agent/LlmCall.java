@@ -0,0 +1,24 @@
+package ca.bazlur.agent;
+
+/**
+ * One request an agent action makes to an LLM.
+ *
+ * @param action      the action making the call, used to tag metrics and recordings
+ * @param model       the model name, or {@code null} for the platform's default model
+ * @param temperature the sampling temperature, or {@code null} for the model's default
+ * @param prompt      the prompt text
+ */
+public record LlmCall(String action, String model, Double temperature, String prompt) {
+
+    public static LlmCall of(String action, String model, String prompt) {
+        return new LlmCall(action, model, null, prompt);
+    }
+
+    public LlmCall withTemperature(double temperature) {
+        return new LlmCall(action, model, temperature, prompt);
+    }
+
+    public LlmCall withModel(String model) {
+        return new LlmCall(action, model, temperature, prompt);
+    }
+}
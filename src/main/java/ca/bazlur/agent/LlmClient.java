@@ -0,0 +1,31 @@
+package ca.bazlur.agent;
+
+import java.util.function.Consumer;
+
+/**
+ * Turns prompts into objects for the agent's actions. The implementation is chosen with
+ * {@code book.recommendation.llm-client}: {@code live} calls the models through the agent
+ * platform, {@code record} does the same and saves each response, and {@code replay} answers
+ * from saved responses with simulated latency and errors, for load tests without a provider.
+ */
+public interface LlmClient {
+
+    /**
+     * Asks the model for an object of the given type.
+     */
+    <T> T createObject(LlmCall call, Class<T> type);
+
+    /**
+     * Asks the model for an object of the given type.
+     *
+     * @return the object, or {@code null} if the model could not produce one from the prompt
+     */
+    <T> T createObjectIfPossible(LlmCall call, Class<T> type);
+
+    /**
+     * Asks the model for text, handing each chunk to the consumer as it is generated.
+     *
+     * @return the whole text
+     */
+    String streamText(LlmCall call, Consumer<String> chunks);
+}
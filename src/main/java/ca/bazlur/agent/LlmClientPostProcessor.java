@@ -0,0 +1,64 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decorates whichever {@link LlmClient} implementation is active: a
+ * {@link ConcurrencyLimitedLlmClient} unless {@code llm-concurrency.enabled} is false, and
+ * around it a {@link HedgingLlmClient} when {@code model-routing.hedging.enabled} is true, so
+ * hedges pass through the alternate model's limiter.
+ * <p>
+ * Spring only runs destroy callbacks on the undecorated bean, so the hedging clients are
+ * closed here when their bean is destroyed.
+ */
+@Component
+public class LlmClientPostProcessor implements DestructionAwareBeanPostProcessor {
+
+    private final ObjectProvider<BookRecommendationProperties> properties;
+    private final ObjectProvider<RecommendationMetrics> recommendationMetrics;
+    private final Map<String, HedgingLlmClient> hedgingClients = new ConcurrentHashMap<>();
+
+    public LlmClientPostProcessor(ObjectProvider<BookRecommendationProperties> properties,
+                                  ObjectProvider<RecommendationMetrics> recommendationMetrics) {
+        this.properties = properties;
+        this.recommendationMetrics = recommendationMetrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof LlmClient client)
+                || bean instanceof ConcurrencyLimitedLlmClient || bean instanceof HedgingLlmClient) {
+            return bean;
+        }
+        var settings = properties.getObject();
+        if (settings.getLlmConcurrency().isEnabled()) {
+            client = new ConcurrencyLimitedLlmClient(client, settings, recommendationMetrics.getObject());
+        }
+        if (settings.getModelRouting().getHedging().isEnabled()) {
+            var hedging = new HedgingLlmClient(client, settings, recommendationMetrics.getObject());
+            hedgingClients.put(beanName, hedging);
+            client = hedging;
+        }
+        return client;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        var hedging = hedgingClients.remove(beanName);
+        if (hedging != null) {
+            hedging.close();
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return bean instanceof LlmClient;
+    }
+}
@@ -0,0 +1,60 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.metrics.RecommendationMetrics;
+import com.embabel.agent.api.common.PromptRunner;
+import com.embabel.common.ai.model.LlmOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Calls the models through the agent platform's {@link PromptRunner}, recording latency and
+ * estimated tokens for each call.
+ */
+@Component
+@ConditionalOnProperty(name = "book.recommendation.llm-client", havingValue = "live", matchIfMissing = true)
+public class PromptRunnerLlmClient implements LlmClient {
+
+    private final RecommendationMetrics recommendationMetrics;
+
+    public PromptRunnerLlmClient(RecommendationMetrics recommendationMetrics) {
+        this.recommendationMetrics = recommendationMetrics;
+    }
+
+    @Override
+    public <T> T createObject(LlmCall call, Class<T> type) {
+        return recommendationMetrics.llm(call.action(), call.model(), call.prompt(),
+                () -> runner(call).createObject(call.prompt(), type));
+    }
+
+    @Override
+    public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+        return recommendationMetrics.llm(call.action(), call.model(), call.prompt(),
+                () -> runner(call).createObjectIfPossible(call.prompt(), type));
+    }
+
+    /**
+     * The prompt runner returns generated text whole, so it is handed over as one chunk once the
+     * model has finished; callers see no earlier output than with a blocking call. This is why
+     * the streaming endpoint is off by default.
+     */
+    @Override
+    public String streamText(LlmCall call, Consumer<String> chunks) {
+        String text = recommendationMetrics.llm(call.action(), call.model(), call.prompt(),
+                () -> runner(call).generateText(call.prompt()));
+        chunks.accept(text);
+        return text;
+    }
+
+    private static PromptRunner runner(LlmCall call) {
+        if (call.model() == null) {
+            return PromptRunner.withLlm();
+        }
+        var options = LlmOptions.fromModel(call.model());
+        if (call.temperature() != null) {
+            options = options.withTemperature(call.temperature());
+        }
+        return PromptRunner.withLlm(options);
+    }
+}
@@ -0,0 +1,233 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.model.ReadingList;
+import ca.bazlur.model.RecommendationConfidence;
+import ca.bazlur.repository.BookQuery;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.SimilarBook;
+import ca.bazlur.repository.SimilarBookIndex;
+import ca.bazlur.util.PreferenceNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Builds thematic reading lists from the catalog and schedules them week by week, so the
+ * list's timing follows from page counts and reading speed instead of an LLM estimate.
+ * <p>
+ * Books matching the theme are taken most relevant first while their reading hours fit the
+ * timeframe, then read back to back: each week holds the configured hours, and a book that
+ * doesn't fit in what is left of a week carries over into the next.
+ */
+@Component
+public class ReadingPlanner {
+
+    private static final int CANDIDATES = 50;
+
+    private final BookRepository bookRepository;
+    private final SimilarBookIndex similarBookIndex;
+    private final BookRecommendationProperties.ReadingPlan settings;
+    private final double pagesPerHour;
+
+    public ReadingPlanner(BookRecommendationProperties properties,
+                          BookRepository bookRepository,
+                          SimilarBookIndex similarBookIndex) {
+        this.bookRepository = bookRepository;
+        this.similarBookIndex = similarBookIndex;
+        this.settings = properties.getReadingPlan();
+        this.pagesPerHour = properties.getRanking().getPagesPerHour();
+        // weeks are counted by dividing by the weekly hours
+        if (!Double.isFinite(settings.getHoursPerWeek()) || settings.getHoursPerWeek() <= 0) {
+            throw new IllegalArgumentException("Reading plan hours per week must be positive");
+        }
+        if (settings.getMaxBooks() <= 0) {
+            throw new IllegalArgumentException("Reading plan maximum books must be positive");
+        }
+    }
+
+    /**
+     * Plans a reading list on the theme from catalog books.
+     *
+     * @return the list, or empty if no catalog book matches the theme
+     */
+    public Optional<ReadingList> plan(String theme, int timeframeWeeks) {
+        int weeks = Math.max(1, timeframeWeeks);
+        double hoursPerWeek = settings.getHoursPerWeek();
+        List<Candidate> candidates = candidates(theme, PreferenceNormalizer.genre(theme));
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<Candidate> chosen = new ArrayList<>();
+        double budget = weeks * hoursPerWeek;
+        double total = 0;
+        for (Candidate candidate : candidates) {
+            if (chosen.size() == settings.getMaxBooks()) {
+                break;
+            }
+            double hours = hours(candidate.book());
+            if (total + hours <= budget) {
+                chosen.add(candidate);
+                total += hours;
+            }
+        }
+        if (chosen.isEmpty()) {
+            Candidate shortest = candidates.stream()
+                    .min(Comparator.comparingInt(candidate -> candidate.book().pageCount()))
+                    .orElseThrow();
+            chosen.add(shortest);
+            total = hours(shortest.book());
+        }
+
+        List<BookRecommendation> books = new ArrayList<>(chosen.size());
+        List<String> schedule = new ArrayList<>(chosen.size());
+        double elapsed = 0;
+        for (Candidate candidate : chosen) {
+            double hours = hours(candidate.book());
+            String slot = weekRange(firstWeek(elapsed, hoursPerWeek), lastWeek(elapsed + hours, hoursPerWeek));
+            elapsed += hours;
+            schedule.add("%s: %s".formatted(slot, candidate.book().title()));
+            books.add(toRecommendation(candidate, hours, slot));
+        }
+
+        int completionWeeks = Math.max(1, lastWeek(total, hoursPerWeek));
+        String description = String.format(Locale.ROOT, "%s, about %.0f hours at %s hours a week, %s. %s.",
+                count(books.size(), "book"),
+                Math.ceil(total),
+                PreferenceNormalizer.formatHours(hoursPerWeek),
+                completionWeeks <= weeks
+                        ? "finishing within the %s available".formatted(count(weeks, "week"))
+                        : "longer than the %s available, as no shorter book matches".formatted(count(weeks, "week")),
+                String.join("; ", schedule));
+
+        return Optional.of(new ReadingList(
+                "%s: a %d-week reading plan".formatted(capitalize(theme.strip()), completionWeeks),
+                description,
+                books,
+                PreferenceNormalizer.mood(theme),
+                completionWeeks));
+    }
+
+    /**
+     * Recomputes the completion weeks of reading lists written by the LLM from the books' reading hours.
+     */
+    public BookRecommendationReport retime(BookRecommendationReport report) {
+        if (report == null || report.curatedReadingLists() == null) {
+            return report;
+        }
+        var lists = report.curatedReadingLists().stream()
+                .map(list -> {
+                    double hours = list.books() == null ? 0 : list.books().stream().mapToDouble(this::hours).sum();
+                    if (hours <= 0) {
+                        return list;
+                    }
+                    return new ReadingList(list.listName(), list.description(), list.books(), list.targetMood(),
+                            Math.max(1, lastWeek(hours, settings.getHoursPerWeek())));
+                })
+                .toList();
+        return new BookRecommendationReport(
+                report.personalizedSummary(),
+                report.topRecommendations(),
+                report.genreAffinityScores(),
+                lists,
+                report.identifiedReadingPatterns(),
+                report.authorRecommendations(),
+                report.expandHorizonsGenres(),
+                report.nextRecommendationUpdate(),
+                report.links());
+    }
+
+    /**
+     * Finds books on the theme, most relevant first. Until the similarity index is ready, the
+     * best-rated books of the theme's genre are used.
+     */
+    private List<Candidate> candidates(String theme, BookGenre genre) {
+        List<Candidate> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (SimilarBook related : similarBookIndex.findRelated(theme, genre, CANDIDATES)) {
+            Book book = related.book();
+            if (seen.add(book.title().toLowerCase(Locale.ROOT) + "\n" + book.author().toLowerCase(Locale.ROOT))) {
+                candidates.add(new Candidate(book,
+                        RecommendationRanker.similarityConfidence(related.similarity()), related.sharedTerms()));
+            }
+        }
+        if (candidates.isEmpty() && genre != null) {
+            for (Book book : bookRepository.findTopByQuery(BookQuery.forGenre(genre), Book::averageRating, CANDIDATES)) {
+                candidates.add(new Candidate(book, RecommendationConfidence.MEDIUM, List.of()));
+            }
+        }
+        return candidates;
+    }
+
+    private BookRecommendation toRecommendation(Candidate candidate, double hours, String slot) {
+        Book book = candidate.book();
+        List<String> facts = new ArrayList<>();
+        facts.add(String.format(Locale.ROOT, "%s of the plan, about %.0f hours of reading", slot, Math.ceil(hours)));
+        if (!candidate.sharedTerms().isEmpty()) {
+            facts.add("touches on " + String.join(", ", candidate.sharedTerms()));
+        }
+        facts.add(String.format(Locale.ROOT, "rated %.1f/5", book.averageRating()));
+        return new BookRecommendation(
+                book.title(),
+                book.author(),
+                book.genre(),
+                book.isbn(),
+                book.averageRating(),
+                book.description(),
+                String.join(", ", facts) + ".",
+                candidate.confidence(),
+                List.of(),
+                (int) Math.max(1, Math.ceil(hours))
+        );
+    }
+
+    private double hours(Book book) {
+        return book.pageCount() / pagesPerHour;
+    }
+
+    private double hours(BookRecommendation recommendation) {
+        return bookRepository.findByIsbn(recommendation.isbn())
+                .map(this::hours)
+                .orElse((double) Math.max(0, recommendation.estimatedReadingTimeHours()));
+    }
+
+    /**
+     * @return the 1-based week in which reading resumes after {@code elapsedHours}
+     */
+    private static int firstWeek(double elapsedHours, double hoursPerWeek) {
+        return (int) Math.floor(elapsedHours / hoursPerWeek + 1e-9) + 1;
+    }
+
+    /**
+     * @return the 1-based week in which {@code elapsedHours} of reading are done
+     */
+    private static int lastWeek(double elapsedHours, double hoursPerWeek) {
+        return (int) Math.ceil(elapsedHours / hoursPerWeek - 1e-9);
+    }
+
+    private static String weekRange(int first, int last) {
+        return last > first ? "Weeks %d-%d".formatted(first, last) : "Week " + first;
+    }
+
+    private static String count(int count, String noun) {
+        return count == 1 ? "1 " + noun : count + " " + noun + "s";
+    }
+
+    private static String capitalize(String text) {
+        return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private record Candidate(Book book, RecommendationConfidence confidence, List<String> sharedTerms) {
+    }
+}
@@ -0,0 +1,192 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.UserPreferences;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Prompts asking the LLM to write the narrative around books that were already chosen and
+ * ranked locally, or to choose books when the catalog cannot. Batched prompts state the
+ * instructions once for several numbered requests.
+ */
+public final class RecommendationPrompts {
+
+    private static final String SIMILAR_BOOKS_NARRATIVE = """
+            1. A short summary of what these books have in common with the book the reader enjoyed
+            2. For each book, one or two sentences on the similarities in themes, style or genre, keyed by ISBN
+            3. A short description of these books read as a list
+            4. Reading patterns this choice suggests, other authors worth exploring and genres to expand into
+            """;
+
+    private static final String SIMILAR_BOOKS_REPORT = """
+            Consider similar themes, writing style, and genre.
+            Provide 3-5 recommendations with explanations of similarities.
+            Include both well-known and lesser-known titles.
+            """;
+
+    /**
+     * JSON layout for a streamed report narrative. The reasons come first so each book can be
+     * delivered as soon as its reason is complete.
+     */
+    private static final String STREAMED_NARRATIVE_FORMAT = """
+            Answer with one JSON object and nothing else, with these fields in this order:
+            {
+              "reasonsByIsbn": {"<ISBN>": "<why the book suits this reader>"},
+              "readingListDescription": "<description of the reading list>",
+              "personalizedSummary": "<summary of the reader's profile and these books>",
+              "identifiedReadingPatterns": ["<pattern>"],
+              "authorRecommendations": {"<author>": "<why>"},
+              "expandHorizonsGenres": ["<genre>"]
+            }
+            Give the reasons in the books' ranked order.
+            """;
+
+    private RecommendationPrompts() {
+    }
+
+    /**
+     * Prompt for the narrative of a personalized recommendation report.
+     */
+    public static String reportNarrative(UserPreferences preferences, List<BookRecommendation> ranked) {
+        return """
+                Write the narrative for personalized book recommendations for this reader:
+                
+                Preferences:
+                - Genre: %s
+                - Mood: %s
+                - Reading time: %s hours/week
+                - Author interest: %s
+                
+                Recommended books, already ranked and scored, with their ISBNs:
+                %s
+                
+                Do not add, remove or re-rank books. Write:
+                1. A personalized summary of the reader's profile and these books
+                2. For each book, one or two sentences on why it suits this reader, keyed by ISBN
+                3. A short description of the reading list formed by these books in order
+                4. Reading patterns you notice, other authors worth exploring and genres to expand into
+                """.formatted(
+                preferences.favoriteGenre(),
+                preferences.currentMood(),
+                preferences.readingTimePerWeek(),
+                preferences.authorInterest() != null ? preferences.authorInterest() : "None specified",
+                bookList(ranked, recommendation -> recommendation.confidence().toString())
+        );
+    }
+
+    /**
+     * Prompt for the narrative of a personalized recommendation report, answered as JSON text
+     * that can be parsed while it streams.
+     */
+    public static String streamedReportNarrative(UserPreferences preferences, List<BookRecommendation> ranked) {
+        return reportNarrative(preferences, ranked) + "\n" + STREAMED_NARRATIVE_FORMAT;
+    }
+
+    /**
+     * Prompt for explaining why the nearest neighbors of a seed book are similar to it.
+     */
+    public static String similarBooksNarrative(Book seed, List<BookRecommendation> similar) {
+        return """
+                %s
+                
+                Do not add, remove or re-rank books. Write:
+                %s""".formatted(similarBooks(seed, similar), SIMILAR_BOOKS_NARRATIVE);
+    }
+
+    /**
+     * Prompt for explaining several seed books' nearest neighbors in one answer, keyed by request number.
+     */
+    public static String similarBooksNarratives(List<SeedBooks> requests) {
+        return numbered(requests.size(), """
+                Each request names a book a reader enjoyed and the books from our catalog most similar to it.
+                For each request, without adding, removing or re-ranking books, write:
+                """ + SIMILAR_BOOKS_NARRATIVE,
+                requests.stream().map(request -> similarBooks(request.seed(), request.similar())).toList());
+    }
+
+    /**
+     * Prompt for similar books to a title that is not in the catalog, chosen by the LLM.
+     */
+    public static String similarBooksReport(String bookTitle, String author) {
+        return """
+                Find books similar to '%s' by %s.
+                %s""".formatted(bookTitle, author, SIMILAR_BOOKS_REPORT);
+    }
+
+    /**
+     * Prompt for similar books to several titles in one answer, keyed by request number.
+     */
+    public static String similarBooksReports(List<BookTitle> requests) {
+        return numbered(requests.size(), """
+                Each request names a book; find books similar to it.
+                """ + SIMILAR_BOOKS_REPORT,
+                requests.stream().map(request -> "'%s' by %s".formatted(request.bookTitle(), request.author())).toList());
+    }
+
+    private static String similarBooks(Book seed, List<BookRecommendation> similar) {
+        return """
+                A reader enjoyed '%s' by %s (%s): %s
+                
+                These books from our catalog are the most similar to it, most similar first, with their ISBNs:
+                %s""".formatted(
+                seed.title(),
+                seed.author(),
+                seed.genre(),
+                abbreviate(seed.description(), 300),
+                bookList(similar, recommendation -> recommendation.genre().toString())
+        );
+    }
+
+    /**
+     * Instructions shared by all requests, followed by each request under its number.
+     */
+    private static String numbered(int count, String instructions, List<String> requests) {
+        StringBuilder prompt = new StringBuilder()
+                .append("Answer each of the following ").append(count)
+                .append(" requests on its own, and return the answers keyed by request number.\n\n")
+                .append(instructions);
+        for (int i = 0; i < requests.size(); i++) {
+            prompt.append("\nRequest ").append(i + 1).append(":\n").append(requests.get(i)).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * One line per book: ISBN, title, author, a label, the computed reason and the start of the description.
+     */
+    private static String bookList(List<BookRecommendation> recommendations,
+                                   Function<BookRecommendation, String> label) {
+        return recommendations.stream()
+                .map(recommendation -> "- [%s] %s by %s (%s): %s %s".formatted(
+                        recommendation.isbn(),
+                        recommendation.title(),
+                        recommendation.author(),
+                        label.apply(recommendation),
+                        recommendation.reasonForRecommendation(),
+                        abbreviate(recommendation.description(), 200)))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String abbreviate(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            return text != null ? text : "";
+        }
+        return text.substring(0, maxLength - 3) + "...";
+    }
+
+    /**
+     * A seed book and its nearest neighbors in the catalog, most similar first.
+     */
+    public record SeedBooks(Book seed, List<BookRecommendation> similar) {
+    }
+
+    /**
+     * A book named by the reader, which may not be in the catalog.
+     */
+    public record BookTitle(String bookTitle, String author) {
+    }
+}
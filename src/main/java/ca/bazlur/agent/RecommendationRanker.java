@@ -0,0 +1,212 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.ReadingList;
+import ca.bazlur.model.RecommendationConfidence;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.repository.GenreAffinity;
+import ca.bazlur.repository.MoodKeywords;
+import ca.bazlur.repository.SimilarBook;
+import ca.bazlur.repository.WeightedBookScorer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ranks candidate books for a reader and works out everything about a recommendation that
+ * can be computed: confidence, reading time and the facts behind the recommendation.
+ * Only the narrative is left to the LLM.
+ */
+@Component
+public class RecommendationRanker {
+
+    private final BookRecommendationProperties properties;
+
+    public RecommendationRanker(BookRecommendationProperties properties) {
+        this.properties = properties;
+    }
+
+    public WeightedBookScorer scorerFor(UserPreferences preferences) {
+        return WeightedBookScorer.forPreferences(preferences, properties.getRanking());
+    }
+
+    /**
+     * Returns the top K books as recommendations, best first. Books with equal scores keep their input order.
+     */
+    public List<BookRecommendation> rank(WeightedBookScorer scorer, List<Book> books) {
+        return books.stream()
+                .map(book -> new Scored(book, scorer.normalizedScore(book)))
+                .sorted(Comparator.comparingDouble(Scored::score).reversed())
+                .limit(properties.getRanking().getTopK())
+                .map(scored -> toRecommendation(scored, scorer))
+                .toList();
+    }
+
+    /**
+     * Turns the nearest neighbors of a seed book into recommendations, keeping their order.
+     */
+    public List<BookRecommendation> similarTo(Book seed, List<SimilarBook> similarBooks) {
+        double pagesPerHour = properties.getRanking().getPagesPerHour();
+        return similarBooks.stream()
+                .map(similar -> {
+                    Book book = similar.book();
+                    return new BookRecommendation(
+                            book.title(),
+                            book.author(),
+                            book.genre(),
+                            book.isbn(),
+                            book.averageRating(),
+                            book.description(),
+                            similarityReason(seed, similar),
+                            similarityConfidence(similar.similarity()),
+                            List.of(seed.title()),
+                            (int) Math.max(1, Math.ceil(book.pageCount() / pagesPerHour))
+                    );
+                })
+                .toList();
+    }
+
+    /**
+     * Replaces the computed reasons with the LLM's, where it gave one for the book's ISBN.
+     */
+    public static List<BookRecommendation> withReasons(List<BookRecommendation> recommendations,
+                                                       Map<String, String> reasonsByIsbn) {
+        return recommendations.stream()
+                .map(recommendation -> {
+                    String reason = reasonsByIsbn.get(recommendation.isbn());
+                    if (reason == null || reason.isBlank()) {
+                        return recommendation;
+                    }
+                    return new BookRecommendation(
+                            recommendation.title(),
+                            recommendation.author(),
+                            recommendation.genre(),
+                            recommendation.isbn(),
+                            recommendation.rating(),
+                            recommendation.description(),
+                            reason,
+                            recommendation.confidence(),
+                            recommendation.similarBooksRead(),
+                            recommendation.estimatedReadingTimeHours());
+                })
+                .toList();
+    }
+
+    /**
+     * Groups the recommendations, in order, into a reading list paced to the reader's weekly reading time.
+     */
+    public static ReadingList readingList(WeightedBookScorer scorer, List<BookRecommendation> recommendations,
+                                          String description) {
+        int totalHours = recommendations.stream().mapToInt(BookRecommendation::estimatedReadingTimeHours).sum();
+        int weeks = (int) Math.max(1, Math.ceil(totalHours / scorer.hoursPerWeek()));
+        return new ReadingList(
+                "Your next %d weeks of reading".formatted(weeks),
+                description,
+                recommendations,
+                scorer.mood(),
+                weeks);
+    }
+
+    static RecommendationConfidence confidence(double normalizedScore) {
+        if (normalizedScore >= 0.8) {
+            return RecommendationConfidence.VERY_HIGH;
+        }
+        if (normalizedScore >= 0.65) {
+            return RecommendationConfidence.HIGH;
+        }
+        if (normalizedScore >= 0.45) {
+            return RecommendationConfidence.MEDIUM;
+        }
+        return RecommendationConfidence.LOW;
+    }
+
+    private static BookRecommendation toRecommendation(Scored scored, WeightedBookScorer scorer) {
+        Book book = scored.book();
+        double hours = scorer.readingHours(book);
+        return new BookRecommendation(
+                book.title(),
+                book.author(),
+                book.genre(),
+                book.isbn(),
+                book.averageRating(),
+                book.description(),
+                reason(book, hours, scorer),
+                confidence(scored.score()),
+                List.of(),
+                (int) Math.max(1, Math.ceil(hours))
+        );
+    }
+
+    /**
+     * Describes the facts that made the book score well, used as the reason unless the LLM provides a better one.
+     */
+    private static String reason(Book book, double hours, WeightedBookScorer scorer) {
+        List<String> facts = new ArrayList<>();
+        facts.add(String.format(Locale.ROOT, "rated %.1f/5", book.averageRating()));
+        facts.add(String.format(Locale.ROOT, "about %.0f hours of reading, %.1f weeks at %s hours a week",
+                Math.ceil(hours), hours / scorer.hoursPerWeek(), formatHours(scorer.hoursPerWeek())));
+        double genreAffinity = GenreAffinity.between(scorer.favoriteGenre(), book.genre());
+        if (genreAffinity >= 1.0) {
+            facts.add("in your favorite genre");
+        } else if (genreAffinity > 0) {
+            facts.add("in a genre close to " + displayName(scorer.favoriteGenre().name()));
+        }
+        if (MoodKeywords.match(scorer.mood(), book.description()) > 0) {
+            facts.add("suits your " + displayName(scorer.mood().name()) + " mood");
+        }
+        if (scorer.preferredAuthor() != null && book.author().toLowerCase().contains(scorer.preferredAuthor())) {
+            facts.add("by an author you asked for");
+        }
+        String reason = String.join(", ", facts);
+        return Character.toUpperCase(reason.charAt(0)) + reason.substring(1) + ".";
+    }
+
+    /**
+     * Maps cosine similarity of the text vectors to confidence. Books sharing a genre and
+     * little else score around 0.2.
+     */
+    static RecommendationConfidence similarityConfidence(double similarity) {
+        if (similarity >= 0.4) {
+            return RecommendationConfidence.VERY_HIGH;
+        }
+        if (similarity >= 0.25) {
+            return RecommendationConfidence.HIGH;
+        }
+        if (similarity >= 0.12) {
+            return RecommendationConfidence.MEDIUM;
+        }
+        return RecommendationConfidence.LOW;
+    }
+
+    private static String similarityReason(Book seed, SimilarBook similar) {
+        List<String> facts = new ArrayList<>();
+        if (similar.book().genre() == seed.genre()) {
+            facts.add("also " + displayName(seed.genre().name()));
+        } else if (GenreAffinity.between(seed.genre(), similar.book().genre()) > 0) {
+            facts.add("in a genre close to " + displayName(seed.genre().name()));
+        }
+        if (!similar.sharedTerms().isEmpty()) {
+            facts.add("shares themes of " + String.join(", ", similar.sharedTerms()));
+        }
+        facts.add(String.format(Locale.ROOT, "rated %.1f/5", similar.book().averageRating()));
+        String reason = String.join(", ", facts);
+        return Character.toUpperCase(reason.charAt(0)) + reason.substring(1) + ".";
+    }
+
+    private static String formatHours(double hours) {
+        return hours == Math.rint(hours) ? Long.toString((long) hours) : Double.toString(hours);
+    }
+
+    private static String displayName(String constant) {
+        return constant.toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+
+    private record Scored(Book book, double score) {
+    }
+}
@@ -0,0 +1,242 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.util.CacheStats;
+import ca.bazlur.util.ExpiringCache;
+import ca.bazlur.util.FileUtil;
+import ca.bazlur.util.TextUtil;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Caches the reports of similar-book and thematic reading list requests, which depend only on
+ * their arguments and the model the action is routed to. Arguments are keyed after normalization, so
+ * requests differing only in case, whitespace or punctuation share a report.
+ * <p>
+ * A report is kept until its own {@code nextRecommendationUpdate} date. Reports without a
+ * future date are kept for the configured time to live, and no report longer than the
+ * maximum. When a cache directory is configured, each report is also written to a file in it,
+ * and the newest unexpired files are loaded back on startup so the cache is warm after a
+ * restart. Loaded reports are served as they are, so the directory is created readable by the
+ * application's user only. It holds at most as many files as the cache holds entries; the
+ * oldest are deleted first.
+ */
+@Component
+public class ReportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCache.class);
+    private static final String SUFFIX = ".json";
+
+    private static final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final BookRecommendationProperties properties;
+    private final BookRecommendationProperties.ReportCacheSettings settings;
+    private final Clock clock;
+    private final ExpiringCache<String, Entry> cache;
+    private final Path directory;
+
+    public ReportCache(BookRecommendationProperties properties) {
+        this(properties, Clock.systemDefaultZone());
+    }
+
+    ReportCache(BookRecommendationProperties properties, Clock clock) {
+        this.properties = properties;
+        this.settings = properties.getReportCache();
+        this.clock = clock;
+        this.cache = new ExpiringCache<>(settings.getMaxSize(),
+                entry -> Duration.between(clock.instant(), entry.expiresAt()));
+        this.directory = settings.getDirectory().isBlank() ? null : Path.of(settings.getDirectory());
+        if (settings.isEnabled() && directory != null) {
+            warmUp();
+        }
+    }
+
+    public BookRecommendationReport forSimilarBooks(String bookTitle, String author,
+                                                    Supplier<BookRecommendationReport> generator) {
+        return get(key("recommendSimilarBooks", bookTitle, author), generator);
+    }
+
+    public BookRecommendationReport forThematicList(String theme, int timeframeWeeks,
+                                                    Supplier<BookRecommendationReport> generator) {
+        return get(key("createThematicReadingList", theme, Integer.toString(timeframeWeeks)), generator);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private BookRecommendationReport get(String key, Supplier<BookRecommendationReport> generator) {
+        if (!settings.isEnabled()) {
+            return generator.get();
+        }
+        Entry entry = cache.get(key, missed -> {
+            logger.debug("Report cache miss for '{}'", missed);
+            BookRecommendationReport report = generator.get();
+            if (report == null) {
+                return null;
+            }
+            Entry generated = new Entry(missed, expiry(report), report);
+            store(generated);
+            return generated;
+        });
+        return entry != null ? entry.report() : null;
+    }
+
+    /**
+     * @return the start of the report's update date, within the maximum time to live, or the
+     * default time to live if the report has no future date
+     */
+    private Instant expiry(BookRecommendationReport report) {
+        Instant now = clock.instant();
+        LocalDate update = report.nextRecommendationUpdate();
+        Instant expiresAt = update != null ? update.atStartOfDay(clock.getZone()).toInstant() : now;
+        if (!expiresAt.isAfter(now)) {
+            expiresAt = now.plus(settings.getTtl());
+        }
+        Instant latest = now.plus(settings.getMaxTtl());
+        return expiresAt.isAfter(latest) ? latest : expiresAt;
+    }
+
+    private String key(String action, String... parts) {
+        StringBuilder key = new StringBuilder(action).append('\n').append(properties.modelFor(action));
+        for (String part : parts) {
+            key.append('\n').append(TextUtil.normalizeForKey(part));
+        }
+        return key.toString();
+    }
+
+    private void store(Entry entry) {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(fileName(entry.key()));
+        try {
+            FileUtil.createPrivateDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "report", ".tmp");
+            Files.write(temporary, objectMapper.writeValueAsBytes(entry));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trim();
+        } catch (IOException e) {
+            logger.warn("Could not write cached report to {}", file, e);
+        }
+    }
+
+    /**
+     * Loads the newest unexpired reports from the cache directory, deleting the rest.
+     */
+    private void warmUp() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Instant now = clock.instant();
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : files()) {
+            try {
+                Entry entry = objectMapper.readValue(file.toFile(), Entry.class);
+                if (entry.expiresAt().isAfter(now) && entries.size() < settings.getMaxSize()) {
+                    entries.add(entry);
+                    continue;
+                }
+            } catch (IOException e) {
+                logger.warn("Discarding unreadable cached report {}: {}", file, e.getMessage());
+            }
+            delete(file);
+        }
+        for (Entry entry : entries.reversed()) {
+            cache.put(entry.key(), entry);
+        }
+        logger.info("Loaded {} cached reports from {} in {} ms",
+                entries.size(), directory, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Deletes the oldest files beyond the cache size.
+     */
+    private synchronized void trim() {
+        List<Path> files = files();
+        for (int i = settings.getMaxSize(); i < files.size(); i++) {
+            delete(files.get(i));
+        }
+    }
+
+    /**
+     * @return the cached report files, newest first
+     */
+    private List<Path> files() {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .map(file -> new StoredFile(file, lastModified(file)))
+                    .sorted(Comparator.comparingLong(StoredFile::modified).reversed())
+                    .map(StoredFile::path)
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Could not list cached reports in {}", directory, e);
+            return List.of();
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached report {}", file, e);
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached report with the key it was stored under, kept in the file so the key survives
+     * a restart, and the time it expires.
+     */
+    record Entry(String key, Instant expiresAt, BookRecommendationReport report) {
+    }
+
+    private record StoredFile(Path path, long modified) {
+    }
+}
@@ -0,0 +1,99 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.model.ReadingList;
+import ca.bazlur.repository.WeightedBookScorer;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delivers the parts of a report whose narrative is being streamed. The books were ranked
+ * before the narrative was asked for, so each one is complete, and handed to the listener,
+ * as soon as the LLM has written its reason. Once all reasons are in, books the LLM gave no
+ * reason for follow with their computed reasons, and the reading list with its description.
+ * Whatever is still undelivered when the narrative ends goes out with the finished report.
+ */
+final class ReportStream {
+
+    private static final String REASONS = "reasonsByIsbn";
+    private static final String READING_LIST_DESCRIPTION = "readingListDescription";
+
+    private final WeightedBookScorer scorer;
+    private final List<BookRecommendation> ranked;
+    private final ReportStreamListener listener;
+    private final RecommendationMetrics recommendationMetrics;
+    private final long start;
+    private final Map<String, String> reasons = new HashMap<>();
+    private final Set<String> delivered = new HashSet<>();
+    private boolean reasonsComplete;
+    private boolean readingListDelivered;
+
+    /**
+     * @param start the {@link System#nanoTime()} report generation started at
+     */
+    ReportStream(WeightedBookScorer scorer, List<BookRecommendation> ranked, ReportStreamListener listener,
+                 RecommendationMetrics recommendationMetrics, long start) {
+        this.scorer = scorer;
+        this.ranked = ranked;
+        this.listener = listener;
+        this.recommendationMetrics = recommendationMetrics;
+        this.start = start;
+    }
+
+    /**
+     * Handles a value of the narrative as soon as the incremental parser has completed it.
+     */
+    void accept(JsonPointer path, JsonNode value) {
+        String field = path.getMatchingProperty();
+        JsonPointer member = path.tail();
+        boolean whole = member != null && member.matches();
+        if (REASONS.equals(field) && !whole && value.isTextual()) {
+            String isbn = member.getMatchingProperty();
+            reasons.put(isbn, value.asText());
+            ranked.stream()
+                    .filter(recommendation -> isbn.equals(recommendation.isbn()))
+                    .findFirst()
+                    .ifPresent(recommendation -> deliver(
+                            RecommendationRanker.withReasons(List.of(recommendation), reasons).getFirst()));
+        } else if (REASONS.equals(field) && whole) {
+            reasonsComplete = true;
+            ranked.forEach(this::deliver);
+        } else if (READING_LIST_DESCRIPTION.equals(field) && whole && reasonsComplete && value.isTextual()) {
+            var recommendations = RecommendationRanker.withReasons(ranked, reasons);
+            deliver(RecommendationRanker.readingList(scorer, recommendations, value.asText()));
+        }
+    }
+
+    /**
+     * Delivers what the stream has not, from the finished report.
+     */
+    void finish(BookRecommendationReport report) {
+        report.topRecommendations().forEach(this::deliver);
+        report.curatedReadingLists().forEach(this::deliver);
+    }
+
+    private void deliver(BookRecommendation recommendation) {
+        if (!delivered.add(recommendation.isbn())) {
+            return;
+        }
+        if (delivered.size() == 1) {
+            recommendationMetrics.firstRecommendation("stream", System.nanoTime() - start);
+        }
+        listener.recommendation(recommendation);
+    }
+
+    private void deliver(ReadingList readingList) {
+        if (!readingListDelivered) {
+            readingListDelivered = true;
+            listener.readingList(readingList);
+        }
+    }
+}
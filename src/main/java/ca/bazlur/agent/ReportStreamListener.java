@@ -0,0 +1,15 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.ReadingList;
+
+/**
+ * Receives the parts of a recommendation report as soon as each is complete, while the rest
+ * of the report is still being generated.
+ */
+public interface ReportStreamListener {
+
+    void recommendation(BookRecommendation recommendation);
+
+    void readingList(ReadingList readingList);
+}
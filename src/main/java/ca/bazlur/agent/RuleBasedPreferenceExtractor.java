@@ -0,0 +1,78 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.ReadingMood;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.util.AhoCorasick;
+import ca.bazlur.util.PreferenceNormalizer;
+import ca.bazlur.util.ReadingTimeParser;
+import ca.bazlur.util.TextUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Extracts reading preferences from user input without an LLM, for the common case where
+ * the input names a genre, a mood and an amount of reading time in so many words.
+ * Genres and moods are found with one pass of an {@link AhoCorasick} automaton over their
+ * names and the aliases known to {@link PreferenceNormalizer}; the reading time is read by
+ * {@link ReadingTimeParser}.
+ * <p>
+ * Input that mentions an author, or leaves the genre, mood or time unresolved, is left to the LLM.
+ */
+@Component
+public class RuleBasedPreferenceExtractor {
+
+    /**
+     * Phrases suggesting the reader has an author or a specific book in mind.
+     */
+    private enum Cue {
+        AUTHOR
+    }
+
+    private static final String[] AUTHOR_CUES = {
+            "by", "author", "authors", "writer", "writers", "written", "similar to", "books like", "fan of"
+    };
+
+    private static final AhoCorasick<Enum<?>> VOCABULARY = buildVocabulary();
+
+    /**
+     * @return the preferences, or empty if any of genre, mood and reading time is unresolved
+     * or the input may name an author
+     */
+    public Optional<UserPreferences> extract(String input) {
+        if (input == null || input.isBlank()) {
+            return Optional.empty();
+        }
+
+        String text = TextUtil.normalizeForKey(input);
+        BookGenre genre = null;
+        ReadingMood mood = null;
+        for (AhoCorasick.Match<Enum<?>> match : VOCABULARY.findAll(text)) {
+            if (match.value() instanceof Cue) {
+                return Optional.empty();
+            }
+            if (genre == null && match.value() instanceof BookGenre found) {
+                genre = found;
+            } else if (mood == null && match.value() instanceof ReadingMood found) {
+                mood = found;
+            }
+        }
+
+        double hours = ReadingTimeParser.hoursPerWeek(text);
+        if (genre == null || mood == null || Double.isNaN(hours)) {
+            return Optional.empty();
+        }
+        return Optional.of(new UserPreferences(genre.name(), mood.name(), PreferenceNormalizer.formatHours(hours), null));
+    }
+
+    private static AhoCorasick<Enum<?>> buildVocabulary() {
+        AhoCorasick.Builder<Enum<?>> builder = AhoCorasick.builder();
+        PreferenceNormalizer.genreAliases().forEach(builder::add);
+        PreferenceNormalizer.moodAliases().forEach(builder::add);
+        for (String cue : AUTHOR_CUES) {
+            builder.add(cue, Cue.AUTHOR);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,136 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.RecommendationPrompts.BookTitle;
+import ca.bazlur.agent.RecommendationPrompts.SeedBooks;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.model.BookRecommendationReportBatch;
+import ca.bazlur.model.RecommendationNarrative;
+import ca.bazlur.model.RecommendationNarrativeBatch;
+import ca.bazlur.util.MicroBatcher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Makes the LLM calls of similar-book requests, combining requests that arrive within a short
+ * window into one prompt. The instructions are sent once per batch instead of once per
+ * request, and each batch is one round trip; the answers come back keyed by request number
+ * and are handed to the waiting callers. A request the batched answer leaves out is asked on
+ * its own.
+ */
+@Component
+public class SimilarBooksBatcher {
+
+    private static final String ACTION = "recommendSimilarBooks";
+    private static final Pattern LEADING_NUMBER =
+            Pattern.compile("^[\\W_]*(?:request[\\W_]*)?([0-9]{1,9})(?![0-9])", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRAILING_NUMBER = Pattern.compile("(?<![0-9])([0-9]{1,9})[\\W_]*$");
+
+    private final BookRecommendationProperties properties;
+    private final LlmClient llmClient;
+    private final RecommendationMetrics recommendationMetrics;
+    private final MicroBatcher<SeedBooks, RecommendationNarrative> narratives;
+    private final MicroBatcher<BookTitle, BookRecommendationReport> reports;
+
+    public SimilarBooksBatcher(BookRecommendationProperties properties,
+                               LlmClient llmClient,
+                               RecommendationMetrics recommendationMetrics) {
+        this.properties = properties;
+        this.llmClient = llmClient;
+        this.recommendationMetrics = recommendationMetrics;
+        var settings = properties.getBatching();
+        Duration window = settings.isEnabled() ? settings.getWindow() : Duration.ZERO;
+        this.narratives = new MicroBatcher<>("similar-book-narratives", window, settings.getMaxBatchSize(),
+                this::narrateAll, this::narrate);
+        this.reports = new MicroBatcher<>("similar-book-reports", window, settings.getMaxBatchSize(),
+                this::recommendAll, this::recommend);
+    }
+
+    /**
+     * Asks the LLM to explain why the catalog books are similar to the seed book.
+     */
+    public RecommendationNarrative narrative(Book seed, List<BookRecommendation> similar) {
+        return narratives.submit(new SeedBooks(seed, similar));
+    }
+
+    /**
+     * Asks the LLM for books similar to one that is not in the catalog.
+     */
+    public BookRecommendationReport report(String bookTitle, String author) {
+        return reports.submit(new BookTitle(bookTitle, author));
+    }
+
+    private RecommendationNarrative narrate(SeedBooks request) {
+        var prompt = RecommendationPrompts.similarBooksNarrative(request.seed(), request.similar());
+        return llmClient.createObject(call(prompt), RecommendationNarrative.class);
+    }
+
+    private List<RecommendationNarrative> narrateAll(List<SeedBooks> requests) {
+        recommendationMetrics.batch(ACTION, requests.size());
+        var prompt = RecommendationPrompts.similarBooksNarratives(requests);
+        var batch = llmClient.createObject(call(prompt), RecommendationNarrativeBatch.class);
+        return byRequestNumber(batch.narrativesByRequest(), requests.size());
+    }
+
+    private BookRecommendationReport recommend(BookTitle request) {
+        var prompt = RecommendationPrompts.similarBooksReport(request.bookTitle(), request.author());
+        return llmClient.createObject(call(prompt), BookRecommendationReport.class);
+    }
+
+    private List<BookRecommendationReport> recommendAll(List<BookTitle> requests) {
+        recommendationMetrics.batch(ACTION, requests.size());
+        var prompt = RecommendationPrompts.similarBooksReports(requests);
+        var batch = llmClient.createObject(call(prompt), BookRecommendationReportBatch.class);
+        return byRequestNumber(batch.reportsByRequest(), requests.size());
+    }
+
+    private LlmCall call(String prompt) {
+        return LlmCall.of(ACTION, properties.modelFor(ACTION), prompt);
+    }
+
+    /**
+     * Orders answers keyed by 1-based request number. A key is read as the integer it starts
+     * with, optionally after the word "Request" ("2", "Request 2", "Request 1 (2nd ed)"), or
+     * else the integer it ends with ("answer_2"); keys with neither are dropped, and their
+     * requests are asked on their own.
+     */
+    static <T> List<T> byRequestNumber(Map<String, T> answers, int count) {
+        List<T> ordered = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ordered.add(null);
+        }
+        answers.forEach((key, answer) -> {
+            int number = requestNumber(key);
+            if (number >= 1 && number <= count) {
+                ordered.set(number - 1, answer);
+            }
+        });
+        return ordered;
+    }
+
+    /**
+     * @return the request number in the key, or -1 if it has none
+     */
+    private static int requestNumber(String key) {
+        if (key == null) {
+            return -1;
+        }
+        Matcher matcher = LEADING_NUMBER.matcher(key);
+        if (!matcher.find()) {
+            matcher = TRAILING_NUMBER.matcher(key);
+            if (!matcher.find()) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+}
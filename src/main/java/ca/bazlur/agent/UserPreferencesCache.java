@@ -0,0 +1,48 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.util.CacheStats;
+import ca.bazlur.util.ExpiringCache;
+import ca.bazlur.util.TextUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Caches the preferences extracted from user input, so inputs that differ only in case,
+ * whitespace or punctuation share one LLM round trip. Entries are keyed by the model
+ * extraction is routed to as well, since another model may extract different preferences.
+ */
+@Component
+public class UserPreferencesCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPreferencesCache.class);
+
+    private final BookRecommendationProperties properties;
+    private final ExpiringCache<String, UserPreferences> cache;
+
+    public UserPreferencesCache(BookRecommendationProperties properties) {
+        this.properties = properties;
+        var settings = properties.getPreferenceCache();
+        this.cache = new ExpiringCache<>(settings.getMaxSize(), settings.getTtl());
+    }
+
+    /**
+     * Returns the cached preferences for the input, running the extractor on a miss.
+     * Inputs the extractor cannot handle ({@code null} results) are not cached.
+     */
+    public UserPreferences get(String input, Supplier<UserPreferences> extractor) {
+        String key = properties.modelFor("extractUserPreferences") + '\n' + TextUtil.normalizeForKey(input);
+        return cache.get(key, missed -> {
+            logger.debug("Preference cache miss for '{}'", missed);
+            return extractor.get();
+        });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,86 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.ReadingMood;
+import ca.bazlur.util.CacheStats;
+import ca.bazlur.util.ExpiringCache;
+import ca.bazlur.util.PreferenceNormalizer;
+import ca.bazlur.util.TextUtil;
+import com.embabel.agent.domain.library.InternetResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of the web resource searches run by {@link BookRecommendationAgent}.
+ * Results depend only on the reader's genre, mood and reading time, or on the book's title,
+ * author and genre, so they are keyed by those values after normalization; genres, moods
+ * and times that {@link PreferenceNormalizer} recognizes are keyed by their canonical form. Concurrent
+ * requests for the same key share one search instead of each launching their own.
+ * <p>
+ * The search itself is passed in by the caller, so it can be replaced by a local stub.
+ */
+@Component
+public class WebResourceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebResourceCache.class);
+
+    private final ExpiringCache<String, List<InternetResource>> cache;
+
+    public WebResourceCache(BookRecommendationProperties properties) {
+        var settings = properties.getWebResourceCache();
+        this.cache = new ExpiringCache<>(settings.getMaxSize(), settings.getTtl());
+    }
+
+    public List<InternetResource> forPreferences(String genre, String mood, String readingTime,
+                                                 Supplier<List<InternetResource>> search) {
+        double hours = PreferenceNormalizer.hoursPerWeek(readingTime);
+        return get(key("preferences", genreKey(genre), moodKey(mood),
+                Double.isNaN(hours) ? readingTime : PreferenceNormalizer.formatHours(hours)), search);
+    }
+
+    public List<InternetResource> forBook(String title, String author, String genre,
+                                          Supplier<List<InternetResource>> search) {
+        return get(key("book", title, author, genreKey(genre)), search);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Empty results usually mean the search failed, so they are returned but not cached.
+     */
+    private List<InternetResource> get(String key, Supplier<List<InternetResource>> search) {
+        List<InternetResource> resources = cache.get(key, missed -> {
+            logger.debug("Web resource cache miss for '{}'", missed);
+            List<InternetResource> found = search.get();
+            return found == null || found.isEmpty() ? null : Collections.unmodifiableList(new ArrayList<>(found));
+        });
+        return resources != null ? resources : List.of();
+    }
+
+    private static String genreKey(String genre) {
+        BookGenre resolved = PreferenceNormalizer.genre(genre);
+        return resolved != null ? resolved.name() : genre;
+    }
+
+    private static String moodKey(String mood) {
+        ReadingMood resolved = PreferenceNormalizer.mood(mood);
+        return resolved != null ? resolved.name() : mood;
+    }
+
+    private static String key(String kind, String... parts) {
+        StringBuilder key = new StringBuilder(kind);
+        for (String part : parts) {
+            key.append('\n').append(TextUtil.normalizeForKey(part));
+        }
+        return key.toString();
+    }
+}
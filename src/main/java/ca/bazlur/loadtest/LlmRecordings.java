@@ -0,0 +1,95 @@
+package ca.bazlur.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recorded LLM responses, stored as JSON Lines of
+ * {@code {"action": ..., "type": ..., "response": ...}} where {@code type} is the simple name
+ * of the class the response was parsed into.
+ */
+final class LlmRecordings {
+
+    static final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private LlmRecordings() {
+    }
+
+    /**
+     * Reads the recordings at a Spring resource location, keyed by
+     * {@linkplain #key(String, Class) action and type}, by type alone and by action alone.
+     */
+    static Map<String, List<JsonNode>> load(String location) {
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(location);
+        Map<String, List<JsonNode>> responses = new HashMap<>();
+        try (var reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode recording = objectMapper.readTree(line);
+                String type = recording.path("type").asText();
+                JsonNode response = recording.path("response");
+                responses.computeIfAbsent(type, key -> new ArrayList<>()).add(response);
+                String action = recording.path("action").asText();
+                responses.computeIfAbsent(action + "/" + type, key -> new ArrayList<>()).add(response);
+                responses.computeIfAbsent(action, key -> new ArrayList<>()).add(response);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read LLM recordings from " + location, e);
+        }
+        return responses;
+    }
+
+    static String key(String action, Class<?> type) {
+        return action + "/" + type.getSimpleName();
+    }
+
+    /**
+     * Resolves a location to the file new recordings are appended to.
+     *
+     * @throws IllegalStateException if the location is not a file, such as a classpath resource
+     */
+    static Path file(String location) {
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(location);
+        if (!resource.isFile()) {
+            throw new IllegalStateException("LLM recordings can only be written to a file: location, not " + location);
+        }
+        try {
+            return resource.getFile().toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static synchronized void append(Path file, String action, Class<?> type, Object response) {
+        ObjectNode recording = objectMapper.createObjectNode();
+        recording.put("action", action);
+        recording.put("type", type.getSimpleName());
+        recording.set("response", objectMapper.valueToTree(response));
+        try {
+            Files.writeString(file, objectMapper.writeValueAsString(recording) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append LLM recording to " + file, e);
+        }
+    }
+}
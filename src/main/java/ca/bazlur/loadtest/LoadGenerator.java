@@ -0,0 +1,178 @@
+package ca.bazlur.loadtest;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.BookRecommendationAgent;
+import ca.bazlur.agent.ReportStreamListener;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.ReadingList;
+import com.embabel.agent.domain.io.UserInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives many concurrent recommendation runs through the agent and reports throughput,
+ * latency percentiles, and thread and heap usage. Enabled by the {@code load-test} profile,
+ * which also switches to the {@linkplain ReplayingLlmClient replaying LLM client}.
+ * <p>
+ * Each run is one virtual thread calling the actions of the {@code UserInput} goal in the
+ * order the planner chains them: preference extraction, catalog and web search, then the report.
+ * With {@code load-test.streaming}, the report is streamed and the time until each run's first
+ * recommendation is reported as well.
+ */
+@Component
+@Profile("load-test")
+public class LoadGenerator implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    /**
+     * Requests the load test cycles through. The first ones name a genre, mood and reading time
+     * that the local rules resolve; the others need the LLM to extract preferences.
+     */
+    private static final List<String> INPUTS = List.of(
+            "I love mystery novels, I'm feeling curious and have about 5 hours a week",
+            "Fantasy please, something adventurous, 10 hours per week",
+            "Looking for romance that feels light-hearted, 3 hours a week",
+            "Something like the books my grandmother used to read on rainy afternoons",
+            "I just finished a long thriller and want a change of pace, not sure what",
+            "Recommend me books by authors similar to Ursula K. Le Guin",
+            "I commute an hour each way by train and want something gripping");
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 20;
+
+    private final BookRecommendationAgent agent;
+    private final BookRecommendationProperties.LoadTest settings;
+    private final ConfigurableApplicationContext context;
+
+    public LoadGenerator(BookRecommendationAgent agent,
+                         BookRecommendationProperties properties,
+                         ConfigurableApplicationContext context) {
+        this.agent = agent;
+        this.settings = properties.getLoadTest();
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        int runs = settings.getRuns();
+        int concurrency = settings.getConcurrency();
+        logger.info("Starting load test: {} runs, {} concurrent", runs, concurrency);
+
+        var threads = ManagementFactory.getThreadMXBean();
+        var memory = ManagementFactory.getMemoryMXBean();
+        threads.resetPeakThreadCount();
+        var peakHeap = new AtomicLong();
+        var sampler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("load-test-sampler").factory());
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        long[] latencies = new long[runs];
+        long[] firstRecommendations = new long[runs];
+        var failures = new AtomicInteger();
+        var inFlight = new AtomicInteger();
+        var peakInFlight = new AtomicInteger();
+        var permits = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < runs; i++) {
+                int run = i;
+                permits.acquire();
+                executor.submit(() -> {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    long runStart = System.nanoTime();
+                    try {
+                        recommend(input(run), () -> {
+                            if (firstRecommendations[run] == 0) {
+                                firstRecommendations[run] = System.nanoTime() - runStart;
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        logger.debug("Load test run {} failed", run, e);
+                    } finally {
+                        latencies[run] = System.nanoTime() - runStart;
+                        if (firstRecommendations[run] == 0) {
+                            firstRecommendations[run] = latencies[run];
+                        }
+                        inFlight.decrementAndGet();
+                        permits.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        Arrays.sort(firstRecommendations);
+        double seconds = elapsed / 1e9;
+        logger.info("Load test finished: {} runs, {} failed, in {} s, {} runs/s",
+                runs, failures.get(), "%.1f".formatted(seconds), "%.1f".formatted(runs / seconds));
+        logger.info("Latency ms: p50 {}, p90 {}, p99 {}, max {}",
+                millis(latencies, 0.50), millis(latencies, 0.90), millis(latencies, 0.99), millis(latencies, 1.0));
+        logger.info("Time to first recommendation ms ({}): p50 {}, p90 {}, p99 {}, max {}",
+                settings.isStreaming() ? "streamed" : "whole report",
+                millis(firstRecommendations, 0.50), millis(firstRecommendations, 0.90),
+                millis(firstRecommendations, 0.99), millis(firstRecommendations, 1.0));
+        logger.info("Concurrency: peak {} runs in flight, peak {} platform threads ({} live now)",
+                peakInFlight.get(), threads.getPeakThreadCount(), threads.getThreadCount());
+        logger.info("Heap: peak {} MB used, {} MB max",
+                peakHeap.get() >> 20, memory.getHeapMemoryUsage().getMax() >> 20);
+
+        if (settings.isExitWhenDone()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * @param firstRecommendation called when the run's first recommendation is delivered
+     */
+    private void recommend(String input, Runnable firstRecommendation) {
+        var preferences = agent.extractUserPreferences(new UserInput(input));
+        var inputs = agent.gatherRecommendationInputs(preferences);
+        if (!settings.isStreaming()) {
+            agent.generateRecommendationReport(preferences, inputs);
+            return;
+        }
+        agent.streamRecommendationReport(preferences, inputs, new ReportStreamListener() {
+            @Override
+            public void recommendation(BookRecommendation recommendation) {
+                firstRecommendation.run();
+            }
+
+            @Override
+            public void readingList(ReadingList readingList) {
+            }
+        });
+    }
+
+    /**
+     * @return the run's request; numbered when inputs are unique, so cached preferences are not reused
+     */
+    private String input(int run) {
+        String input = INPUTS.get(run % INPUTS.size());
+        return settings.isUniqueInputs() ? input + " (reader " + run + ")" : input;
+    }
+
+    private static long millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,61 @@
+package ca.bazlur.loadtest;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.LlmCall;
+import ca.bazlur.agent.LlmClient;
+import ca.bazlur.agent.PromptRunnerLlmClient;
+import ca.bazlur.metrics.RecommendationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Calls the models like the live client and appends every response to the recordings file,
+ * to be played back later by {@link ReplayingLlmClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "book.recommendation.llm-client", havingValue = "record")
+public class RecordingLlmClient implements LlmClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingLlmClient.class);
+
+    private final LlmClient delegate;
+    private final Path recordings;
+
+    public RecordingLlmClient(BookRecommendationProperties properties, RecommendationMetrics recommendationMetrics) {
+        this.delegate = new PromptRunnerLlmClient(recommendationMetrics);
+        this.recordings = LlmRecordings.file(properties.getLlmReplay().getRecordings());
+        logger.info("Recording LLM responses to {}", recordings);
+    }
+
+    @Override
+    public <T> T createObject(LlmCall call, Class<T> type) {
+        return record(call, type, delegate.createObject(call, type));
+    }
+
+    @Override
+    public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+        return record(call, type, delegate.createObjectIfPossible(call, type));
+    }
+
+    @Override
+    public String streamText(LlmCall call, Consumer<String> chunks) {
+        return record(call, String.class, delegate.streamText(call, chunks));
+    }
+
+    private <T> T record(LlmCall call, Class<T> type, T response) {
+        if (response != null) {
+            try {
+                LlmRecordings.append(recordings, call.action(), type, response);
+            } catch (UncheckedIOException | IllegalArgumentException e) {
+                logger.warn("Could not record the {} response of {}", type.getSimpleName(), call.action(), e);
+            }
+        }
+        return response;
+    }
+}
@@ -0,0 +1,187 @@
+package ca.bazlur.loadtest;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.LlmCall;
+import ca.bazlur.agent.LlmClient;
+import ca.bazlur.metrics.RecommendationMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for the LLM provider by replaying recorded responses, so the agent can be load
+ * tested without a provider or its cost. Each call sleeps for a latency drawn from a
+ * log-normal distribution fitted to the configured median and 99th percentile, then fails
+ * with the configured probability or returns the next recording for the calling action and
+ * result type, falling back to any recording of that type. Streamed text is the next
+ * recording for the calling action, handed over in small chunks spread over the latency.
+ * <p>
+ * Provider slowdowns can be injected: at the end of every slowdown period, latencies are
+ * multiplied by the slowdown factor for the slowdown duration.
+ */
+@Component
+@ConditionalOnProperty(name = "book.recommendation.llm-client", havingValue = "replay")
+public class ReplayingLlmClient implements LlmClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayingLlmClient.class);
+
+    /**
+     * The 99th percentile of the standard normal distribution.
+     */
+    private static final double Z_99 = 2.3263;
+
+    /**
+     * Characters per streamed chunk, about four tokens.
+     */
+    private static final int CHUNK_CHARS = 16;
+
+    private final RecommendationMetrics recommendationMetrics;
+    private final Map<String, List<JsonNode>> responses;
+    private final AtomicLong cursor = new AtomicLong();
+    private final double medianNanos;
+    private final double sigma;
+    private final double errorRate;
+    private final long slowdownPeriodNanos;
+    private final long slowdownDurationNanos;
+    private final double slowdownFactor;
+    private final double firstChunkShare;
+    private final long startNanos = System.nanoTime();
+
+    public ReplayingLlmClient(BookRecommendationProperties properties, RecommendationMetrics recommendationMetrics) {
+        var settings = properties.getLlmReplay();
+        this.recommendationMetrics = recommendationMetrics;
+        this.responses = LlmRecordings.load(settings.getRecordings());
+        this.medianNanos = settings.getLatencyMedian().toNanos();
+        this.sigma = sigma(settings.getLatencyMedian(), settings.getLatencyP99());
+        this.errorRate = settings.getErrorRate();
+        this.slowdownPeriodNanos = settings.getSlowdownPeriod().toNanos();
+        this.slowdownDurationNanos = settings.getSlowdownDuration().toNanos();
+        this.slowdownFactor = settings.getSlowdownFactor();
+        this.firstChunkShare = Math.clamp(settings.getFirstChunkShare(), 0.0, 1.0);
+        logger.info("Replaying LLM responses from {}: median latency {}, p99 {}, error rate {}",
+                settings.getRecordings(), settings.getLatencyMedian(), settings.getLatencyP99(), errorRate);
+    }
+
+    @Override
+    public <T> T createObject(LlmCall call, Class<T> type) {
+        return recommendationMetrics.llm(call.action(), call.model(), call.prompt(), () -> {
+            T response = replay(call, type);
+            if (response == null) {
+                throw new IllegalStateException("No recorded " + type.getSimpleName() + " response for " + call.action());
+            }
+            return response;
+        });
+    }
+
+    @Override
+    public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+        return recommendationMetrics.llm(call.action(), call.model(), call.prompt(), () -> replay(call, type));
+    }
+
+    @Override
+    public String streamText(LlmCall call, Consumer<String> chunks) {
+        return recommendationMetrics.llm(call.action(), call.model(), call.prompt(), () -> {
+            double latency = latencyNanos();
+            sleep(latency * firstChunkShare);
+            simulateError(call);
+            String text = recordedText(call);
+            int count = Math.max(1, (text.length() + CHUNK_CHARS - 1) / CHUNK_CHARS);
+            double interval = count > 1 ? latency * (1 - firstChunkShare) / (count - 1) : 0;
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sleep(interval);
+                }
+                chunks.accept(text.substring(i * CHUNK_CHARS, Math.min(text.length(), (i + 1) * CHUNK_CHARS)));
+            }
+            return text;
+        });
+    }
+
+    private String recordedText(LlmCall call) {
+        var recorded = responses.get(call.action());
+        if (recorded == null) {
+            throw new IllegalStateException("No recorded response for " + call.action());
+        }
+        var response = recorded.get((int) (cursor.getAndIncrement() % recorded.size()));
+        return response.isTextual() ? response.asText() : response.toString();
+    }
+
+    private <T> T replay(LlmCall call, Class<T> type) {
+        sleep(latencyNanos());
+        simulateError(call);
+        var recorded = responses.get(LlmRecordings.key(call.action(), type));
+        if (recorded == null) {
+            recorded = responses.get(type.getSimpleName());
+        }
+        if (recorded == null) {
+            return null;
+        }
+        var response = recorded.get((int) (cursor.getAndIncrement() % recorded.size()));
+        try {
+            return LlmRecordings.objectMapper.treeToValue(response, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Recorded " + type.getSimpleName() + " response cannot be parsed", e);
+        }
+    }
+
+    private void simulateError(LlmCall call) {
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw new SimulatedLlmException("Simulated failure of the " + call.action() + " LLM call");
+        }
+    }
+
+    private double latencyNanos() {
+        double nanos = medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return slowedDown() ? nanos * slowdownFactor : nanos;
+    }
+
+    private static void sleep(double nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos((long) nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulatedLlmException("Interrupted while waiting for a simulated LLM response");
+        }
+    }
+
+    private boolean slowedDown() {
+        if (slowdownPeriodNanos <= 0) {
+            return false;
+        }
+        long elapsed = (System.nanoTime() - startNanos) % slowdownPeriodNanos;
+        return elapsed >= slowdownPeriodNanos - slowdownDurationNanos;
+    }
+
+    /**
+     * @return the log-normal shape giving the median and 99th percentile, or 0 for a fixed latency
+     */
+    static double sigma(Duration median, Duration p99) {
+        if (median.isZero() || p99.compareTo(median) <= 0) {
+            return 0;
+        }
+        return Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+    }
+
+    /**
+     * Thrown in place of a provider error, at the configured error rate.
+     */
+    public static class SimulatedLlmException extends RuntimeException {
+
+        public SimulatedLlmException(String message) {
+            super(message);
+        }
+    }
+}
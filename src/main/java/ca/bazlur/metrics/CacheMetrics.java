@@ -0,0 +1,67 @@
+package ca.bazlur.metrics;
+
+import ca.bazlur.agent.ReportCache;
+import ca.bazlur.agent.UserPreferencesCache;
+import ca.bazlur.agent.WebResourceCache;
+import ca.bazlur.util.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the agent's cache statistics under Micrometer's standard cache meter names,
+ * tagged by cache, plus the hit ratio since startup.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final UserPreferencesCache userPreferencesCache;
+    private final WebResourceCache webResourceCache;
+    private final ReportCache reportCache;
+
+    public CacheMetrics(UserPreferencesCache userPreferencesCache, WebResourceCache webResourceCache,
+                        ReportCache reportCache) {
+        this.userPreferencesCache = userPreferencesCache;
+        this.webResourceCache = webResourceCache;
+        this.reportCache = reportCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "user-preferences", userPreferencesCache::stats);
+        bind(registry, "web-resources", webResourceCache::stats);
+        bind(registry, "reports", reportCache::stats);
+    }
+
+    private static void bind(MeterRegistry registry, String cache, Supplier<CacheStats> stats) {
+        counter(registry, "cache.gets", cache, stats, CacheStats::hits, "result", "hit");
+        counter(registry, "cache.gets", cache, stats, CacheStats::misses, "result", "miss");
+        counter(registry, "cache.evictions", cache, stats, CacheStats::evictions);
+        counter(registry, "cache.expirations", cache, stats, CacheStats::expirations);
+        counter(registry, "cache.coalesced", cache, stats, CacheStats::coalesced);
+        Gauge.builder("cache.size", stats, s -> s.get().size())
+                .description("Entries held in the cache")
+                .tags("cache", cache)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", stats, s -> s.get().hitRate())
+                .description("Share of lookups answered from the cache since startup")
+                .tags("cache", cache)
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String cache, Supplier<CacheStats> stats,
+                                ToDoubleFunction<CacheStats> value, String... tags) {
+        String[] allTags = new String[tags.length + 2];
+        allTags[0] = "cache";
+        allTags[1] = cache;
+        System.arraycopy(tags, 0, allTags, 2, tags.length);
+        FunctionCounter.builder(name, stats, s -> value.applyAsDouble(s.get()))
+                .tags(allTags)
+                .register(registry);
+    }
+}
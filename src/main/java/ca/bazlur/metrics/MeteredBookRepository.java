@@ -0,0 +1,115 @@
+package ca.bazlur.metrics;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.repository.BookPage;
+import ca.bazlur.repository.BookQuery;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookScorer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Decorates a {@link BookRepository} with timings and result sizes per operation. Streams are
+ * consumed lazily by the caller and pass through untimed.
+ */
+final class MeteredBookRepository implements BookRepository {
+
+    static final String QUERY_TIMER = "book.recommendation.repository.queries";
+    static final String RESULT_SIZE = "book.recommendation.repository.results";
+
+    private final BookRepository delegate;
+    private final MeterRegistry registry;
+
+    MeteredBookRepository(BookRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return record("findByIsbn", () -> delegate.findByIsbn(isbn), book -> book.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Book> findByTitle(String title) {
+        return record("findByTitle", () -> delegate.findByTitle(title), List::size);
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return record("findByAuthor", () -> delegate.findByAuthor(author), List::size);
+    }
+
+    @Override
+    public List<Book> findByGenre(BookGenre genre) {
+        return record("findByGenre", () -> delegate.findByGenre(genre), List::size);
+    }
+
+    @Override
+    public List<Book> findByQuery(BookQuery query) {
+        return record("findByQuery", () -> delegate.findByQuery(query), List::size);
+    }
+
+    @Override
+    public List<Book> findTopByQuery(BookQuery query, BookScorer scorer, int k) {
+        return record("findTopByQuery", () -> delegate.findTopByQuery(query, scorer, k), List::size);
+    }
+
+    @Override
+    public BookPage findPage(BookQuery query, String cursor, int pageSize) {
+        return record("findPage", () -> delegate.findPage(query, cursor, pageSize), page -> page.books().size());
+    }
+
+    @Override
+    public Stream<Book> stream(BookQuery query) {
+        return delegate.stream(query);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return record("findAll", delegate::findAll, List::size);
+    }
+
+    @Override
+    public Book save(Book book) {
+        return record("save", () -> delegate.save(book), saved -> 1);
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        record("saveAll", () -> {
+            delegate.saveAll(books);
+            return books;
+        }, Collection::size);
+    }
+
+    private <T> T record(String operation, Supplier<T> call, ToIntFunction<T> size) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            DistributionSummary.builder(RESULT_SIZE)
+                    .description("Books returned or written per repository operation")
+                    .baseUnit("books")
+                    .tags("operation", operation)
+                    .register(registry)
+                    .record(size.applyAsInt(result));
+            return result;
+        } finally {
+            sample.stop(Timer.builder(QUERY_TIMER)
+                    .description("Book repository operations")
+                    .tags("operation", operation, "outcome", outcome)
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ca.bazlur.metrics;
+
+import ca.bazlur.util.AdaptiveLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times agent actions and LLM calls, and counts the tokens sent to and received from each
+ * model. Meters are published through Micrometer and scraped from {@code /actuator/prometheus}.
+ * <p>
+ * The agent API does not report token usage per call, so tokens are estimated from the
+ * length of the prompt and of the returned object at four characters per token.
+ */
+@Component
+public class RecommendationMetrics {
+
+    static final String ACTION_TIMER = "book.recommendation.action";
+    static final String LLM_TIMER = "book.recommendation.llm.calls";
+    static final String LLM_TOKENS = "book.recommendation.llm.tokens";
+    static final String LLM_BATCH_SIZE = "book.recommendation.llm.batch.size";
+    static final String LLM_CONCURRENCY = "book.recommendation.llm.concurrency";
+    static final String LLM_HEDGED = "book.recommendation.llm.hedged";
+    static final String FIRST_RECOMMENDATION = "book.recommendation.report.first.recommendation";
+    static final String DEFAULT_MODEL = "default";
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final MeterRegistry registry;
+
+    public RecommendationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs an action body, recording its latency tagged by action and outcome.
+     */
+    public <T> T action(String action, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder(ACTION_TIMER)
+                    .description("Time spent in agent actions")
+                    .tags("action", action, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Makes an LLM call, recording its latency and estimated token usage tagged by model and
+     * the action making the call.
+     *
+     * @param model the model name, or {@code null} for the platform's default model
+     */
+    public <T> T llm(String action, String model, String prompt, Supplier<T> call) {
+        String modelTag = model != null ? model : DEFAULT_MODEL;
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = result != null ? "success" : "empty";
+            tokens(action, modelTag, "prompt").record(estimateTokens(prompt));
+            if (result != null) {
+                tokens(action, modelTag, "completion").record(estimateTokens(result.toString()));
+            }
+            return result;
+        } finally {
+            sample.stop(Timer.builder(LLM_TIMER)
+                    .description("LLM calls made by the agent")
+                    .tags("action", action, "model", modelTag, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Records the time from the start of report generation until the first recommendation
+     * reached the reader, tagged by whether the report was streamed or delivered whole.
+     */
+    public void firstRecommendation(String delivery, long nanos) {
+        Timer.builder(FIRST_RECOMMENDATION)
+                .description("Time until the first recommendation of a report is delivered")
+                .tags("delivery", delivery)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the number of requests answered by one batched LLM call.
+     */
+    public void batch(String action, int size) {
+        DistributionSummary.builder(LLM_BATCH_SIZE)
+                .description("Requests combined into one LLM call")
+                .tags("action", action)
+                .register(registry)
+                .record(size);
+    }
+
+    /**
+     * Publishes the concurrency limit, calls in flight, queued calls and rejections of a model's limiter.
+     */
+    public void limiter(String model, AdaptiveLimiter limiter) {
+        Gauge.builder(LLM_CONCURRENCY + ".limit", limiter, l -> l.stats().limit())
+                .description("Concurrent LLM calls currently allowed")
+                .tags("model", model)
+                .register(registry);
+        Gauge.builder(LLM_CONCURRENCY + ".in.flight", limiter, l -> l.stats().inFlight())
+                .description("LLM calls in flight")
+                .tags("model", model)
+                .register(registry);
+        Gauge.builder(LLM_CONCURRENCY + ".queued", limiter, l -> l.stats().queued())
+                .description("LLM calls waiting for a permit")
+                .tags("model", model)
+                .register(registry);
+        FunctionCounter.builder(LLM_CONCURRENCY + ".rejected", limiter, l -> l.stats().rejected())
+                .description("LLM calls shed by the concurrency limiter")
+                .tags("model", model)
+                .register(registry);
+    }
+
+    /**
+     * Counts a hedged LLM call, tagged by the primary model and whether the primary or the
+     * alternate model answered first.
+     */
+    public void hedge(String action, String model, String winner) {
+        Counter.builder(LLM_HEDGED)
+                .description("LLM calls raced against an alternate model")
+                .tags("action", action, "model", model != null ? model : DEFAULT_MODEL, "winner", winner)
+                .register(registry)
+                .increment();
+    }
+
+    private DistributionSummary tokens(String action, String model, String type) {
+        return DistributionSummary.builder(LLM_TOKENS)
+                .description("Estimated tokens per LLM call")
+                .baseUnit("tokens")
+                .tags("action", action, "model", model, "type", type)
+                .register(registry);
+    }
+
+    static long estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
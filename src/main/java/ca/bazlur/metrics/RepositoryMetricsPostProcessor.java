@@ -0,0 +1,29 @@
+package ca.bazlur.metrics;
+
+import ca.bazlur.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps whichever {@link BookRepository} implementation is active in a
+ * {@link MeteredBookRepository}, so every consumer's queries are measured.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof BookRepository repository && !(bean instanceof MeteredBookRepository)) {
+            return new MeteredBookRepository(repository, registry.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,18 @@
+package ca.bazlur.model;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@JsonClassDescription("Recommendation reports written for several numbered requests in one answer")
+public record BookRecommendationReportBatch(
+    @JsonPropertyDescription("Map of request numbers, as written in the prompt, to the report for that request")
+    Map<String, BookRecommendationReport> reportsByRequest
+) {
+
+    public BookRecommendationReportBatch {
+        reportsByRequest = reportsByRequest != null ? reportsByRequest : new HashMap<>();
+    }
+}
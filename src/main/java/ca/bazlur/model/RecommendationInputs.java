@@ -0,0 +1,17 @@
+package ca.bazlur.model;
+
+import com.embabel.agent.domain.library.InternetResource;
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.List;
+
+@JsonClassDescription("Candidate books and web resources gathered for a reader before the report is written")
+public record RecommendationInputs(
+    @JsonPropertyDescription("Candidate books from the catalog, best first")
+    List<Book> books,
+
+    @JsonPropertyDescription("Web resources matching the reader's preferences")
+    List<InternetResource> webResources
+) {
+}
@@ -0,0 +1,40 @@
+package ca.bazlur.model;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@JsonClassDescription("The written part of a recommendation report for books that have already been ranked")
+public record RecommendationNarrative(
+    @JsonPropertyDescription("A personalized summary of the user's reading profile and the recommended books")
+    String personalizedSummary,
+
+    @JsonPropertyDescription("Map of book ISBNs to one or two sentences on why the book suits this reader")
+    Map<String, String> reasonsByIsbn,
+
+    @JsonPropertyDescription("A short description of the reading list formed by the books in their ranked order")
+    String readingListDescription,
+
+    @JsonPropertyDescription("List of identified reading patterns and habits")
+    List<String> identifiedReadingPatterns,
+
+    @JsonPropertyDescription("Map of other author names worth exploring to recommendation reasons")
+    Map<String, String> authorRecommendations,
+
+    @JsonPropertyDescription("List of genres suggested for the user to explore beyond their comfort zone")
+    List<String> expandHorizonsGenres
+) {
+
+    public RecommendationNarrative {
+        personalizedSummary = personalizedSummary != null ? personalizedSummary : "";
+        reasonsByIsbn = reasonsByIsbn != null ? reasonsByIsbn : new HashMap<>();
+        readingListDescription = readingListDescription != null ? readingListDescription : "";
+        identifiedReadingPatterns = identifiedReadingPatterns != null ? identifiedReadingPatterns : new ArrayList<>();
+        authorRecommendations = authorRecommendations != null ? authorRecommendations : new HashMap<>();
+        expandHorizonsGenres = expandHorizonsGenres != null ? expandHorizonsGenres : new ArrayList<>();
+    }
+}
@@ -0,0 +1,18 @@
+package ca.bazlur.model;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@JsonClassDescription("Narratives written for several numbered requests in one answer")
+public record RecommendationNarrativeBatch(
+    @JsonPropertyDescription("Map of request numbers, as written in the prompt, to the narrative for that request")
+    Map<String, RecommendationNarrative> narrativesByRequest
+) {
+
+    public RecommendationNarrativeBatch {
+        narrativesByRequest = narrativesByRequest != null ? narrativesByRequest : new HashMap<>();
+    }
+}
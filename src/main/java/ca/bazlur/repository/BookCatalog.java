@@ -0,0 +1,281 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.util.IsbnUtil;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Point-in-time view of the books held by {@link BookRepositoryImpl} and their indexes.
+ * Each book has a dense numeric id that is used by the bitmap facet index and by the
+ * trigram indexes over the lowercased titles and authors.
+ * <p>
+ * A published catalog is never modified. Writers take a {@link #copy()}, apply their
+ * changes with {@link #put(Book)}, {@link #seal()} it and publish the copy in place of
+ * the original. Copies share unmodified chunks and bitmaps with their source.
+ * <p>
+ * A catalog opened from a {@link BookCatalogSnapshot} decodes its books from the mapped
+ * file on access; books saved afterwards are kept on the heap and take precedence.
+ */
+final class BookCatalog {
+
+    private final BookCatalogSnapshot base;
+    private final ChunkedList<Book> books;
+    private final ChunkedList<String> titleKeys;
+    private final ChunkedList<String> authorKeys;
+    private final BookFacetIndex facetIndex;
+    private final TrigramIndex titleIndex;
+    private final TrigramIndex authorIndex;
+
+    /**
+     * ISBN to id mapping shared by every catalog of a repository. An id never changes once
+     * assigned, so older catalogs only need to ignore ids beyond their own size.
+     */
+    private final IsbnIndex idsByIsbn;
+
+    BookCatalog() {
+        this(null, new BookFacetIndex(), new TrigramIndex(), new TrigramIndex());
+    }
+
+    BookCatalog(BookCatalogSnapshot base, BookFacetIndex facetIndex, TrigramIndex titleIndex, TrigramIndex authorIndex) {
+        this.base = base;
+        this.books = new ChunkedList<>();
+        this.titleKeys = new ChunkedList<>();
+        this.authorKeys = new ChunkedList<>();
+        this.facetIndex = facetIndex;
+        this.titleIndex = titleIndex;
+        this.authorIndex = authorIndex;
+        this.idsByIsbn = new IsbnIndex();
+        if (base != null) {
+            books.grow(base.size());
+            titleKeys.grow(base.size());
+            authorKeys.grow(base.size());
+        }
+    }
+
+    private BookCatalog(BookCatalog source) {
+        this.base = source.base;
+        this.books = source.books.copy();
+        this.titleKeys = source.titleKeys.copy();
+        this.authorKeys = source.authorKeys.copy();
+        this.facetIndex = source.facetIndex.copy();
+        this.titleIndex = source.titleIndex.copy();
+        this.authorIndex = source.authorIndex.copy();
+        this.idsByIsbn = source.idsByIsbn;
+    }
+
+    BookCatalog copy() {
+        return new BookCatalog(this);
+    }
+
+    BookCatalog seal() {
+        facetIndex.seal();
+        titleIndex.seal();
+        authorIndex.seal();
+        return this;
+    }
+
+    int size() {
+        return books.size();
+    }
+
+    Optional<Book> findByIsbn(String isbn) {
+        int id = idOf(isbn);
+        return id >= 0 ? Optional.of(book(id)) : Optional.empty();
+    }
+
+    List<Book> findByQuery(BookQuery query) {
+        List<Book> result = new ArrayList<>();
+        new Matches(query, 0).forEachRemaining(result::add);
+        return result;
+    }
+
+    List<Book> findTopByQuery(BookQuery query, BookScorer scorer, int k) {
+        TopK top = new TopK(k, scorer);
+        new Matches(query, 0).forEachRemaining(top::offer);
+        return top.result();
+    }
+
+    BookPage findPage(BookQuery query, int fromId, int pageSize) {
+        Matches matches = new Matches(query, fromId);
+        List<Book> books = new ArrayList<>(Math.min(pageSize, 256));
+        while (books.size() < pageSize && matches.hasNext()) {
+            books.add(matches.next());
+        }
+        return new BookPage(books, matches.hasNext() ? BookCursor.encode(matches.resumeId()) : null);
+    }
+
+    /**
+     * Lazily streams the matching books in id order. The stream reads this catalog only,
+     * so it is unaffected by writes published while it is consumed.
+     */
+    Stream<Book> stream(BookQuery query) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Matches(query, 0),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    List<Book> findAll() {
+        List<Book> result = new ArrayList<>(books.size());
+        for (int id = 0; id < books.size(); id++) {
+            result.add(book(id));
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces a book. Only valid on an unpublished copy.
+     */
+    void put(Book book) {
+        String titleKey = book.title().toLowerCase();
+        String authorKey = book.author().toLowerCase();
+        int id = idOf(book.isbn());
+        if (id < 0) {
+            id = books.size();
+            books.add(book);
+            titleKeys.add(titleKey);
+            authorKeys.add(authorKey);
+            idsByIsbn.put(book.isbn(), id);
+        } else {
+            facetIndex.remove(id, book(id));
+            titleIndex.remove(id, titleKey(id));
+            authorIndex.remove(id, authorKey(id));
+            books.set(id, book);
+            titleKeys.set(id, titleKey);
+            authorKeys.set(id, authorKey);
+        }
+        facetIndex.add(id, book);
+        titleIndex.add(id, titleKey);
+        authorIndex.add(id, authorKey);
+    }
+
+    Book book(int id) {
+        Book book = books.get(id);
+        return book != null ? book : base.book(id);
+    }
+
+    String titleKey(int id) {
+        String key = titleKeys.get(id);
+        return key != null ? key : base.titleKey(id);
+    }
+
+    String authorKey(int id) {
+        String key = authorKeys.get(id);
+        return key != null ? key : base.authorKey(id);
+    }
+
+    void writeIndexes(DataOutput out) throws IOException {
+        facetIndex.writeTo(out);
+        titleIndex.writeTo(out);
+        authorIndex.writeTo(out);
+    }
+
+    private int idOf(String isbn) {
+        int id = idsByIsbn.get(isbn);
+        // ids assigned by a newer catalog, or by a write that never got published, are not ours
+        if (id >= 0 && id < books.size() && IsbnUtil.sameIsbn(book(id).isbn(), isbn)) {
+            return id;
+        }
+        return base != null ? base.idOf(isbn) : -1;
+    }
+
+    /**
+     * Iterates the books matching a query in id order, starting at a given id. Candidate
+     * ids come from the facet and trigram indexes when the query has an indexed criterion
+     * and from a scan of all ids otherwise; either way each candidate is checked in full.
+     */
+    private final class Matches implements Iterator<Book> {
+
+        private final BookQuery query;
+        private final String titleLowerCase;
+        private final String authorLowerCase;
+        private final PeekableIntIterator candidates;
+        private int nextScanId;
+        private Book next;
+        private int nextId;
+        private int lastId;
+
+        Matches(BookQuery query, int fromId) {
+            this.query = query;
+            this.titleLowerCase = query.hasTitle() ? query.title().toLowerCase() : null;
+            this.authorLowerCase = query.hasAuthor() ? query.author().toLowerCase() : null;
+            RoaringBitmap bitmap = facetIndex.candidates(query);
+            if (titleLowerCase != null) {
+                bitmap = intersect(bitmap, titleIndex.candidates(titleLowerCase));
+            }
+            if (authorLowerCase != null) {
+                bitmap = intersect(bitmap, authorIndex.candidates(authorLowerCase));
+            }
+            if (bitmap != null) {
+                this.candidates = bitmap.getIntIterator();
+                candidates.advanceIfNeeded(fromId);
+            } else {
+                this.candidates = null;
+            }
+            this.nextScanId = fromId;
+            this.lastId = fromId - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                int id;
+                if (candidates != null) {
+                    if (!candidates.hasNext()) {
+                        return false;
+                    }
+                    id = candidates.next();
+                } else {
+                    if (nextScanId >= size()) {
+                        return false;
+                    }
+                    id = nextScanId++;
+                }
+                Book book = book(id);
+                if (query.matchesFacets(book)
+                        && (titleLowerCase == null || titleKey(id).contains(titleLowerCase))
+                        && (authorLowerCase == null || authorKey(id).contains(authorLowerCase))) {
+                    next = book;
+                    nextId = id;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Book book = next;
+            next = null;
+            lastId = nextId;
+            return book;
+        }
+
+        /**
+         * @return the id to resume from to continue after the last book returned
+         */
+        int resumeId() {
+            return lastId + 1;
+        }
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap candidates, RoaringBitmap other) {
+        if (other == null) {
+            return candidates;
+        }
+        return candidates != null ? RoaringBitmap.and(candidates, other) : other;
+    }
+}
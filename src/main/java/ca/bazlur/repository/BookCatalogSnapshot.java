@@ -0,0 +1,359 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.util.FileUtil;
+import ca.bazlur.util.IsbnUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary image of a {@link BookCatalog} that is memory-mapped on startup.
+ * Book records are decoded from the mapped file on access instead of being parsed up
+ * front; only the bitmap indexes are read eagerly.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header   magic, version, source fingerprint, book count, section offsets
+ * records  per book: title key, author key, page count, rating, genre, isbn, title, author, description
+ * offsets  one long per book pointing at its record
+ * keys     one long per book holding its normalized ISBN-13, or -1 for other identifiers
+ * isbns    open-addressing table of book ids keyed by the hash of the ISBN-13 or identifier
+ * indexes  facet index, title trigram index, author trigram index
+ * </pre>
+ * The file is mapped in segments of at most 1 GiB and no record crosses a segment boundary.
+ */
+final class BookCatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookCatalogSnapshot.class);
+    private static final int MAGIC = 0x424B534E;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 56;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final int EMPTY_SLOT = -1;
+    private static final BookGenre[] GENRES = BookGenre.values();
+    // genres are stored by ordinal, so a changed enum invalidates existing snapshots
+    private static final long GENRE_SCHEMA = Arrays.toString(GENRES).hashCode();
+
+    private final ByteBuffer[] segments;
+    private final int size;
+    private final long offsetsStart;
+    private final long isbnKeysStart;
+    private final long isbnTableStart;
+    private final int isbnTableMask;
+
+    private BookCatalogSnapshot(ByteBuffer[] segments, int size, long offsetsStart,
+                                long isbnKeysStart, long isbnTableStart, int isbnTableSize) {
+        this.segments = segments;
+        this.size = size;
+        this.offsetsStart = offsetsStart;
+        this.isbnKeysStart = isbnKeysStart;
+        this.isbnTableStart = isbnTableStart;
+        this.isbnTableMask = isbnTableSize - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Book book(int id) {
+        long position = skipString(skipString(recordOffset(id)));
+        int pageCount = readInt(position);
+        double averageRating = Double.longBitsToDouble(readLong(position + 4));
+        BookGenre genre = GENRES[segment(position + 12).get(segmentOffset(position + 12))];
+        position += 13;
+        String isbn = readString(position);
+        position = skipString(position);
+        String title = readString(position);
+        position = skipString(position);
+        String author = readString(position);
+        position = skipString(position);
+        String description = readString(position);
+        return new Book(title, author, genre, isbn, pageCount, description, averageRating);
+    }
+
+    String titleKey(int id) {
+        return readString(recordOffset(id));
+    }
+
+    String authorKey(int id) {
+        return readString(skipString(recordOffset(id)));
+    }
+
+    /**
+     * @return the id of the book with the given ISBN, or -1 if the snapshot has none
+     */
+    int idOf(String isbn) {
+        long key = IsbnUtil.toIsbn13(isbn);
+        byte[] bytes = key == IsbnUtil.NOT_AN_ISBN ? isbn.getBytes(StandardCharsets.UTF_8) : null;
+        for (int slot = hash(isbn, key) & isbnTableMask; ; slot = (slot + 1) & isbnTableMask) {
+            int id = readInt(isbnTableStart + (long) slot * Integer.BYTES);
+            if (id == EMPTY_SLOT) {
+                return -1;
+            }
+            if (bytes == null ? readLong(isbnKeysStart + (long) id * Long.BYTES) == key : isbnEquals(id, bytes)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Maps the snapshot at the given path.
+     *
+     * @return the catalog backed by the snapshot, or {@code null} if the file is missing,
+     * unreadable or was written from a different source
+     */
+    static BookCatalog open(Path path, long fingerprint) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != fingerprint * 31 + GENRE_SCHEMA) {
+                logger.info("Catalog snapshot {} is stale", path);
+                return null;
+            }
+            int size = header.getInt();
+            int isbnTableSize = header.getInt();
+            long offsetsStart = header.getLong();
+            long isbnKeysStart = header.getLong();
+            long isbnTableStart = header.getLong();
+            long indexesStart = header.getLong();
+
+            ByteBuffer[] segments = new ByteBuffer[(int) ((indexesStart + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, indexesStart - start));
+            }
+            BookCatalogSnapshot snapshot = new BookCatalogSnapshot(
+                    segments, size, offsetsStart, isbnKeysStart, isbnTableStart, isbnTableSize);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(indexesStart))));
+            BookFacetIndex facetIndex = BookFacetIndex.readFrom(in);
+            TrigramIndex titleIndex = TrigramIndex.readFrom(in);
+            TrigramIndex authorIndex = TrigramIndex.readFrom(in);
+            return new BookCatalog(snapshot, facetIndex, titleIndex, authorIndex);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not open catalog snapshot {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the catalog to a temporary file next to the target and moves it into place.
+     */
+    static void write(BookCatalog catalog, Path path, long fingerprint) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        FileUtil.createPrivateDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            int size = catalog.size();
+            long[] offsets = new long[size];
+            int isbnTableSize = Integer.highestOneBit(Math.max(1, size) * 2) * 2;
+            long offsetsStart;
+            long isbnKeysStart;
+            long isbnTableStart;
+            long indexesStart;
+            PositionedOutput out = new PositionedOutput(Files.newOutputStream(tempFile));
+            try (DataOutputStream data = new DataOutputStream(out)) {
+                out.pad(HEADER_SIZE);
+                for (int id = 0; id < size; id++) {
+                    byte[] record = encode(catalog.book(id), catalog.titleKey(id), catalog.authorKey(id));
+                    long remaining = SEGMENT_SIZE - (out.position() & (SEGMENT_SIZE - 1));
+                    if (record.length > remaining) {
+                        out.pad(remaining);
+                    }
+                    offsets[id] = out.position();
+                    out.write(record);
+                }
+
+                out.pad(-out.position() & (Long.BYTES - 1));
+                offsetsStart = out.position();
+                for (long offset : offsets) {
+                    data.writeLong(offset);
+                }
+
+                isbnKeysStart = out.position();
+                for (int id = 0; id < size; id++) {
+                    data.writeLong(IsbnUtil.toIsbn13(catalog.book(id).isbn()));
+                }
+
+                isbnTableStart = out.position();
+                int[] table = new int[isbnTableSize];
+                Arrays.fill(table, EMPTY_SLOT);
+                for (int id = 0; id < size; id++) {
+                    String isbn = catalog.book(id).isbn();
+                    int slot = hash(isbn, IsbnUtil.toIsbn13(isbn)) & (isbnTableSize - 1);
+                    while (table[slot] != EMPTY_SLOT) {
+                        slot = (slot + 1) & (isbnTableSize - 1);
+                    }
+                    table[slot] = id;
+                }
+                for (int id : table) {
+                    data.writeInt(id);
+                }
+
+                indexesStart = out.position();
+                catalog.writeIndexes(data);
+            }
+
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(fingerprint * 31 + GENRE_SCHEMA)
+                        .putInt(size).putInt(isbnTableSize)
+                        .putLong(offsetsStart).putLong(isbnKeysStart).putLong(isbnTableStart).putLong(indexesStart);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static byte[] encode(Book book, String titleKey, String authorKey) {
+        byte[][] strings = {
+                titleKey.getBytes(StandardCharsets.UTF_8),
+                authorKey.getBytes(StandardCharsets.UTF_8),
+                book.isbn().getBytes(StandardCharsets.UTF_8),
+                book.title().getBytes(StandardCharsets.UTF_8),
+                book.author().getBytes(StandardCharsets.UTF_8),
+                (book.description() != null ? book.description() : "").getBytes(StandardCharsets.UTF_8)
+        };
+        int length = 13;
+        for (byte[] string : strings) {
+            length += Integer.BYTES + string.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        putString(record, strings[0]);
+        putString(record, strings[1]);
+        record.putInt(book.pageCount())
+                .putLong(Double.doubleToLongBits(book.averageRating()))
+                .put((byte) book.genre().ordinal());
+        for (int i = 2; i < strings.length; i++) {
+            putString(record, strings[i]);
+        }
+        return record.array();
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private boolean isbnEquals(int id, byte[] key) {
+        long position = skipString(skipString(recordOffset(id))) + 13;
+        if (readInt(position) != key.length) {
+            return false;
+        }
+        ByteBuffer segment = segment(position);
+        int offset = segmentOffset(position) + Integer.BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (segment.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long recordOffset(int id) {
+        return readLong(offsetsStart + (long) id * Long.BYTES);
+    }
+
+    private String readString(long position) {
+        int length = readInt(position);
+        byte[] bytes = new byte[length];
+        segment(position).get(segmentOffset(position) + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long skipString(long position) {
+        return position + Integer.BYTES + readInt(position);
+    }
+
+    private int readInt(long position) {
+        return segment(position).getInt(segmentOffset(position));
+    }
+
+    private long readLong(long position) {
+        return segment(position).getLong(segmentOffset(position));
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)];
+    }
+
+    private static int segmentOffset(long position) {
+        return (int) (position & (SEGMENT_SIZE - 1));
+    }
+
+    private static int hash(String isbn, long key) {
+        if (key == IsbnUtil.NOT_AN_ISBN) {
+            int h = isbn.hashCode();
+            return h ^ (h >>> 16);
+        }
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Buffered output that tracks its position as a long, unlike DataOutputStream.
+     */
+    private static final class PositionedOutput extends FilterOutputStream {
+
+        private long position;
+
+        PositionedOutput(OutputStream out) {
+            super(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        long position() {
+            return position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            position += length;
+        }
+
+        void pad(long count) throws IOException {
+            for (long i = 0; i < count; i++) {
+                write(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ca.bazlur.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the position a paged query resumes from as an opaque cursor string.
+ * Positions are book ids, which are assigned in insertion order and never change, so a
+ * cursor stays valid across writes: replaced books keep their place and new books are
+ * appended after every existing one.
+ */
+final class BookCursor {
+
+    private static final String PREFIX = "b1:";
+
+    private BookCursor() {
+    }
+
+    static String encode(int position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + position).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the position encoded in the cursor, or 0 for a {@code null} cursor
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode(int)}
+     */
+    static int decode(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (value.startsWith(PREFIX)) {
+                int position = Integer.parseInt(value.substring(PREFIX.length()));
+                if (position >= 0) {
+                    return position;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed Base64 or number, reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+}
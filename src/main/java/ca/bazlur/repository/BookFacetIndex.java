@@ -0,0 +1,178 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compressed bitmap indexes over the numeric ids of the books in a repository.
+ * Genres get one bitmap each; ratings and page counts are bucketed so that range
+ * criteria become a union of a few bitmaps. Bucketed results are a superset of the
+ * matches and must be verified with {@link BookQuery#matches(Book)}.
+ * <p>
+ * A {@link #copy()} shares every bitmap with its source and clones a bitmap only the
+ * first time it is modified, so the source can keep serving readers unchanged.
+ */
+final class BookFacetIndex {
+
+    private static final int RATING_BUCKETS_PER_STAR = 2;
+    private static final int RATING_BUCKET_COUNT = 5 * RATING_BUCKETS_PER_STAR + 1;
+    private static final int PAGE_BUCKET_WIDTH = 100;
+    private static final int PAGE_BUCKET_COUNT = 20;
+
+    private final Map<BookGenre, RoaringBitmap> genres;
+    private final RoaringBitmap[] ratingBuckets;
+    private final RoaringBitmap[] pageBuckets;
+    private final Set<RoaringBitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    BookFacetIndex() {
+        this.genres = new EnumMap<>(BookGenre.class);
+        for (BookGenre genre : BookGenre.values()) {
+            genres.put(genre, new RoaringBitmap());
+        }
+        this.ratingBuckets = newBuckets(RATING_BUCKET_COUNT);
+        this.pageBuckets = newBuckets(PAGE_BUCKET_COUNT);
+        owned.addAll(genres.values());
+        Collections.addAll(owned, ratingBuckets);
+        Collections.addAll(owned, pageBuckets);
+    }
+
+    private BookFacetIndex(BookFacetIndex source) {
+        this.genres = new EnumMap<>(source.genres);
+        this.ratingBuckets = source.ratingBuckets.clone();
+        this.pageBuckets = source.pageBuckets.clone();
+    }
+
+    BookFacetIndex copy() {
+        return new BookFacetIndex(this);
+    }
+
+    /**
+     * Writes every bitmap in a fixed order; {@link #readFrom(DataInput)} reverses it.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        for (BookGenre genre : BookGenre.values()) {
+            genres.get(genre).serialize(out);
+        }
+        for (RoaringBitmap bucket : ratingBuckets) {
+            bucket.serialize(out);
+        }
+        for (RoaringBitmap bucket : pageBuckets) {
+            bucket.serialize(out);
+        }
+    }
+
+    static BookFacetIndex readFrom(DataInput in) throws IOException {
+        BookFacetIndex index = new BookFacetIndex();
+        for (BookGenre genre : BookGenre.values()) {
+            index.genres.get(genre).deserialize(in);
+        }
+        for (RoaringBitmap bucket : index.ratingBuckets) {
+            bucket.deserialize(in);
+        }
+        for (RoaringBitmap bucket : index.pageBuckets) {
+            bucket.deserialize(in);
+        }
+        return index;
+    }
+
+    /**
+     * Marks every bitmap as shared; called before the index is published to readers.
+     */
+    void seal() {
+        owned.clear();
+    }
+
+    void add(int id, Book book) {
+        writableGenre(book.genre()).add(id);
+        writable(ratingBuckets, ratingBucket(book.averageRating())).add(id);
+        writable(pageBuckets, pageBucket(book.pageCount())).add(id);
+    }
+
+    void remove(int id, Book book) {
+        writableGenre(book.genre()).remove(id);
+        writable(ratingBuckets, ratingBucket(book.averageRating())).remove(id);
+        writable(pageBuckets, pageBucket(book.pageCount())).remove(id);
+    }
+
+    /**
+     * Intersects the bitmaps selected by the indexed criteria of the query.
+     *
+     * @return candidate ids, or {@code null} if the query has no indexed criterion
+     */
+    RoaringBitmap candidates(BookQuery query) {
+        RoaringBitmap result = null;
+        if (query.genre() != null) {
+            result = genres.get(query.genre()).clone();
+        }
+        if (query.minRating() != null) {
+            result = intersect(result, union(ratingBuckets, ratingBucket(query.minRating()), RATING_BUCKET_COUNT - 1));
+        }
+        if (query.minPageCount() != null || query.maxPageCount() != null) {
+            int from = query.minPageCount() != null ? pageBucket(query.minPageCount()) : 0;
+            int to = query.maxPageCount() != null ? pageBucket(query.maxPageCount()) : PAGE_BUCKET_COUNT - 1;
+            result = intersect(result, union(pageBuckets, from, to));
+        }
+        return result;
+    }
+
+    private RoaringBitmap writableGenre(BookGenre genre) {
+        RoaringBitmap bitmap = genres.get(genre);
+        if (!owned.contains(bitmap)) {
+            bitmap = bitmap.clone();
+            genres.put(genre, bitmap);
+            owned.add(bitmap);
+        }
+        return bitmap;
+    }
+
+    private RoaringBitmap writable(RoaringBitmap[] buckets, int bucket) {
+        if (!owned.contains(buckets[bucket])) {
+            buckets[bucket] = buckets[bucket].clone();
+            owned.add(buckets[bucket]);
+        }
+        return buckets[bucket];
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap current, RoaringBitmap other) {
+        if (current == null) {
+            return other;
+        }
+        current.and(other);
+        return current;
+    }
+
+    private static RoaringBitmap union(RoaringBitmap[] buckets, int from, int to) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = from; i <= to; i++) {
+            result.or(buckets[i]);
+        }
+        return result;
+    }
+
+    private static int ratingBucket(double rating) {
+        int bucket = (int) Math.floor(rating * RATING_BUCKETS_PER_STAR);
+        return Math.max(0, Math.min(RATING_BUCKET_COUNT - 1, bucket));
+    }
+
+    private static int pageBucket(int pageCount) {
+        return Math.max(0, Math.min(PAGE_BUCKET_COUNT - 1, pageCount / PAGE_BUCKET_WIDTH));
+    }
+
+    private static RoaringBitmap[] newBuckets(int count) {
+        RoaringBitmap[] buckets = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = new RoaringBitmap();
+        }
+        return buckets;
+    }
+}
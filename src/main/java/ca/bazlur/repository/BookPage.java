@@ -0,0 +1,20 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+
+import java.util.List;
+
+/**
+ * One page of books in catalog order.
+ *
+ * @param books      the books on this page
+ * @param nextCursor cursor to pass back for the following page, or {@code null} after the last page
+ */
+public record BookPage(List<Book> books, String nextCursor) {
+
+    static final BookPage EMPTY = new BookPage(List.of(), null);
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
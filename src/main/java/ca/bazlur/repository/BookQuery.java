@@ -0,0 +1,95 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+
+/**
+ * Multi-criteria query over the book catalog.
+ * Criteria left {@code null} are not applied; all others must match.
+ */
+public record BookQuery(
+        BookGenre genre,
+        Double minRating,
+        Integer minPageCount,
+        Integer maxPageCount,
+        String author,
+        String title
+) {
+
+    /**
+     * Creates a query that matches every book.
+     */
+    public static BookQuery all() {
+        return new BookQuery(null, null, null, null, null, null);
+    }
+
+    /**
+     * Creates a query that matches every book in the given genre.
+     */
+    public static BookQuery forGenre(BookGenre genre) {
+        return new BookQuery(genre, null, null, null, null, null);
+    }
+
+    /**
+     * Creates a query that matches books whose author contains the given text, ignoring case.
+     */
+    public static BookQuery forAuthor(String author) {
+        return new BookQuery(null, null, null, null, author, null);
+    }
+
+    /**
+     * Creates a query that matches books whose title contains the given text, ignoring case.
+     */
+    public static BookQuery forTitle(String title) {
+        return new BookQuery(null, null, null, null, null, title);
+    }
+
+    public BookQuery withMinRating(double minRating) {
+        return new BookQuery(genre, minRating, minPageCount, maxPageCount, author, title);
+    }
+
+    public BookQuery withPageCountRange(Integer minPageCount, Integer maxPageCount) {
+        return new BookQuery(genre, minRating, minPageCount, maxPageCount, author, title);
+    }
+
+    public BookQuery withAuthor(String author) {
+        return new BookQuery(genre, minRating, minPageCount, maxPageCount, author, title);
+    }
+
+    public BookQuery withTitle(String title) {
+        return new BookQuery(genre, minRating, minPageCount, maxPageCount, author, title);
+    }
+
+    /**
+     * Checks a single book against every criterion of this query.
+     */
+    public boolean matches(Book book) {
+        return matchesFacets(book)
+                && (!hasAuthor() || book.author().toLowerCase().contains(author.toLowerCase()))
+                && (!hasTitle() || book.title().toLowerCase().contains(title.toLowerCase()));
+    }
+
+    /**
+     * Checks the genre, rating and page count criteria, ignoring the author and title.
+     */
+    public boolean matchesFacets(Book book) {
+        if (genre != null && book.genre() != genre) {
+            return false;
+        }
+        if (minRating != null && book.averageRating() < minRating) {
+            return false;
+        }
+        if (minPageCount != null && book.pageCount() < minPageCount) {
+            return false;
+        }
+        return maxPageCount == null || book.pageCount() <= maxPageCount;
+    }
+
+    public boolean hasAuthor() {
+        return author != null && !author.isBlank();
+    }
+
+    public boolean hasTitle() {
+        return title != null && !title.isBlank();
+    }
+}
@@ -3,8 +3,10 @@ package ca.bazlur.repository;
 import ca.bazlur.model.Book;
 import ca.bazlur.model.BookGenre;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface BookRepository {
@@ -17,8 +19,37 @@ public interface BookRepository {
 
     List<Book> findByGenre(BookGenre genre);
 
+    List<Book> findByQuery(BookQuery query);
+
+    /**
+     * Finds the k books matching the query with the highest scores, best first.
+     */
+    List<Book> findTopByQuery(BookQuery query, BookScorer scorer, int k);
+
+    /**
+     * Finds the next page of books matching the query. Pages follow a stable order in which
+     * books keep their place when replaced and new books come after all existing ones, so
+     * paging can continue from a cursor across writes.
+     *
+     * @param cursor   {@code null} for the first page, otherwise the {@code nextCursor} of the previous page
+     * @param pageSize the maximum number of books on the page
+     * @throws IllegalArgumentException if the cursor is malformed or the page size is not positive
+     */
+    BookPage findPage(BookQuery query, String cursor, int pageSize);
+
+    /**
+     * Lazily streams the books matching the query, in the same order as {@link #findPage}.
+     * Use {@code stream(BookQuery.all())} instead of {@link #findAll()} for large exports.
+     */
+    Stream<Book> stream(BookQuery query);
+
     List<Book> findAll();
     
 
     Book save(Book book);
+
+    /**
+     * Saves all books as one write; readers see either none or all of them.
+     */
+    void saveAll(Collection<Book> books);
 }
\ No newline at end of file
@@ -1,39 +1,61 @@
 package ca.bazlur.repository;
 
+import ca.bazlur.BookRecommendationProperties;
 import ca.bazlur.model.Book;
 import ca.bazlur.model.BookGenre;
 import ca.bazlur.util.BookUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of BookRepository that stores books in memory.
- * Books are loaded from a JSON file using the BookUtil class.
+ * Books are streamed from the configured catalog files using the BookUtil class.
+ * <p>
+ * The repository is safe for concurrent use and readers never block: every query runs
+ * against the {@link BookCatalog} that was current when it started. Writers are
+ * serialized, apply their changes to a copy-on-write copy of the catalog and publish it
+ * with a single volatile write.
+ * <p>
+ * When a snapshot path is configured, the catalog is opened from a memory-mapped
+ * {@link BookCatalogSnapshot} if it is up to date, and the snapshot is rewritten after
+ * the catalog had to be loaded from its JSON files.
  */
 @Component
+@ConditionalOnProperty(name = "book.recommendation.repository-type", havingValue = "indexed", matchIfMissing = true)
 public class BookRepositoryImpl implements BookRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(BookRepositoryImpl.class);
-    private final Map<String, Book> books = new HashMap<>();
+    private final Object writeLock = new Object();
+    private volatile BookCatalog catalog = new BookCatalog().seal();
 
     /**
-     * Constructor that initializes the repository with books loaded from the JSON file.
+     * Constructor that initializes the repository with books loaded from the catalog files.
      */
-    public BookRepositoryImpl() {
-        loadBooksFromFile();
+    public BookRepositoryImpl(BookRecommendationProperties properties) {
+        String snapshotPath = properties.getCatalogSnapshotPath();
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            loadBooksFromFile(properties.getCatalogLocation());
+        } else {
+            loadBooksFromSnapshot(properties.getCatalogLocation(), Path.of(snapshotPath));
+        }
     }
 
     @Override
     public Optional<Book> findByIsbn(String isbn) {
-        return Optional.ofNullable(books.get(isbn));
+        if (isbn == null) {
+            return Optional.empty();
+        }
+
+        return catalog.findByIsbn(isbn);
     }
 
     @Override
@@ -42,10 +64,7 @@ public class BookRepositoryImpl implements BookRepository {
             return List.of();
         }
 
-        String titleLowerCase = title.toLowerCase();
-        return books.values().stream()
-                .filter(book -> book.title().toLowerCase().contains(titleLowerCase))
-                .collect(Collectors.toList());
+        return catalog.findByQuery(BookQuery.forTitle(title));
     }
 
     @Override
@@ -54,10 +73,7 @@ public class BookRepositoryImpl implements BookRepository {
             return List.of();
         }
 
-        String authorLowerCase = author.toLowerCase();
-        return books.values().stream()
-                .filter(book -> book.author().toLowerCase().contains(authorLowerCase))
-                .collect(Collectors.toList());
+        return catalog.findByQuery(BookQuery.forAuthor(author));
     }
 
     @Override
@@ -66,14 +82,52 @@ public class BookRepositoryImpl implements BookRepository {
             return List.of();
         }
 
-        return books.values().stream()
-                .filter(book -> book.genre() == genre)
-                .collect(Collectors.toList());
+        return findByQuery(BookQuery.forGenre(genre));
+    }
+
+    @Override
+    public List<Book> findByQuery(BookQuery query) {
+        if (query == null) {
+            return List.of();
+        }
+
+        return catalog.findByQuery(query);
+    }
+
+    @Override
+    public List<Book> findTopByQuery(BookQuery query, BookScorer scorer, int k) {
+        if (query == null || scorer == null || k <= 0) {
+            return List.of();
+        }
+
+        return catalog.findTopByQuery(query, scorer, k);
+    }
+
+    @Override
+    public BookPage findPage(BookQuery query, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int fromId = BookCursor.decode(cursor);
+        if (query == null) {
+            return BookPage.EMPTY;
+        }
+
+        return catalog.findPage(query, fromId, pageSize);
+    }
+
+    @Override
+    public Stream<Book> stream(BookQuery query) {
+        if (query == null) {
+            return Stream.empty();
+        }
+
+        return catalog.stream(query);
     }
 
     @Override
     public List<Book> findAll() {
-        return new ArrayList<>(books.values());
+        return catalog.findAll();
     }
 
     @Override
@@ -82,18 +136,63 @@ public class BookRepositoryImpl implements BookRepository {
             throw new IllegalArgumentException("Book cannot be null");
         }
 
-        books.put(book.isbn(), book);
+        write(List.of(book));
         return book;
     }
 
-    private void loadBooksFromFile() {
-        logger.info("Loading books from file");
-        List<Book> bookList = BookUtil.loadBooks();
+    @Override
+    public void saveAll(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null");
+        }
+
+        write(books);
+    }
+
+    private void write(Collection<Book> books) {
+        synchronized (writeLock) {
+            BookCatalog next = catalog.copy();
+            for (Book book : books) {
+                if (book == null) {
+                    throw new IllegalArgumentException("Book cannot be null");
+                }
+                next.put(book);
+            }
+            catalog = next.seal();
+        }
+    }
+
+    private void loadBooksFromSnapshot(String catalogLocation, Path snapshotPath) {
+        long fingerprint = BookUtil.catalogFingerprint(catalogLocation);
+        BookCatalog snapshot = BookCatalogSnapshot.open(snapshotPath, fingerprint);
+        if (snapshot != null) {
+            catalog = snapshot.seal();
+            logger.info("Opened catalog snapshot {} with {} books", snapshotPath, catalog.size());
+            return;
+        }
+
+        loadBooksFromFile(catalogLocation);
+        try {
+            BookCatalogSnapshot.write(catalog, snapshotPath, fingerprint);
+            logger.info("Wrote catalog snapshot {}", snapshotPath);
+        } catch (IOException e) {
+            logger.warn("Could not write catalog snapshot {}", snapshotPath, e);
+        }
+    }
 
-        for (Book book : bookList) {
-            books.put(book.isbn(), book);
+    private void loadBooksFromFile(String catalogLocation) {
+        logger.info("Loading books from {}", catalogLocation);
+        synchronized (writeLock) {
+            BookCatalog next = catalog.copy();
+            // shards are parsed in parallel, but the catalog takes one book at a time
+            BookUtil.loadBooks(catalogLocation, book -> {
+                synchronized (next) {
+                    next.put(book);
+                }
+            });
+            catalog = next.seal();
         }
 
-        logger.info("Loaded {} books from file", books.size());
+        logger.info("Loaded {} books from file", catalog.size());
     }
 }
@@ -0,0 +1,12 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+
+/**
+ * Scores books for ranked retrieval; higher scores rank first.
+ */
+@FunctionalInterface
+public interface BookScorer {
+
+    double score(Book book);
+}
@@ -0,0 +1,132 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a book's title, description and genre into a hashed TF-IDF vector, so similar books
+ * can be found without an external embedding service. Terms are hashed into a fixed number
+ * of buckets; document frequencies are counted per bucket over the whole catalog with
+ * {@link #count(Book)} before any vector is built.
+ */
+final class BookVectorizer {
+
+    private static final int BUCKETS = 1 << 18;
+    private static final float TITLE_WEIGHT = 1.5f;
+    private static final float GENRE_WEIGHT = 3.0f;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "with", "that", "this", "from", "into", "his", "her", "their", "its",
+            "who", "what", "when", "where", "which", "while", "are", "was", "were", "has", "have", "had",
+            "but", "not", "all", "one", "out", "about", "after", "before", "over", "under", "more", "most",
+            "than", "then", "they", "them", "she", "him", "you", "your", "our", "can", "will", "would",
+            "book", "novel", "story", "new", "also", "only", "through", "between", "must", "every",
+            "set", "another", "way", "ever", "even", "like", "just", "how", "why", "many", "much");
+
+    private final int[] documentFrequencies = new int[BUCKETS];
+    private int documents;
+
+    void count(Book book) {
+        for (String term : terms(book).keySet()) {
+            documentFrequencies[bucket(term)]++;
+        }
+        documents++;
+    }
+
+    SparseVector vectorize(Book book) {
+        return vectorize(terms(book));
+    }
+
+    /**
+     * Vectorizes free text, such as a reading-list theme, in the same space as the books.
+     *
+     * @param genre genre the text is about, or {@code null}
+     */
+    SparseVector vectorize(String text, BookGenre genre) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String word : words(text)) {
+            terms.merge(word, 1f, Float::sum);
+        }
+        if (genre != null) {
+            terms.merge("genre:" + genre.name(), GENRE_WEIGHT, Float::sum);
+        }
+        return vectorize(terms);
+    }
+
+    private SparseVector vectorize(Map<String, Float> terms) {
+        int[] indices = new int[terms.size()];
+        float[] values = new float[terms.size()];
+        int size = 0;
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            int bucket = bucket(term.getKey());
+            indices[size] = bucket;
+            values[size++] = (float) ((1 + Math.log(term.getValue())) * idf(bucket));
+        }
+        return SparseVector.normalized(indices, values, size);
+    }
+
+    /**
+     * @return up to {@code limit} words that both books use, rarest first
+     */
+    List<String> sharedTerms(Book a, Book b, int limit) {
+        return sharedTerms(a.title() + " " + a.description(), b, limit);
+    }
+
+    /**
+     * @return up to {@code limit} words of the text that the book also uses, rarest first
+     */
+    List<String> sharedTerms(String text, Book book, int limit) {
+        Set<String> shared = new LinkedHashSet<>(words(text));
+        shared.retainAll(new LinkedHashSet<>(words(book.title() + " " + book.description())));
+        List<String> ranked = new ArrayList<>(shared);
+        ranked.sort(Comparator.comparingDouble((String term) -> idf(bucket(term))).reversed());
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    /**
+     * @return each term of the book with its weighted count
+     */
+    private static Map<String, Float> terms(Book book) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String word : words(book.title())) {
+            terms.merge(word, TITLE_WEIGHT, Float::sum);
+        }
+        if (book.description() != null) {
+            for (String word : words(book.description())) {
+                terms.merge(word, 1f, Float::sum);
+            }
+        }
+        terms.merge("genre:" + book.genre().name(), GENRE_WEIGHT, Float::sum);
+        return terms;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private double idf(int bucket) {
+        return Math.log((documents + 1.0) / (documentFrequencies[bucket] + 1.0)) + 1;
+    }
+
+    private static int bucket(String term) {
+        int h = term.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (BUCKETS - 1);
+    }
+}
@@ -0,0 +1,106 @@
+package ca.bazlur.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only store of UTF-8 strings packed into shared byte pages.
+ * Each string is written once with a length prefix and addressed by a {@code long}
+ * combining its page and offset, so millions of strings cost a handful of arrays
+ * instead of one {@code String} object each. Strings never span pages; a string larger
+ * than a page gets a page of its own.
+ */
+final class ByteArena {
+
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private byte[][] pages = new byte[4][];
+    private int pageCount;
+    private int position = PAGE_SIZE;
+
+    long append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int required = Integer.BYTES + bytes.length;
+        if (position + required > PAGE_SIZE || pageCount == 0) {
+            if (pageCount == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            pages[pageCount++] = new byte[Math.max(PAGE_SIZE, required)];
+            position = 0;
+        }
+        byte[] page = pages[pageCount - 1];
+        long address = ((long) (pageCount - 1) << PAGE_SHIFT) | position;
+        writeInt(page, position, bytes.length);
+        System.arraycopy(bytes, 0, page, position + Integer.BYTES, bytes.length);
+        position += required;
+        return address;
+    }
+
+    String read(long address) {
+        byte[] page = page(address);
+        int offset = offset(address);
+        return new String(page, offset + Integer.BYTES, readInt(page, offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether the string at the address contains the needle, comparing raw bytes.
+     */
+    boolean contains(long address, byte[] needle) {
+        byte[] page = page(address);
+        int offset = offset(address);
+        int start = offset + Integer.BYTES;
+        int last = start + readInt(page, offset) - needle.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (page[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    boolean equals(long address, byte[] value) {
+        byte[] page = page(address);
+        int offset = offset(address);
+        return readInt(page, offset) == value.length
+                && Arrays.equals(page, offset + Integer.BYTES, offset + Integer.BYTES + value.length,
+                value, 0, value.length);
+    }
+
+    /**
+     * @return the bytes held by the arena pages, for footprint reporting
+     */
+    long capacity() {
+        long capacity = 0;
+        for (int i = 0; i < pageCount; i++) {
+            capacity += pages[i].length;
+        }
+        return capacity;
+    }
+
+    private byte[] page(long address) {
+        return pages[(int) (address >>> PAGE_SHIFT)];
+    }
+
+    private static int offset(long address) {
+        return (int) (address & (PAGE_SIZE - 1));
+    }
+
+    private static void writeInt(byte[] page, int offset, int value) {
+        page[offset] = (byte) (value >>> 24);
+        page[offset + 1] = (byte) (value >>> 16);
+        page[offset + 2] = (byte) (value >>> 8);
+        page[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] page, int offset) {
+        return (page[offset] & 0xff) << 24
+                | (page[offset + 1] & 0xff) << 16
+                | (page[offset + 2] & 0xff) << 8
+                | (page[offset + 3] & 0xff);
+    }
+}
@@ -0,0 +1,83 @@
+package ca.bazlur.repository;
+
+import java.util.Arrays;
+
+/**
+ * Append-only list split into fixed-size chunks so that copies share structure.
+ * {@link #copy()} duplicates only the chunk table; a chunk is cloned the first time
+ * the copy writes into it. Published instances must not be mutated.
+ * <p>
+ * Slots that were never written read as {@code null}; {@link #grow(int)} reserves such
+ * slots without allocating any chunk.
+ */
+final class ChunkedList<T> {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks;
+    private boolean[] owned;
+    private int size;
+
+    ChunkedList() {
+        this.chunks = new Object[8][];
+        this.owned = new boolean[8];
+    }
+
+    private ChunkedList(ChunkedList<T> source) {
+        this.chunks = source.chunks.clone();
+        this.owned = new boolean[chunks.length];
+        this.size = source.size;
+    }
+
+    ChunkedList<T> copy() {
+        return new ChunkedList<>(this);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        Object[] chunk = chunks[index >>> CHUNK_SHIFT];
+        return chunk != null ? (T) chunk[index & CHUNK_MASK] : null;
+    }
+
+    void set(int index, T value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        writableChunk(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = value;
+    }
+
+    void add(T value) {
+        grow(size + 1);
+        writableChunk((size - 1) >>> CHUNK_SHIFT)[(size - 1) & CHUNK_MASK] = value;
+    }
+
+    /**
+     * Extends the list to the given size with {@code null} slots.
+     */
+    void grow(int newSize) {
+        int requiredChunks = (newSize + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (requiredChunks > chunks.length) {
+            int capacity = Math.max(requiredChunks, chunks.length * 2);
+            chunks = Arrays.copyOf(chunks, capacity);
+            owned = Arrays.copyOf(owned, capacity);
+        }
+        size = Math.max(size, newSize);
+    }
+
+    private Object[] writableChunk(int chunk) {
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Object[CHUNK_SIZE];
+            owned[chunk] = true;
+        } else if (!owned[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            owned[chunk] = true;
+        }
+        return chunks[chunk];
+    }
+}
@@ -0,0 +1,474 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.util.BookUtil;
+import ca.bazlur.util.IsbnUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of BookRepository that stores books column by column instead of as objects.
+ * Authors are dictionary-encoded to int ids, genres are kept as byte ordinals, page counts
+ * and ratings live in primitive arrays, and ISBNs, titles and descriptions are packed into
+ * a shared {@link ByteArena}. {@link Book} objects are only created for the results
+ * returned to callers.
+ * <p>
+ * Enabled with {@code book.recommendation.repository-type=columnar}. Queries scan the
+ * primitive columns; readers share a read lock and writers take the write lock.
+ */
+@Component
+@ConditionalOnProperty(name = "book.recommendation.repository-type", havingValue = "columnar")
+public class ColumnarBookRepository implements BookRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarBookRepository.class);
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int EMPTY_SLOT = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ByteArena arena = new ByteArena();
+
+    private final List<String> authors = new ArrayList<>();
+    private final List<byte[]> authorKeys = new ArrayList<>();
+    private final Map<String, Integer> authorIds = new HashMap<>();
+
+    private int size;
+    private int[] authorColumn = new int[16];
+    private byte[] genreColumn = new byte[16];
+    private int[] pageCountColumn = new int[16];
+    private double[] ratingColumn = new double[16];
+    private long[] isbnColumn = new long[16];
+    private long[] isbnKeyColumn = new long[16];
+    private long[] titleColumn = new long[16];
+    private long[] titleKeyColumn = new long[16];
+    private long[] descriptionColumn = new long[16];
+
+    /**
+     * Open-addressing table of row ids keyed by normalized ISBN-13. Identifiers that are not
+     * ISBNs are hashed as strings and compared in the arena.
+     */
+    private int[] isbnTable = newTable(32);
+
+    /**
+     * Constructor that initializes the repository with books loaded from the catalog files.
+     */
+    public ColumnarBookRepository(BookRecommendationProperties properties) {
+        logger.info("Loading books from {} into columnar storage", properties.getCatalogLocation());
+        BookUtil.loadBooks(properties.getCatalogLocation(), this::put);
+        logger.info("Loaded {} books, {} distinct authors, {} arena bytes",
+                size, authors.size(), arena.capacity());
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        if (isbn == null) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            int row = rowOf(isbn, IsbnUtil.toIsbn13(isbn));
+            return row >= 0 ? Optional.of(book(row)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> findByTitle(String title) {
+        if (title == null || title.isBlank()) {
+            return List.of();
+        }
+
+        return findByQuery(BookQuery.forTitle(title));
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        if (author == null || author.isBlank()) {
+            return List.of();
+        }
+
+        return findByQuery(BookQuery.forAuthor(author));
+    }
+
+    @Override
+    public List<Book> findByGenre(BookGenre genre) {
+        if (genre == null) {
+            return List.of();
+        }
+
+        return findByQuery(BookQuery.forGenre(genre));
+    }
+
+    @Override
+    public List<Book> findByQuery(BookQuery query) {
+        if (query == null) {
+            return List.of();
+        }
+
+        List<Book> result = new ArrayList<>();
+        forEachMatch(query, result::add);
+        return result;
+    }
+
+    @Override
+    public List<Book> findTopByQuery(BookQuery query, BookScorer scorer, int k) {
+        if (query == null || scorer == null || k <= 0) {
+            return List.of();
+        }
+
+        TopK top = new TopK(k, scorer);
+        forEachMatch(query, top::offer);
+        return top.result();
+    }
+
+    @Override
+    public BookPage findPage(BookQuery query, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int fromRow = BookCursor.decode(cursor);
+        if (query == null) {
+            return BookPage.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            Matches matches = new Matches(query, fromRow);
+            List<Book> books = new ArrayList<>(Math.min(pageSize, 256));
+            while (books.size() < pageSize && matches.hasNext()) {
+                books.add(matches.next());
+            }
+            return new BookPage(books, matches.hasNext() ? BookCursor.encode(matches.resumeRow()) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream holds no lock between books; each book is read as it is when the stream
+     * reaches it, and books appended meanwhile are included.
+     */
+    @Override
+    public Stream<Book> stream(BookQuery query) {
+        if (query == null) {
+            return Stream.empty();
+        }
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Matches(query, 0),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Book> result = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                result.add(book(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Book save(Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book cannot be null");
+        }
+
+        put(book);
+        return book;
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null");
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                if (book == null) {
+                    throw new IllegalArgumentException("Book cannot be null");
+                }
+                put(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap held by the columns, dictionary and arena, excluding object headers.
+     */
+    public long estimatedHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long columns = (long) authorColumn.length * Integer.BYTES
+                    + genreColumn.length
+                    + (long) pageCountColumn.length * Integer.BYTES
+                    + (long) ratingColumn.length * Double.BYTES
+                    + (long) (isbnColumn.length + isbnKeyColumn.length + titleColumn.length + titleKeyColumn.length
+                    + descriptionColumn.length) * Long.BYTES
+                    + (long) isbnTable.length * Integer.BYTES;
+            long dictionary = 0;
+            for (int i = 0; i < authors.size(); i++) {
+                dictionary += 2L * authorKeys.get(i).length;
+            }
+            return columns + dictionary + arena.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            long isbnKey = IsbnUtil.toIsbn13(book.isbn());
+            int row = rowOf(book.isbn(), isbnKey);
+            if (row < 0) {
+                row = size;
+                ensureCapacity(size + 1);
+                size++;
+                isbnKeyColumn[row] = isbnKey;
+                insertIsbn(row, hash(book.isbn(), isbnKey));
+            }
+            // replaced rows leave their old strings behind in the arena; the ISBN is rewritten
+            // too, as a book may be replaced under another form of the same ISBN
+            isbnColumn[row] = arena.append(book.isbn());
+            authorColumn[row] = authorId(book.author());
+            genreColumn[row] = (byte) book.genre().ordinal();
+            pageCountColumn[row] = book.pageCount();
+            ratingColumn[row] = book.averageRating();
+            titleColumn[row] = arena.append(book.title());
+            titleKeyColumn[row] = arena.append(book.title().toLowerCase());
+            descriptionColumn[row] = arena.append(book.description() != null ? book.description() : "");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Book book(int row) {
+        return new Book(
+                arena.read(titleColumn[row]),
+                authors.get(authorColumn[row]),
+                GENRES[genreColumn[row]],
+                arena.read(isbnColumn[row]),
+                pageCountColumn[row],
+                arena.read(descriptionColumn[row]),
+                ratingColumn[row]
+        );
+    }
+
+    private void forEachMatch(BookQuery query, Consumer<Book> action) {
+        lock.readLock().lock();
+        try {
+            new Matches(query, 0).forEachRemaining(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the rows matching a query in row order, starting at a given row. The read lock
+     * is taken while looking for the next match, so the iterator can be consumed lazily.
+     */
+    private final class Matches implements Iterator<Book> {
+
+        private final int genre;
+        private final double minRating;
+        private final int minPages;
+        private final int maxPages;
+        private final byte[] titleNeedle;
+        private final byte[] authorNeedle;
+        private final BitSet matchingAuthors = new BitSet();
+        private int checkedAuthors;
+        private int nextRow;
+        private Book next;
+        private int lastRow;
+
+        Matches(BookQuery query, int fromRow) {
+            this.genre = query.genre() != null ? query.genre().ordinal() : -1;
+            this.minRating = query.minRating() != null ? query.minRating() : Double.NEGATIVE_INFINITY;
+            this.minPages = query.minPageCount() != null ? query.minPageCount() : Integer.MIN_VALUE;
+            this.maxPages = query.maxPageCount() != null ? query.maxPageCount() : Integer.MAX_VALUE;
+            this.titleNeedle = query.hasTitle() ? query.title().toLowerCase().getBytes(StandardCharsets.UTF_8) : null;
+            this.authorNeedle = query.hasAuthor() ? query.author().toLowerCase().getBytes(StandardCharsets.UTF_8) : null;
+            this.nextRow = fromRow;
+            this.lastRow = fromRow - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+
+            lock.readLock().lock();
+            try {
+                while (nextRow < size) {
+                    int row = nextRow++;
+                    if ((genre < 0 || genreColumn[row] == genre)
+                            && ratingColumn[row] >= minRating
+                            && pageCountColumn[row] >= minPages
+                            && pageCountColumn[row] <= maxPages
+                            && (authorNeedle == null || authorMatches(authorColumn[row]))
+                            && (titleNeedle == null || arena.contains(titleKeyColumn[row], titleNeedle))) {
+                        next = book(row);
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Book book = next;
+            next = null;
+            lastRow = nextRow - 1;
+            return book;
+        }
+
+        int resumeRow() {
+            return lastRow + 1;
+        }
+
+        /**
+         * Checks the author dictionary once per author, including authors added since the scan started.
+         */
+        private boolean authorMatches(int authorId) {
+            for (; checkedAuthors < authorKeys.size(); checkedAuthors++) {
+                if (indexOf(authorKeys.get(checkedAuthors), authorNeedle) >= 0) {
+                    matchingAuthors.set(checkedAuthors);
+                }
+            }
+            return matchingAuthors.get(authorId);
+        }
+    }
+
+    private int authorId(String author) {
+        Integer id = authorIds.get(author);
+        if (id == null) {
+            id = authors.size();
+            authors.add(author);
+            authorKeys.add(author.toLowerCase().getBytes(StandardCharsets.UTF_8));
+            authorIds.put(author, id);
+        }
+        return id;
+    }
+
+    private int rowOf(String isbn, long isbnKey) {
+        byte[] bytes = isbnKey == IsbnUtil.NOT_AN_ISBN ? isbn.getBytes(StandardCharsets.UTF_8) : null;
+        int mask = isbnTable.length - 1;
+        for (int slot = hash(isbn, isbnKey) & mask; ; slot = (slot + 1) & mask) {
+            int row = isbnTable[slot];
+            if (row == EMPTY_SLOT) {
+                return -1;
+            }
+            if (bytes == null ? isbnKeyColumn[row] == isbnKey : arena.equals(isbnColumn[row], bytes)) {
+                return row;
+            }
+        }
+    }
+
+    private void insertIsbn(int row, int hash) {
+        if (size * 2 > isbnTable.length) {
+            int[] table = newTable(isbnTable.length * 2);
+            for (int existing = 0; existing < row; existing++) {
+                long key = isbnKeyColumn[existing];
+                String isbn = key == IsbnUtil.NOT_AN_ISBN ? arena.read(isbnColumn[existing]) : null;
+                insert(table, existing, hash(isbn, key));
+            }
+            isbnTable = table;
+        }
+        insert(isbnTable, row, hash);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= genreColumn.length) {
+            return;
+        }
+        int capacity = Math.max(required, genreColumn.length * 2);
+        authorColumn = Arrays.copyOf(authorColumn, capacity);
+        genreColumn = Arrays.copyOf(genreColumn, capacity);
+        pageCountColumn = Arrays.copyOf(pageCountColumn, capacity);
+        ratingColumn = Arrays.copyOf(ratingColumn, capacity);
+        isbnColumn = Arrays.copyOf(isbnColumn, capacity);
+        isbnKeyColumn = Arrays.copyOf(isbnKeyColumn, capacity);
+        titleColumn = Arrays.copyOf(titleColumn, capacity);
+        titleKeyColumn = Arrays.copyOf(titleKeyColumn, capacity);
+        descriptionColumn = Arrays.copyOf(descriptionColumn, capacity);
+    }
+
+    private static void insert(int[] table, int row, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row;
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY_SLOT);
+        return table;
+    }
+
+    private static int hash(String isbn, long isbnKey) {
+        if (isbnKey == IsbnUtil.NOT_AN_ISBN) {
+            int h = isbn.hashCode();
+            return h ^ (h >>> 16);
+        }
+        long h = isbnKey * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
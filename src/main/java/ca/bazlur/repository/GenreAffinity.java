@@ -0,0 +1,59 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.BookGenre;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How close each genre is to a reader's favorite genre: 1 for the genre itself,
+ * 0.5 for closely related genres and 0 otherwise.
+ */
+public final class GenreAffinity {
+
+    private static final double RELATED = 0.5;
+    private static final Map<BookGenre, Map<BookGenre, Double>> AFFINITIES = new EnumMap<>(BookGenre.class);
+
+    static {
+        for (BookGenre genre : BookGenre.values()) {
+            Map<BookGenre, Double> affinities = new EnumMap<>(BookGenre.class);
+            affinities.put(genre, 1.0);
+            AFFINITIES.put(genre, affinities);
+        }
+        relate(BookGenre.FICTION, BookGenre.HISTORICAL_FICTION, BookGenre.DRAMA, BookGenre.ROMANCE, BookGenre.MYSTERY);
+        relate(BookGenre.MYSTERY, BookGenre.THRILLER);
+        relate(BookGenre.SCIENCE_FICTION, BookGenre.FANTASY, BookGenre.THRILLER);
+        relate(BookGenre.FANTASY, BookGenre.YOUNG_ADULT);
+        relate(BookGenre.YOUNG_ADULT, BookGenre.CHILDREN, BookGenre.ROMANCE);
+        relate(BookGenre.HISTORY, BookGenre.HISTORICAL_FICTION, BookGenre.BIOGRAPHY);
+        relate(BookGenre.NON_FICTION, BookGenre.HISTORY, BookGenre.BIOGRAPHY, BookGenre.SELF_HELP,
+                BookGenre.BUSINESS, BookGenre.HEALTH, BookGenre.TRAVEL, BookGenre.PHILOSOPHY);
+        relate(BookGenre.SELF_HELP, BookGenre.HEALTH, BookGenre.BUSINESS, BookGenre.PHILOSOPHY);
+        relate(BookGenre.COOKING, BookGenre.HEALTH, BookGenre.TRAVEL);
+        relate(BookGenre.POETRY, BookGenre.ART, BookGenre.DRAMA);
+    }
+
+    private GenreAffinity() {
+    }
+
+    public static double between(BookGenre favorite, BookGenre genre) {
+        if (favorite == null || genre == null) {
+            return 0.0;
+        }
+        return AFFINITIES.get(favorite).getOrDefault(genre, 0.0);
+    }
+
+    /**
+     * @return every genre with a non-zero affinity to the favorite genre
+     */
+    public static Map<BookGenre, Double> of(BookGenre favorite) {
+        return favorite != null ? Map.copyOf(AFFINITIES.get(favorite)) : Map.of();
+    }
+
+    private static void relate(BookGenre genre, BookGenre... related) {
+        for (BookGenre other : related) {
+            AFFINITIES.get(genre).put(other, RELATED);
+            AFFINITIES.get(other).put(genre, RELATED);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package ca.bazlur.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph over normalized sparse vectors, answering approximate
+ * nearest-neighbor queries by cosine distance. Nodes are numbered in insertion order.
+ * Not thread-safe; callers guard writes against concurrent searches.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Malkov and Yashunin, HNSW</a>
+ */
+final class HnswIndex {
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    private final int maxLinks;
+    private final int maxBaseLinks;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private final List<SparseVector> vectors = new ArrayList<>();
+    private final List<int[][]> links = new ArrayList<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    /**
+     * @throws IllegalArgumentException if {@code maxLinks} is below 2, which leaves no level
+     *                                  spacing ({@code 1 / ln(maxLinks)}) to build layers with
+     */
+    HnswIndex(int maxLinks, int efConstruction) {
+        if (maxLinks < 2) {
+            throw new IllegalArgumentException("Max links must be at least 2, got " + maxLinks);
+        }
+        this.maxLinks = maxLinks;
+        this.maxBaseLinks = maxLinks * 2;
+        this.efConstruction = Math.max(efConstruction, maxLinks);
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+    }
+
+    int size() {
+        return vectors.size();
+    }
+
+    SparseVector vector(int node) {
+        return vectors.get(node);
+    }
+
+    /**
+     * @return the node number of the added vector
+     */
+    int add(SparseVector vector) {
+        int node = vectors.size();
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[0];
+        }
+        vectors.add(vector);
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = closest(vector, current, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+            int[] selected = selectNeighbors(candidates, maxLinks);
+            nodeLinks[l] = selected;
+            for (int neighbor : selected) {
+                connect(neighbor, node, l);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * @return up to {@code k} nodes nearest to the query, nearest first
+     */
+    List<Candidate> search(SparseVector query, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = topLevel; l > 0; l--) {
+            current = closest(query, current, l);
+        }
+        List<Candidate> nearest = searchLayer(query, current, Math.max(ef, k), 0);
+        return nearest.subList(0, Math.min(k, nearest.size()));
+    }
+
+    /**
+     * Greedily walks one layer towards the query, returning the closest node found.
+     */
+    private int closest(SparseVector query, int start, int level) {
+        int current = start;
+        double currentDistance = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : links.get(current)[level]) {
+                double d = distance(query, neighbor);
+                if (d < currentDistance) {
+                    current = neighbor;
+                    currentDistance = d;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer keeping the {@code ef} nearest nodes seen, returned nearest first.
+     */
+    private List<Candidate> searchLayer(SparseVector query, int start, int ef, int level) {
+        BitSet visited = new BitSet(vectors.size());
+        visited.set(start);
+        Candidate first = new Candidate(start, distance(query, start));
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        frontier.add(first);
+        nearest.add(first);
+
+        while (!frontier.isEmpty()) {
+            Candidate candidate = frontier.poll();
+            if (candidate.distance() > nearest.peek().distance()) {
+                break;
+            }
+            int[][] candidateLinks = links.get(candidate.node());
+            if (level >= candidateLinks.length) {
+                continue;
+            }
+            for (int neighbor : candidateLinks[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double d = distance(query, neighbor);
+                if (nearest.size() < ef || d < nearest.peek().distance()) {
+                    Candidate next = new Candidate(neighbor, d);
+                    frontier.add(next);
+                    nearest.add(next);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(nearest);
+        result.sort(NEAREST_FIRST);
+        return result;
+    }
+
+    /**
+     * Links {@code node} into the neighbor list of {@code neighbor}, keeping only the closest
+     * links once the list is full.
+     */
+    private void connect(int neighbor, int node, int level) {
+        int[][] neighborLinks = links.get(neighbor);
+        int[] current = neighborLinks[level];
+        int limit = level == 0 ? maxBaseLinks : maxLinks;
+        if (current.length < limit) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = node;
+            neighborLinks[level] = grown;
+            return;
+        }
+
+        SparseVector origin = vectors.get(neighbor);
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int linked : current) {
+            candidates.add(new Candidate(linked, distance(origin, linked)));
+        }
+        candidates.add(new Candidate(node, distance(origin, node)));
+        candidates.sort(NEAREST_FIRST);
+        neighborLinks[level] = selectNeighbors(candidates, limit);
+    }
+
+    /**
+     * Picks up to {@code limit} links from candidates sorted nearest first, skipping a candidate
+     * that is closer to an already picked link than to the origin, so links reach out in
+     * different directions instead of into one cluster. Skipped candidates fill any room left.
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.size())];
+        int count = 0;
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (count == selected.length) {
+                break;
+            }
+            SparseVector vector = vectors.get(candidate.node());
+            boolean diverse = true;
+            for (int i = 0; i < count && diverse; i++) {
+                diverse = distance(vector, selected[i]) >= candidate.distance();
+            }
+            if (diverse) {
+                selected[count++] = candidate.node();
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; count < selected.length; i++) {
+            selected[count++] = skipped.get(i).node();
+        }
+        return selected;
+    }
+
+    private double distance(SparseVector query, int node) {
+        return 1 - query.dot(vectors.get(node));
+    }
+
+    record Candidate(int node, double distance) {
+    }
+}
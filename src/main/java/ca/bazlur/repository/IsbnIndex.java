@@ -0,0 +1,121 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.util.IsbnUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ISBN to book id index shared by every {@link BookCatalog} of a repository.
+ * ISBNs are normalized with {@link IsbnUtil#toIsbn13(String)} and kept in an
+ * open-addressing table of primitive {@code long} keys and {@code int} ids; identifiers
+ * that are not ISBNs fall back to a string-keyed map.
+ * <p>
+ * There is a single writer and any number of lock-free readers. Entries are never
+ * removed, only re-pointed, so a reader may see an id that is newer than its catalog or
+ * that belongs to an unpublished write; callers verify every hit against their own books.
+ */
+final class IsbnIndex {
+
+    private static final int EMPTY_ID = -1;
+    private static final double MAX_LOAD = 0.5;
+
+    private final Map<String, Integer> otherIds = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(64);
+    private int size;
+
+    /**
+     * @return the id stored for the ISBN, or -1 if there is none
+     */
+    int get(String isbn) {
+        long key = IsbnUtil.toIsbn13(isbn);
+        if (key <= 0) {
+            return otherIds.getOrDefault(isbn, EMPTY_ID);
+        }
+        return table.get(key);
+    }
+
+    void put(String isbn, int id) {
+        long key = IsbnUtil.toIsbn13(isbn);
+        // zero marks empty slots, so the all-zero ISBN takes the string path as well
+        if (key <= 0) {
+            otherIds.put(isbn, id);
+            return;
+        }
+        if (table.put(key, id)) {
+            size++;
+            if (size > table.capacity() * MAX_LOAD) {
+                table = table.resize(table.capacity() * 2);
+            }
+        }
+    }
+
+    private static final class Table {
+
+        private final AtomicLongArray keys;
+        private final AtomicIntegerArray ids;
+        private final int mask;
+
+        Table(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.ids = new AtomicIntegerArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                ids.set(i, EMPTY_ID);
+            }
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int get(long key) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                // keys are written after ids, so a visible key implies a visible id
+                long stored = keys.get(slot);
+                if (stored == key) {
+                    return ids.get(slot);
+                }
+                if (stored == 0) {
+                    return EMPTY_ID;
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if the key was not present before
+         */
+        boolean put(long key, int id) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                long stored = keys.get(slot);
+                if (stored == key) {
+                    ids.set(slot, id);
+                    return false;
+                }
+                if (stored == 0) {
+                    ids.set(slot, id);
+                    keys.set(slot, key);
+                    return true;
+                }
+            }
+        }
+
+        Table resize(int capacity) {
+            Table resized = new Table(capacity);
+            for (int slot = 0; slot <= mask; slot++) {
+                long key = keys.get(slot);
+                if (key != 0) {
+                    resized.put(key, ids.get(slot));
+                }
+            }
+            return resized;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.ReadingMood;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Word stems that signal a {@link ReadingMood} in a book description. A word matches a stem when it starts with it, so "adventurer" and
+ * "adventures" both match "adventur".
+ */
+public final class MoodKeywords {
+
+    /**
+     * Distinct stems a description needs to match a mood fully.
+     */
+    private static final double FULL_MATCH_HITS = 2.0;
+
+    private static final Map<ReadingMood, String[]> STEMS = new EnumMap<>(Map.of(
+            ReadingMood.ESCAPIST, new String[]{"escap", "magic", "realm", "kingdom", "wonder", "dream", "fantas", "otherworld"},
+            ReadingMood.EDUCATIONAL, new String[]{"learn", "educat", "science", "scientif", "explain", "guide", "understand", "knowledge", "research", "fact"},
+            ReadingMood.INSPIRATIONAL, new String[]{"inspir", "hope", "courage", "overcom", "triumph", "resilien", "uplift", "motivat"},
+            ReadingMood.RELAXING, new String[]{"relax", "cozy", "cosy", "gentle", "charm", "heartwarm", "calm", "quiet", "peace", "comfort"},
+            ReadingMood.CHALLENGING, new String[]{"challeng", "complex", "dense", "demanding", "ambitious", "experimental", "intricate", "rigorous"},
+            ReadingMood.ENTERTAINING, new String[]{"entertain", "humor", "humour", "witty", "comic", "funn", "hilarious", "delight", "page-turn"},
+            ReadingMood.THOUGHT_PROVOKING, new String[]{"thought", "question", "moral", "society", "identity", "provocat", "reflect", "ethic", "meaning", "curious"},
+            ReadingMood.EMOTIONAL, new String[]{"emotion", "love", "loss", "grief", "heart", "family", "tear", "moving", "tender", "friendship"},
+            ReadingMood.ADVENTUROUS, new String[]{"adventur", "quest", "expedition", "danger", "explor", "voyage", "battle", "surviv", "thrill"}
+    ));
+
+    private MoodKeywords() {
+    }
+
+    /**
+     * Scores how strongly the text signals the mood, from 0 for no matching stem to 1 for
+     * {@value #FULL_MATCH_HITS} or more distinct stems.
+     */
+    public static double match(ReadingMood mood, String text) {
+        if (mood == null || text == null || text.isEmpty()) {
+            return 0.0;
+        }
+
+        String[] stems = STEMS.get(mood);
+        boolean[] found = new boolean[stems.length];
+        int hits = 0;
+        for (String word : words(text)) {
+            for (int i = 0; i < stems.length; i++) {
+                if (!found[i] && word.startsWith(stems[i])) {
+                    found[i] = true;
+                    if (++hits >= FULL_MATCH_HITS) {
+                        return 1.0;
+                    }
+                }
+            }
+        }
+        return hits / FULL_MATCH_HITS;
+    }
+
+    private static String[] words(String text) {
+        return text.toLowerCase(Locale.ROOT).split("[^\\p{L}-]+");
+    }
+}
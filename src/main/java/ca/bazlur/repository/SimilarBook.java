@@ -0,0 +1,12 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+
+import java.util.List;
+
+/**
+ * A catalog book found near a seed book, with its cosine similarity to the seed and the
+ * rarest words both books share.
+ */
+public record SimilarBook(Book book, double similarity, List<String> sharedTerms) {
+}
@@ -0,0 +1,162 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest-neighbor index over the catalog, so books similar to a catalog title are
+ * found locally in milliseconds. Each book is vectorized with hashed TF-IDF over its title,
+ * description and genre by {@link BookVectorizer}, and the vectors are linked into an
+ * {@link HnswIndex}.
+ * <p>
+ * The index is built once from the repository on a background thread and reports
+ * {@link #isReady()} when done; until then callers fall back to other sources. Books saved
+ * later can still be used as seeds but are not returned as neighbors, and neighbors are
+ * re-read from the repository so replaced books are returned as currently stored.
+ */
+@Component
+public class SimilarBookIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarBookIndex.class);
+    private static final int SHARED_TERMS = 3;
+    /** Neighbors below this cosine similarity share little beyond common words and are left out. */
+    private static final double MIN_SIMILARITY = 0.05;
+    /** Extra neighbors fetched to make up for the seed and its other editions being dropped. */
+    private static final int EXTRA_CANDIDATES = 4;
+
+    private final BookRepository bookRepository;
+    private final BookRecommendationProperties.Similarity settings;
+    private final BookVectorizer vectorizer = new BookVectorizer();
+    private final HnswIndex index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> isbns = new ArrayList<>();
+    private final Map<String, Integer> nodesByIsbn = new HashMap<>();
+    private volatile boolean ready;
+
+    public SimilarBookIndex(BookRepository bookRepository, BookRecommendationProperties properties) {
+        this.bookRepository = bookRepository;
+        this.settings = properties.getSimilarity();
+        this.index = new HnswIndex(settings.getMaxLinks(), settings.getEfConstruction());
+        if (settings.isEnabled()) {
+            Thread.ofPlatform().daemon().name("similar-book-index").start(this::build);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Finds up to {@code k} catalog books closest to the seed, most similar first. The seed
+     * itself, other editions of it (same title and author) and barely similar books are left out.
+     *
+     * @return the neighbors, or an empty list while the index is not ready
+     */
+    public List<SimilarBook> findSimilar(Book seed, int k) {
+        if (!ready || k <= 0) {
+            return List.of();
+        }
+
+        List<HnswIndex.Candidate> candidates;
+        lock.readLock().lock();
+        try {
+            Integer node = nodesByIsbn.get(seed.isbn());
+            SparseVector query = node != null ? index.vector(node) : vectorizer.vectorize(seed);
+            candidates = index.search(query, k + EXTRA_CANDIDATES, settings.getEfSearch());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resolve(candidates, k, book -> !isEditionOf(book, seed),
+                book -> vectorizer.sharedTerms(seed, book, SHARED_TERMS));
+    }
+
+    /**
+     * Finds up to {@code k} catalog books closest to free text such as a reading-list theme,
+     * most similar first.
+     *
+     * @param genre genre the text is about, or {@code null}
+     * @return the matches, or an empty list while the index is not ready
+     */
+    public List<SimilarBook> findRelated(String text, BookGenre genre, int k) {
+        if (!ready || k <= 0) {
+            return List.of();
+        }
+
+        List<HnswIndex.Candidate> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = index.search(vectorizer.vectorize(text, genre), k, Math.max(settings.getEfSearch(), k));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resolve(candidates, k, book -> true, book -> vectorizer.sharedTerms(text, book, SHARED_TERMS));
+    }
+
+    /**
+     * Reads the candidates back from the repository, keeping up to {@code k} accepted books.
+     */
+    private List<SimilarBook> resolve(List<HnswIndex.Candidate> candidates, int k, Predicate<Book> accept,
+                                      Function<Book, List<String>> sharedTerms) {
+        List<SimilarBook> similar = new ArrayList<>(k);
+        for (HnswIndex.Candidate candidate : candidates) {
+            if (similar.size() == k || 1 - candidate.distance() < MIN_SIMILARITY) {
+                break;
+            }
+            Optional<Book> book = bookRepository.findByIsbn(isbns.get(candidate.node()));
+            if (book.isEmpty() || !accept.test(book.get())) {
+                continue;
+            }
+            similar.add(new SimilarBook(book.get(), 1 - candidate.distance(), sharedTerms.apply(book.get())));
+        }
+        return similar;
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        try (var books = bookRepository.stream(BookQuery.all())) {
+            books.forEach(vectorizer::count);
+        } catch (RuntimeException e) {
+            logger.error("Failed to read the catalog for the similar book index; similar books will come from the LLM", e);
+            return;
+        }
+        try (var books = bookRepository.stream(BookQuery.all())) {
+            books.forEach(book -> {
+                SparseVector vector = vectorizer.vectorize(book);
+                lock.writeLock().lock();
+                try {
+                    if (!nodesByIsbn.containsKey(book.isbn())) {
+                        nodesByIsbn.put(book.isbn(), index.add(vector));
+                        isbns.add(book.isbn());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to build the similar book index; similar books will come from the LLM", e);
+            return;
+        }
+        ready = true;
+        logger.info("Indexed {} books for similarity search in {} ms",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static boolean isEditionOf(Book book, Book seed) {
+        return book.isbn().equals(seed.isbn())
+                || (book.title().equalsIgnoreCase(seed.title()) && book.author().equalsIgnoreCase(seed.author()));
+    }
+}
@@ -0,0 +1,68 @@
+package ca.bazlur.repository;
+
+import java.util.Arrays;
+
+/**
+ * Sparse vector with sorted, distinct indices, typically L2-normalized.
+ */
+record SparseVector(int[] indices, float[] values) {
+
+    static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+    /**
+     * Builds a normalized vector from unsorted entries, summing values at repeated indices.
+     */
+    static SparseVector normalized(int[] indices, float[] values, int size) {
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = (long) indices[i] << 32 | i;
+        }
+        Arrays.sort(packed);
+
+        int[] mergedIndices = new int[size];
+        float[] mergedValues = new float[size];
+        int count = 0;
+        for (long entry : packed) {
+            int index = (int) (entry >>> 32);
+            float value = values[(int) entry];
+            if (count > 0 && mergedIndices[count - 1] == index) {
+                mergedValues[count - 1] += value;
+            } else {
+                mergedIndices[count] = index;
+                mergedValues[count++] = value;
+            }
+        }
+
+        double norm = 0;
+        for (int i = 0; i < count; i++) {
+            norm += (double) mergedValues[i] * mergedValues[i];
+        }
+        if (norm == 0) {
+            return EMPTY;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < count; i++) {
+            mergedValues[i] *= scale;
+        }
+        return new SparseVector(Arrays.copyOf(mergedIndices, count), Arrays.copyOf(mergedValues, count));
+    }
+
+    double dot(SparseVector other) {
+        int[] otherIndices = other.indices;
+        double sum = 0;
+        int i = 0;
+        int j = 0;
+        while (i < indices.length && j < otherIndices.length) {
+            int a = indices[i];
+            int b = otherIndices[j];
+            if (a == b) {
+                sum += (double) values[i++] * other.values[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,59 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the K highest scoring books seen so far in a bounded min-heap, so ranking a
+ * result set costs O(n log K) time and O(K) memory. Among equal scores the books
+ * offered first are kept.
+ */
+final class TopK {
+
+    private record Scored(Book book, double score, long sequence) {
+    }
+
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Comparator.comparingLong(Scored::sequence).reversed());
+
+    private final int k;
+    private final BookScorer scorer;
+    private final PriorityQueue<Scored> heap;
+    private long sequence;
+
+    TopK(int k, BookScorer scorer) {
+        this.k = k;
+        this.scorer = scorer;
+        this.heap = new PriorityQueue<>(Math.max(1, k) + 1, WORST_FIRST);
+    }
+
+    void offer(Book book) {
+        if (k <= 0) {
+            return;
+        }
+        Scored scored = new Scored(book, scorer.score(book), sequence++);
+        if (heap.size() < k) {
+            heap.add(scored);
+        } else if (WORST_FIRST.compare(scored, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(scored);
+        }
+    }
+
+    /**
+     * @return the kept books, best first
+     */
+    List<Book> result() {
+        List<Scored> sorted = new ArrayList<>(heap);
+        sorted.sort(WORST_FIRST.reversed());
+        List<Book> books = new ArrayList<>(sorted.size());
+        for (Scored scored : sorted) {
+            books.add(scored.book());
+        }
+        return books;
+    }
+}
@@ -0,0 +1,229 @@
+package ca.bazlur.repository;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams to the ids of the books whose key contains them.
+ * Keys and needles are expected to be lowercased already. A substring lookup intersects
+ * the posting lists of every trigram of the needle; the result is a superset of the
+ * matches and must be verified against the keys.
+ * <p>
+ * The postings are spread over buckets, each a small map, and the bucket table doubles as
+ * the index grows so that a bucket holds about {@value #BUCKET_SIZE} trigrams. A {@link #copy()}
+ * duplicates only the bucket table; like the chunks of a {@link ChunkedList}, a bucket is
+ * cloned the first time the copy writes into it, and a posting list the first time it is
+ * modified. Adding a key to a copy therefore costs a few small maps rather than the whole index.
+ */
+final class TrigramIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private static final int BUCKET_SIZE = 32;
+    private static final int INITIAL_SHIFT = 6;
+
+    private Map<Long, RoaringBitmap>[] buckets;
+    private boolean[] ownedBuckets;
+    private int shift;
+    private int size;
+    private final Set<RoaringBitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    TrigramIndex() {
+        this.shift = INITIAL_SHIFT;
+        this.buckets = newTable(shift);
+        this.ownedBuckets = new boolean[buckets.length];
+    }
+
+    private TrigramIndex(TrigramIndex source) {
+        this.shift = source.shift;
+        this.size = source.size;
+        this.buckets = source.buckets.clone();
+        this.ownedBuckets = new boolean[buckets.length];
+    }
+
+    TrigramIndex copy() {
+        return new TrigramIndex(this);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (Map<Long, RoaringBitmap> bucket : buckets) {
+            if (bucket == null) {
+                continue;
+            }
+            for (Map.Entry<Long, RoaringBitmap> entry : bucket.entrySet()) {
+                out.writeLong(entry.getKey());
+                entry.getValue().serialize(out);
+            }
+        }
+    }
+
+    static TrigramIndex readFrom(DataInput in) throws IOException {
+        TrigramIndex index = new TrigramIndex();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            long gram = in.readLong();
+            RoaringBitmap posting = new RoaringBitmap();
+            posting.deserialize(in);
+            index.put(gram, posting);
+        }
+        return index;
+    }
+
+    /**
+     * Marks every bucket and posting list as shared; called before the index is published to readers.
+     */
+    void seal() {
+        owned.clear();
+        Arrays.fill(ownedBuckets, false);
+    }
+
+    /**
+     * @return how many buckets this index no longer shares with the index it was copied from
+     */
+    int unsharedBuckets() {
+        int count = 0;
+        for (boolean bucket : ownedBuckets) {
+            count += bucket ? 1 : 0;
+        }
+        return count;
+    }
+
+    void add(int id, String key) {
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            writablePosting(trigram(key, i)).add(id);
+        }
+    }
+
+    void remove(int id, String key) {
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            long gram = trigram(key, i);
+            if (posting(gram) != null) {
+                RoaringBitmap posting = writablePosting(gram);
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    writableBucket(gram).remove(gram);
+                    owned.remove(posting);
+                    size--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the ids whose key contains every trigram of the needle.
+     *
+     * @return candidate ids, or {@code null} if the needle is too short to be indexed
+     */
+    RoaringBitmap candidates(String needle) {
+        if (needle.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        List<RoaringBitmap> lists = new ArrayList<>(needle.length() - GRAM_LENGTH + 1);
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+            RoaringBitmap posting = posting(trigram(needle, i));
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            lists.add(posting);
+        }
+
+        lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    private RoaringBitmap posting(long gram) {
+        Map<Long, RoaringBitmap> bucket = buckets[bucketOf(gram, shift)];
+        return bucket != null ? bucket.get(gram) : null;
+    }
+
+    private RoaringBitmap writablePosting(long gram) {
+        RoaringBitmap posting = posting(gram);
+        if (posting == null) {
+            posting = new RoaringBitmap();
+        } else if (owned.contains(posting)) {
+            return posting;
+        } else {
+            posting = posting.clone();
+        }
+        put(gram, posting);
+        owned.add(posting);
+        return posting;
+    }
+
+    private void put(long gram, RoaringBitmap posting) {
+        if (writableBucket(gram).put(gram, posting) == null && ++size > buckets.length * BUCKET_SIZE) {
+            grow();
+        }
+    }
+
+    private Map<Long, RoaringBitmap> writableBucket(long gram) {
+        int bucket = bucketOf(gram, shift);
+        if (buckets[bucket] == null) {
+            buckets[bucket] = new HashMap<>();
+            ownedBuckets[bucket] = true;
+        } else if (!ownedBuckets[bucket]) {
+            buckets[bucket] = new HashMap<>(buckets[bucket]);
+            ownedBuckets[bucket] = true;
+        }
+        return buckets[bucket];
+    }
+
+    /**
+     * Doubles the bucket table, splitting every bucket in two. The new buckets are all owned;
+     * the posting lists stay shared.
+     */
+    private void grow() {
+        int grownShift = shift + 1;
+        Map<Long, RoaringBitmap>[] grown = newTable(grownShift);
+        for (Map<Long, RoaringBitmap> bucket : buckets) {
+            if (bucket == null) {
+                continue;
+            }
+            for (Map.Entry<Long, RoaringBitmap> entry : bucket.entrySet()) {
+                int target = bucketOf(entry.getKey(), grownShift);
+                if (grown[target] == null) {
+                    grown[target] = new HashMap<>();
+                }
+                grown[target].put(entry.getKey(), entry.getValue());
+            }
+        }
+        shift = grownShift;
+        buckets = grown;
+        ownedBuckets = new boolean[grown.length];
+        Arrays.fill(ownedBuckets, true);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Long, RoaringBitmap>[] newTable(int shift) {
+        return new Map[1 << shift];
+    }
+
+    private static int bucketOf(long gram, int shift) {
+        // Fibonacci hashing spreads the character bits of a trigram over all buckets.
+        return (int) ((gram * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - shift));
+    }
+
+    private static long trigram(String key, int offset) {
+        return ((long) key.charAt(offset) << 32)
+                | ((long) key.charAt(offset + 1) << 16)
+                | key.charAt(offset + 2);
+    }
+}
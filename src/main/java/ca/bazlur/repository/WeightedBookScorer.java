@@ -0,0 +1,88 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.ReadingMood;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.util.PreferenceNormalizer;
+
+/**
+ * Scores a book as the weighted sum of its rating, how well its length fits the reader's
+ * weekly reading time, whether it is by the author the reader asked for, how close its
+ * genre is to the reader's favorite genre and how well its description fits the reader's mood.
+ * Each component is normalized to the range 0..1.
+ */
+public record WeightedBookScorer(
+        double ratingWeight,
+        double pageFitWeight,
+        double authorWeight,
+        double genreWeight,
+        double moodWeight,
+        double pagesPerHour,
+        double hoursPerWeek,
+        double targetWeeks,
+        String preferredAuthor,
+        BookGenre favoriteGenre,
+        ReadingMood mood
+) implements BookScorer {
+
+    private static final double DEFAULT_HOURS_PER_WEEK = 5.0;
+
+    public WeightedBookScorer {
+        preferredAuthor = preferredAuthor != null && !preferredAuthor.isBlank()
+                ? preferredAuthor.toLowerCase() : null;
+    }
+
+    /**
+     * Creates a scorer for the reader's preferences using the configured weights.
+     */
+    public static WeightedBookScorer forPreferences(UserPreferences preferences,
+                                                    BookRecommendationProperties.Ranking ranking) {
+        return new WeightedBookScorer(
+                ranking.getRatingWeight(),
+                ranking.getPageFitWeight(),
+                ranking.getAuthorWeight(),
+                ranking.getGenreWeight(),
+                ranking.getMoodWeight(),
+                ranking.getPagesPerHour(),
+                hoursPerWeek(preferences.readingTimePerWeek()),
+                ranking.getTargetWeeksPerBook(),
+                preferences.authorInterest(),
+                PreferenceNormalizer.genre(preferences.favoriteGenre()),
+                PreferenceNormalizer.mood(preferences.currentMood())
+        );
+    }
+
+    @Override
+    public double score(Book book) {
+        double rating = Math.max(0.0, Math.min(5.0, book.averageRating())) / 5.0;
+        double weeks = readingHours(book) / hoursPerWeek;
+        double pageFit = Math.min(weeks, targetWeeks) / Math.max(weeks, targetWeeks);
+        double author = preferredAuthor != null && book.author().toLowerCase().contains(preferredAuthor) ? 1.0 : 0.0;
+        return ratingWeight * rating + pageFitWeight * pageFit + authorWeight * author
+                + genreWeight * GenreAffinity.between(favoriteGenre, book.genre())
+                + moodWeight * MoodKeywords.match(mood, book.description());
+    }
+
+    /**
+     * Scales the score to 0..1 by the weights of the components that apply to this reader,
+     * leaving out the author, genre and mood when the reader did not state them.
+     */
+    public double normalizedScore(Book book) {
+        double maxScore = ratingWeight + pageFitWeight
+                + (preferredAuthor != null ? authorWeight : 0.0)
+                + (favoriteGenre != null ? genreWeight : 0.0)
+                + (mood != null ? moodWeight : 0.0);
+        return maxScore > 0 ? Math.min(1.0, score(book) / maxScore) : 0.0;
+    }
+
+    public double readingHours(Book book) {
+        return book.pageCount() / pagesPerHour;
+    }
+
+    private static double hoursPerWeek(String readingTimePerWeek) {
+        double hours = PreferenceNormalizer.hoursPerWeek(readingTimePerWeek);
+        return Double.isNaN(hours) ? DEFAULT_HOURS_PER_WEEK : hours;
+    }
+}
@@ -0,0 +1,200 @@
+package ca.bazlur.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead whose concurrency limit adapts to the latency of the calls it admits, in the style
+ * of a gradient limiter. The average latency over about the last minute serves as the
+ * baseline; while recent latency stays within {@code tolerance} times the baseline the limit
+ * grows by about its square root per adjustment, and as latency rises above that the limit
+ * shrinks in proportion. A slowdown that lasts well beyond a minute becomes the new baseline,
+ * letting the limit recover. Failed calls release their permit without adjusting the limit.
+ * <p>
+ * Calls beyond the limit wait in a bounded queue for up to the maximum wait. When the queue
+ * is full, or the wait runs out, the call is rejected with a {@link RejectedException}
+ * instead of piling up.
+ */
+public final class AdaptiveLimiter {
+
+    private static final double SHORT_SMOOTHING = 0.5;
+    private static final double BASELINE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double shortLatency;
+    private double longLatency;
+    private long lastAdjusted;
+    private long admitted;
+    private long rejected;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, Duration maxWait,
+                           double tolerance, double smoothing) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < minimum <= maximum");
+        }
+        if (tolerance < 1.0 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Tolerance must be at least 1 and smoothing within (0, 1]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Runs the call once a permit is free, and adjusts the limit to its latency.
+     *
+     * @throws RejectedException if the wait queue is full or no permit frees up in time
+     */
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = call.get();
+            succeeded = true;
+            return result;
+        } finally {
+            release(succeeded ? System.nanoTime() - start : -1);
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats((int) limit, inFlight, queued, admitted, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < (int) limit) {
+                admit();
+                return;
+            }
+            if (queued >= maxQueued) {
+                rejected++;
+                throw new RejectedException("Concurrency limit of %d reached with %d calls waiting"
+                        .formatted((int) limit, queued));
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        throw new RejectedException("No permit within %d ms at a concurrency limit of %d"
+                                .formatted(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), (int) limit));
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                // A permit signalled to this call as it was interrupted goes to the next waiter.
+                if (inFlight < (int) limit) {
+                    permitReleased.signal();
+                }
+                Thread.currentThread().interrupt();
+                rejected++;
+                throw new RejectedException("Interrupted while waiting for a permit");
+            } finally {
+                queued--;
+            }
+            admit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admit() {
+        inFlight++;
+        admitted++;
+    }
+
+    /**
+     * @param latencyNanos the latency of a successful call, or a negative value for a failed one
+     */
+    private void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            int before = (int) limit;
+            if (latencyNanos >= 0) {
+                adjust(latencyNanos);
+            }
+            if ((int) limit > before) {
+                permitReleased.signalAll();
+            } else {
+                permitReleased.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long latencyNanos) {
+        long now = System.nanoTime();
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            lastAdjusted = now;
+            return;
+        }
+        shortLatency += SHORT_SMOOTHING * (latencyNanos - shortLatency);
+        longLatency += -Math.expm1(-(now - lastAdjusted) / BASELINE_WINDOW_NANOS) * (latencyNanos - longLatency);
+        lastAdjusted = now;
+        if (longLatency > 2 * shortLatency) {
+            // Latency has recovered well below the baseline, which still remembers the slowdown.
+            longLatency = 2 * shortLatency;
+        }
+        double gradient = Math.clamp(tolerance * longLatency / shortLatency, 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        if (gradient == 1.0 && inFlight + 1 < limit / 2) {
+            // Too few calls to tell whether a higher limit would hold up.
+            return;
+        }
+        limit = Math.clamp(limit * (1 - smoothing) + target * smoothing, minLimit, maxLimit);
+    }
+
+    /**
+     * Point-in-time state of the limiter.
+     *
+     * @param limit    calls currently allowed in flight
+     * @param inFlight calls in flight
+     * @param queued   calls waiting for a permit
+     * @param admitted calls admitted since startup
+     * @param rejected calls rejected since startup
+     */
+    public record Stats(int limit, int inFlight, int queued, long admitted, long rejected) {
+    }
+
+    /**
+     * Thrown when a call is shed instead of waiting for a permit.
+     */
+    public static class RejectedException extends RuntimeException {
+
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+}
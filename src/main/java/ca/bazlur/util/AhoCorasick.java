@@ -0,0 +1,137 @@
+package ca.bazlur.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed set of phrases in one pass
+ * over the text, however many phrases there are. Phrases only match whole words.
+ * Matching is exact, so phrases and text should be normalized the same way beforehand,
+ * e.g. with {@link TextUtil#normalizeForKey(String)}.
+ *
+ * @param <V> the value associated with each phrase
+ */
+public final class AhoCorasick<V> {
+
+    private final Node<V> root;
+
+    private AhoCorasick(Node<V> root) {
+        this.root = root;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Finds the phrases in the text, preferring the leftmost and then the longest phrase
+     * where matches overlap, so "science fiction" wins over "fiction".
+     *
+     * @return non-overlapping matches in text order
+     */
+    public List<Match<V>> findAll(String text) {
+        List<Match<V>> candidates = new ArrayList<>();
+        Node<V> node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.failure;
+            }
+            node = node.children.getOrDefault(c, root);
+            for (Node<V> output = node; output != root; output = output.failure) {
+                if (output.value != null) {
+                    int start = i + 1 - output.depth;
+                    if (isBoundary(text, start - 1) && isBoundary(text, i + 1)) {
+                        candidates.add(new Match<>(start, i + 1, output.value));
+                    }
+                }
+            }
+        }
+
+        candidates.sort(Comparator.comparingInt((Match<V> match) -> match.start())
+                .thenComparing(Comparator.comparingInt((Match<V> match) -> match.end()).reversed()));
+        List<Match<V>> matches = new ArrayList<>();
+        int end = 0;
+        for (Match<V> match : candidates) {
+            if (match.start() >= end) {
+                matches.add(match);
+                end = match.end();
+            }
+        }
+        return matches;
+    }
+
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    /**
+     * A phrase found in the text, spanning {@code [start, end)}.
+     */
+    public record Match<V>(int start, int end, V value) {
+    }
+
+    public static final class Builder<V> {
+
+        private final Node<V> root = new Node<>(0);
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a phrase; adding the same phrase again replaces its value.
+         */
+        public Builder<V> add(String phrase, V value) {
+            if (phrase == null || phrase.isEmpty() || value == null) {
+                throw new IllegalArgumentException("Phrase and value are required");
+            }
+            Node<V> node = root;
+            for (int i = 0; i < phrase.length(); i++) {
+                int depth = i + 1;
+                node = node.children.computeIfAbsent(phrase.charAt(i), c -> new Node<>(depth));
+            }
+            node.value = value;
+            return this;
+        }
+
+        public AhoCorasick<V> build() {
+            root.failure = root;
+            Queue<Node<V>> queue = new ArrayDeque<>();
+            for (Node<V> child : root.children.values()) {
+                child.failure = root;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node<V> node = queue.remove();
+                for (Map.Entry<Character, Node<V>> edge : node.children.entrySet()) {
+                    Node<V> child = edge.getValue();
+                    Node<V> failure = node.failure;
+                    while (failure != root && !failure.children.containsKey(edge.getKey())) {
+                        failure = failure.failure;
+                    }
+                    Node<V> target = failure.children.get(edge.getKey());
+                    child.failure = target != null && target != child ? target : root;
+                    queue.add(child);
+                }
+            }
+            return new AhoCorasick<>(root);
+        }
+    }
+
+    private static final class Node<V> {
+
+        private final Map<Character, Node<V>> children = new HashMap<>();
+        private final int depth;
+        private Node<V> failure;
+        private V value;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
@@ -2,23 +2,34 @@ package ca.bazlur.util;
 
 import ca.bazlur.model.Book;
 import ca.bazlur.model.BookGenre;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Utility class for loading and managing book data.
+ * Catalog files are read with a streaming parser and each book is handed to the caller
+ * as soon as it has been parsed, so a catalog is never held in memory as a whole.
  */
 public class BookUtil {
     private static final Logger logger = LoggerFactory.getLogger(BookUtil.class);
-    private static final String BOOKS_JSON_FILE = "books.json";
+    public static final String DEFAULT_CATALOG_LOCATION = "classpath:books.json";
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int PROGRESS_INTERVAL = 100_000;
     
     /**
      * Loads books from the JSON file.
@@ -26,15 +37,146 @@ public class BookUtil {
      * @return A list of Book objects
      */
     public static List<Book> loadBooks() {
-        try {
-            ClassPathResource resource = new ClassPathResource(BOOKS_JSON_FILE);
-            try (InputStream inputStream = resource.getInputStream()) {
-                return objectMapper.readValue(inputStream, new TypeReference<>() {});
+        List<Book> books = new ArrayList<>();
+        loadBooks(books::add);
+        return books;
+    }
+
+    /**
+     * Streams the books of the bundled JSON file into the given sink.
+     *
+     * @param sink receives each book as it is parsed
+     * @return The number of books loaded
+     */
+    public static int loadBooks(Consumer<Book> sink) {
+        return loadBooks(DEFAULT_CATALOG_LOCATION, sink);
+    }
+
+    /**
+     * Streams the books of every catalog shard matching the location pattern into the sink.
+     * Shards are parsed in parallel, one per core at most. A shard is either a JSON array of
+     * books or JSON Lines with one book per line. Falls back to the built-in books when no
+     * shard exists or none holds any book.
+     * <p>
+     * A shard that cannot be read to the end fails the whole load: the sink has already
+     * received its first books, and the caller must discard everything it received.
+     *
+     * @param locationPattern Spring resource pattern, e.g. {@code file:/data/books-*.json}
+     * @param sink receives each book as it is parsed; called concurrently from several threads
+     * @return The number of books loaded
+     * @throws IllegalStateException if a shard cannot be read or parsed
+     */
+    public static int loadBooks(String locationPattern, Consumer<Book> sink) {
+        Resource[] shards = resolveShards(locationPattern);
+        int loaded = 0;
+        if (shards.length == 1) {
+            loaded = loadShard(shards[0], sink);
+        } else if (shards.length > 1) {
+            int threads = Math.min(shards.length, Runtime.getRuntime().availableProcessors());
+            logger.info("Loading {} catalog shards on {} threads", shards.length, threads);
+            try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                List<Future<Integer>> results = new ArrayList<>(shards.length);
+                for (Resource shard : shards) {
+                    results.add(executor.submit(() -> loadShard(shard, sink)));
+                }
+                for (Future<Integer> result : results) {
+                    loaded += result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading catalog shards", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error loading catalog shards", e.getCause());
+            }
+        }
+
+        if (loaded == 0) {
+            logger.warn("No books found at {}, using fallback books", locationPattern);
+            List<Book> fallbackBooks = getFallbackBooks();
+            fallbackBooks.forEach(sink);
+            loaded = fallbackBooks.size();
+        }
+        return loaded;
+    }
+
+    /**
+     * Fingerprints the catalog shards matching the location pattern by name, size and
+     * modification time, so that files derived from them can tell when they are stale.
+     *
+     * @param locationPattern Spring resource pattern of the catalog files
+     * @return A 64-bit FNV-1a hash of the shard metadata
+     */
+    public static long catalogFingerprint(String locationPattern) {
+        long hash = fnv1a(0xcbf29ce484222325L, locationPattern);
+        for (Resource shard : resolveShards(locationPattern)) {
+            try {
+                hash = fnv1a(hash, shard.getDescription() + '|' + shard.contentLength() + '|' + shard.lastModified());
+            } catch (IOException e) {
+                logger.warn("Could not read metadata of catalog shard {}", shard.getDescription(), e);
+                hash = fnv1a(hash, shard.getDescription());
             }
+        }
+        return hash;
+    }
+
+    private static Resource[] resolveShards(String locationPattern) {
+        try {
+            Resource[] shards = new PathMatchingResourcePatternResolver().getResources(locationPattern);
+            Arrays.sort(shards, Comparator.comparing(Resource::getDescription));
+            return shards;
         } catch (IOException e) {
-            logger.error("Error loading books from JSON file", e);
-            return getFallbackBooks();
+            logger.error("Error resolving catalog shards for {}", locationPattern, e);
+            return new Resource[0];
+        }
+    }
+
+    private static long fnv1a(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int loadShard(Resource shard, Consumer<Book> sink) {
+        String name = shard.getFilename() != null ? shard.getFilename() : shard.getDescription();
+        if (!shard.exists()) {
+            logger.warn("Catalog shard {} does not exist", name);
+            return 0;
+        }
+        try (InputStream inputStream = shard.getInputStream()) {
+            return readBooks(inputStream, name, sink);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error loading books from catalog shard " + name, e);
+        }
+    }
+
+    /**
+     * Parses either a JSON array of books or a sequence of book objects such as JSON Lines,
+     * handing each book to the sink as soon as it is complete.
+     */
+    static int readBooks(InputStream inputStream, String shardName, Consumer<Book> sink) throws IOException {
+        long start = System.nanoTime();
+        int count = 0;
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token == JsonToken.START_OBJECT) {
+                sink.accept(objectMapper.readValue(parser, Book.class));
+                if (++count % PROGRESS_INTERVAL == 0) {
+                    logger.info("Shard {}: {} books loaded", shardName, count);
+                }
+                token = parser.nextToken();
+            }
+            if (array ? token != JsonToken.END_ARRAY : token != null) {
+                throw new IOException("Unexpected token " + token + " in catalog shard " + shardName);
+            }
         }
+        logger.info("Shard {}: {} books loaded in {} ms", shardName, count, (System.nanoTime() - start) / 1_000_000);
+        return count;
     }
 
     /**
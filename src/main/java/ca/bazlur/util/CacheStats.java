@@ -0,0 +1,19 @@
+package ca.bazlur.util;
+
+/**
+ * Point-in-time counters of an {@link ExpiringCache}.
+ *
+ * @param hits        lookups answered from the cache
+ * @param misses      lookups that found no live entry
+ * @param evictions   entries dropped to stay within the maximum size
+ * @param expirations entries dropped because their time to live had passed
+ * @param coalesced   misses that waited for a load already in progress instead of loading again
+ * @param size        entries currently held
+ */
+public record CacheStats(long hits, long misses, long evictions, long expirations, long coalesced, int size) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
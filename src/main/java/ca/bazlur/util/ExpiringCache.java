@@ -0,0 +1,172 @@
+package ca.bazlur.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-memory cache whose entries expire a fixed time after they were written, or a
+ * time chosen per value. When full, the least recently used entry is evicted.
+ * {@code null} values are never cached.
+ * <p>
+ * Loads are single-flight: concurrent {@link #get(Object, Function)} calls that miss on the
+ * same key wait for the first caller's loader instead of running their own.
+ */
+public final class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final ToLongFunction<? super V> ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long coalesced;
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.maxSize = maxSize;
+        long nanos = ttl.toNanos();
+        this.ttlNanos = value -> nanos;
+    }
+
+    /**
+     * Creates a cache whose entries each live for the time given for their value. Values given
+     * a time to live that is not positive are not cached.
+     */
+    public ExpiringCache(int maxSize, Function<? super V, Duration> ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = value -> {
+            Duration duration = ttl.apply(value);
+            return duration == null ? 0 : duration.toNanos();
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, computing and caching it on a miss.
+     * The loader runs outside the cache lock; a {@code null} result is returned but not cached.
+     * Callers that miss while the key is being loaded share that load's result or exception.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> pending;
+        synchronized (this) {
+            V value = getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+            pending = loading.get(key);
+            if (pending != null) {
+                coalesced++;
+            } else {
+                loading.put(key, new CompletableFuture<>());
+            }
+        }
+        return pending != null ? await(pending) : load(key, loader);
+    }
+
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        long now = System.nanoTime();
+        long ttl = ttlNanos.applyAsLong(value);
+        if (ttl <= 0) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry<>(value, now + ttl));
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry<V> entry = eldest.next();
+            if (entry.isExpired(now)) {
+                expirations++;
+            } else if (entries.size() > maxSize) {
+                evictions++;
+            } else {
+                break;
+            }
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, expirations, coalesced, entries.size());
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            CompletableFuture<V> pending;
+            synchronized (this) {
+                pending = loading.remove(key);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+
+        CompletableFuture<V> pending;
+        synchronized (this) {
+            if (value != null) {
+                put(key, value);
+            }
+            pending = loading.remove(key);
+        }
+        pending.complete(value);
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
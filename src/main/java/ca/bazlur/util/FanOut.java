@@ -0,0 +1,220 @@
+package ca.bazlur.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent branches of work concurrently, one virtual thread per branch, and
+ * scopes them to a try-with-resources block. Each branch has its own timeout, measured
+ * from the moment it was forked. A branch that fails or times out in {@link #join(Branch)}
+ * cancels all others; closing the fan-out cancels any branch still running.
+ * <p>
+ * A {@link #sequential()} fan-out runs each branch on the caller when it is forked,
+ * which is useful to compare against or when branches must share the caller's thread.
+ * <p>
+ * Forked branches do not see state bound to the caller's thread, such as the agent process
+ * of the action being run and the tool groups it was given. Work that needs it, like an LLM
+ * call through the agent platform, should run on the caller with
+ * {@link #callOrElse(String, Duration, Callable, Object)} while the forked branches proceed.
+ */
+public final class FanOut implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOut.class);
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("fan-out-timer").factory());
+
+    private final ExecutorService executor;
+    private final List<Future<?>> forked = new ArrayList<>();
+
+    private FanOut(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public static FanOut concurrent() {
+        return new FanOut(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static FanOut sequential() {
+        return new FanOut(null);
+    }
+
+    public <T> Branch<T> fork(String name, Duration timeout, Callable<T> task) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Future<T> future;
+        if (executor != null) {
+            future = executor.submit(task);
+        } else {
+            FutureTask<T> inline = new FutureTask<>(task);
+            inline.run();
+            future = inline;
+        }
+        forked.add(future);
+        return new Branch<>(name, timeout, deadline, future);
+    }
+
+    /**
+     * Waits for the branch and returns its result. On failure or timeout every branch is
+     * cancelled and the failure is rethrown, unchecked.
+     */
+    public <T> T join(Branch<T> branch) {
+        try {
+            return await(branch);
+        } catch (RuntimeException | Error e) {
+            cancelAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the branch and returns its result, or the fallback if it fails or times
+     * out. Only this branch is cancelled in that case, and the failure is logged.
+     */
+    public <T> T joinOrElse(Branch<T> branch, T fallback) {
+        try {
+            return await(branch);
+        } catch (RuntimeException e) {
+            branch.future().cancel(true);
+            logger.warn("Branch '{}' failed, using its fallback", branch.name(), e);
+            return fallback;
+        }
+    }
+
+    /**
+     * Runs a branch on the calling thread, keeping whatever is bound to it, and returns its
+     * result, or the fallback if it fails or times out. The caller is interrupted when the
+     * timeout expires, so the branch must respond to interruption; the interrupt is cleared
+     * before the fallback is returned, and the failure or timeout is logged. Forked branches
+     * are not affected.
+     */
+    public <T> T callOrElse(String name, Duration timeout, Callable<T> task, T fallback) {
+        var alarm = new Alarm(Thread.currentThread());
+        ScheduledFuture<?> scheduled = TIMER.schedule(alarm::ring, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            return task.call();
+        } catch (InterruptedException e) {
+            if (!alarm.silence()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running branch '" + name + "'", e);
+            }
+            logger.warn("Branch '{}' timed out after {}, using its fallback", name, timeout);
+            return fallback;
+        } catch (Exception e) {
+            if (alarm.silence()) {
+                // a branch may report the timeout interrupt as a failure of its own
+                logger.warn("Branch '{}' timed out after {}, using its fallback", name, timeout, e);
+            } else {
+                logger.warn("Branch '{}' failed, using its fallback", name, e);
+            }
+            return fallback;
+        } finally {
+            scheduled.cancel(false);
+            if (alarm.silence()) {
+                // the interrupt was the timeout, not a request to stop the caller
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        if (executor != null) {
+            // do not wait: a branch that ignores interruption must not hold up the caller
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T await(Branch<T> branch) {
+        try {
+            long remaining = branch.deadline() - System.nanoTime();
+            return branch.future().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Branch '" + branch.name() + "' failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new BranchTimeoutException(branch);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Branch '" + branch.name() + "' was cancelled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for branch '" + branch.name() + "'", e);
+        }
+    }
+
+    private void cancelAll() {
+        for (Future<?> future : forked) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Interrupts the caller of {@link #callOrElse} when its timeout expires, unless the branch
+     * has finished by then.
+     */
+    private static final class Alarm {
+
+        private final Thread caller;
+        private boolean silenced;
+        private boolean rang;
+
+        Alarm(Thread caller) {
+            this.caller = caller;
+        }
+
+        synchronized void ring() {
+            if (!silenced) {
+                rang = true;
+                caller.interrupt();
+            }
+        }
+
+        /**
+         * Stops the alarm from ringing.
+         *
+         * @return whether it already rang
+         */
+        synchronized boolean silence() {
+            silenced = true;
+            return rang;
+        }
+    }
+
+    /**
+     * A forked unit of work.
+     */
+    public record Branch<T>(String name, Duration timeout, long deadline, Future<T> future) {
+    }
+
+    /**
+     * Thrown when a branch does not complete within its timeout.
+     */
+    public static final class BranchTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        BranchTimeoutException(Branch<?> branch) {
+            super("Branch '" + branch.name() + "' did not complete within " + branch.timeout());
+        }
+    }
+}
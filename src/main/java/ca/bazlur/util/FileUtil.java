@@ -0,0 +1,35 @@
+package ca.bazlur.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Utility class for the files the application keeps between runs.
+ */
+public final class FileUtil {
+
+    private FileUtil() {
+    }
+
+    /**
+     * Creates a directory, and any missing parents, that only the current user can read and
+     * write, so other local users cannot plant or read the files kept in it. Permissions are
+     * only set where the file system supports POSIX permissions; an existing directory is
+     * left as it is.
+     *
+     * @param directory The directory to create
+     * @return The directory
+     */
+    public static Path createPrivateDirectories(Path directory) throws IOException {
+        if (Files.isDirectory(directory)) {
+            return directory;
+        }
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        return Files.createDirectories(directory);
+    }
+}
@@ -0,0 +1,192 @@
+package ca.bazlur.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses a JSON document as it arrives in chunks, such as the text an LLM streams, and hands
+ * each value to the listener as soon as it is complete: the members of the root object or
+ * array, and their own members or elements. Deeper values are only seen as part of these.
+ * <p>
+ * Text before the root value, such as a Markdown code fence, and text after it are ignored.
+ * The parser is not thread-safe; chunks must be fed in order from one thread at a time.
+ */
+public final class IncrementalJsonReader {
+
+    private static final int REPORTED_DEPTH = 2;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final BiConsumer<JsonPointer, JsonNode> listener;
+    private final Deque<Container> open = new ArrayDeque<>();
+
+    private boolean started;
+    private JsonNode root;
+    private char pendingHighSurrogate;
+
+    /**
+     * @param listener receives the path and value of each complete value within the reported depth
+     */
+    public IncrementalJsonReader(ObjectMapper objectMapper, BiConsumer<JsonPointer, JsonNode> listener) {
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.listener = listener;
+    }
+
+    /**
+     * Parses the next chunk of the document, reporting the values it completes.
+     *
+     * @throws UncheckedIOException if the text so far is not valid JSON
+     */
+    public void feed(String chunk) {
+        if (root != null || chunk.isEmpty()) {
+            return;
+        }
+        String text = pendingHighSurrogate != 0 ? pendingHighSurrogate + chunk : chunk;
+        pendingHighSurrogate = 0;
+        if (Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+            // Keep the first half of a split surrogate pair until the second half arrives.
+            pendingHighSurrogate = text.charAt(text.length() - 1);
+            text = text.substring(0, text.length() - 1);
+        }
+        if (!started) {
+            int begin = rootStart(text);
+            if (begin < 0) {
+                return;
+            }
+            started = true;
+            text = text.substring(begin);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            readAvailable();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Streamed text is not valid JSON", e);
+        }
+    }
+
+    /**
+     * @return the whole document
+     * @throws IllegalStateException if the document is incomplete
+     */
+    public JsonNode finish() {
+        if (root == null) {
+            throw new IllegalStateException(started ? "Streamed JSON ended before the document was complete"
+                    : "Streamed text contains no JSON document");
+        }
+        return root;
+    }
+
+    private void readAvailable() throws IOException {
+        JsonToken token;
+        while (root == null && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT -> open.push(new Container(JsonNodeFactory.instance.objectNode(), childPath()));
+                case START_ARRAY -> open.push(new Container(JsonNodeFactory.instance.arrayNode(), childPath()));
+                case END_OBJECT, END_ARRAY -> {
+                    Container closed = open.pop();
+                    complete(closed.path, closed.node);
+                }
+                case FIELD_NAME -> open.element().fieldName = parser.currentName();
+                default -> complete(childPath(), scalar(token));
+            }
+        }
+        if (root != null) {
+            feeder.endOfInput();
+        }
+    }
+
+    /**
+     * Adds a complete value to its parent, reporting it if it is shallow enough.
+     */
+    private void complete(JsonPointer path, JsonNode value) {
+        Container parent = open.peek();
+        if (parent == null) {
+            root = value;
+            return;
+        }
+        if (parent.node instanceof ObjectNode object) {
+            object.set(parent.fieldName, value);
+        } else {
+            ((ArrayNode) parent.node).add(value);
+        }
+        if (open.size() <= REPORTED_DEPTH) {
+            listener.accept(path, value);
+        }
+    }
+
+    /**
+     * @return the path of the value about to start in the innermost open container
+     */
+    private JsonPointer childPath() {
+        Container parent = open.peek();
+        if (parent == null) {
+            return JsonPointer.empty();
+        }
+        if (parent.node instanceof ObjectNode) {
+            return parent.path.appendProperty(parent.fieldName);
+        }
+        return parent.path.appendIndex(parent.node.size());
+    }
+
+    private JsonNode scalar(JsonToken token) throws IOException {
+        var nodes = JsonNodeFactory.instance;
+        return switch (token) {
+            case VALUE_STRING -> nodes.textNode(parser.getText());
+            case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                case INT -> nodes.numberNode(parser.getIntValue());
+                case LONG -> nodes.numberNode(parser.getLongValue());
+                default -> nodes.numberNode(parser.getBigIntegerValue());
+            };
+            case VALUE_NUMBER_FLOAT -> nodes.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE -> nodes.booleanNode(true);
+            case VALUE_FALSE -> nodes.booleanNode(false);
+            default -> nodes.nullNode();
+        };
+    }
+
+    private static int rootStart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An object or array whose closing token has not arrived yet, and the field being read in it.
+     */
+    private static final class Container {
+
+        private final ContainerNode<?> node;
+        private final JsonPointer path;
+        private String fieldName;
+
+        Container(ContainerNode<?> node, JsonPointer path) {
+            this.node = node;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ca.bazlur.util;
+
+/**
+ * Utility class for normalizing ISBNs to a primitive key.
+ * ISBN-10 and ISBN-13 forms of the same book, with or without hyphens and spaces,
+ * normalize to the same ISBN-13 value. Both forms must have a valid check digit, and an
+ * ISBN-13 the 978 or 979 prefix; anything else is treated as an opaque identifier.
+ */
+public final class IsbnUtil {
+
+    /**
+     * Returned by {@link #toIsbn13(String)} for identifiers that are not ISBNs.
+     */
+    public static final long NOT_AN_ISBN = -1L;
+
+    private IsbnUtil() {
+    }
+
+    /**
+     * Normalizes an ISBN-10 or ISBN-13 to its ISBN-13 number.
+     *
+     * @param isbn The identifier to normalize
+     * @return The ISBN-13 as a long, or {@link #NOT_AN_ISBN} if the identifier is not a valid ISBN
+     */
+    public static long toIsbn13(String isbn) {
+        if (isbn == null) {
+            return NOT_AN_ISBN;
+        }
+
+        int[] digits = new int[13];
+        int count = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (count == 13) {
+                return NOT_AN_ISBN;
+            }
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                digits[count++] = 10;
+            } else {
+                return NOT_AN_ISBN;
+            }
+        }
+
+        if (count == 13) {
+            return isValidIsbn13(digits) ? toLong(digits) : NOT_AN_ISBN;
+        }
+        if (count == 10 && isValidIsbn10(digits)) {
+            // ISBN-10 maps to the 978 prefix with a recomputed ISBN-13 check digit
+            int[] isbn13 = new int[13];
+            isbn13[0] = 9;
+            isbn13[1] = 7;
+            isbn13[2] = 8;
+            System.arraycopy(digits, 0, isbn13, 3, 9);
+            int sum = 0;
+            for (int i = 0; i < 12; i++) {
+                sum += isbn13[i] * (i % 2 == 0 ? 1 : 3);
+            }
+            isbn13[12] = (10 - sum % 10) % 10;
+            return toLong(isbn13);
+        }
+        return NOT_AN_ISBN;
+    }
+
+    /**
+     * Checks whether two identifiers denote the same book, either literally or as ISBNs.
+     */
+    public static boolean sameIsbn(String first, String second) {
+        if (first.equals(second)) {
+            return true;
+        }
+        long key = toIsbn13(first);
+        return key != NOT_AN_ISBN && key == toIsbn13(second);
+    }
+
+    /**
+     * Checks the Bookland prefix (978 or 979) and the check digit of an ISBN-13.
+     */
+    private static boolean isValidIsbn13(int[] digits) {
+        if (digits[0] != 9 || digits[1] != 7 || (digits[2] != 8 && digits[2] != 9)) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            if (digits[i] == 10) {
+                return false;
+            }
+            sum += digits[i] * (i % 2 == 0 ? 1 : 3);
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isValidIsbn10(int[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            if (digits[i] == 10 && i != 9) {
+                return false;
+            }
+            sum += digits[i] * (10 - i);
+        }
+        return sum % 11 == 0;
+    }
+
+    private static long toLong(int[] digits) {
+        long value = 0;
+        for (int i = 0; i < 13; i++) {
+            value = value * 10 + digits[i];
+        }
+        return value;
+    }
+}
@@ -0,0 +1,143 @@
+package ca.bazlur.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent requests into batches and answers each batch with one call.
+ * A batch is sent when it reaches the maximum size, or when the window has passed since its
+ * first request, whichever comes first; callers block until their own result is ready.
+ * <p>
+ * The batch call returns one result per request, in request order. A request left without a
+ * result, because the list is short or holds {@code null} there, is retried on its own with
+ * the single call, which also answers batches of one. If the batch call fails, every request
+ * in the batch fails with the same exception.
+ */
+public final class MicroBatcher<I, O> {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<List<I>, List<O>> batchCall;
+    private final Function<I, O> singleCall;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private List<Request<I, O>> pending = new ArrayList<>();
+    private long generation;
+
+    public MicroBatcher(String name, Duration window, int maxBatchSize,
+                        Function<List<I>, List<O>> batchCall, Function<I, O> singleCall) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchCall = batchCall;
+        this.singleCall = singleCall;
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name(name + "-batcher").factory());
+    }
+
+    /**
+     * Adds the item to the current batch and waits for its result. With no window or a
+     * maximum batch size of one, the single call is made right away.
+     */
+    public O submit(I item) {
+        if (windowNanos <= 0 || maxBatchSize == 1) {
+            return singleCall.apply(item);
+        }
+        Request<I, O> request = new Request<>(item, new CompletableFuture<>());
+        List<Request<I, O>> full = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() == 1) {
+                long scheduled = generation;
+                timer.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                full = take();
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return await(request.result());
+    }
+
+    /**
+     * Sends the batch the timer was set for, unless it already filled up and was sent.
+     */
+    private void flush(long scheduled) {
+        List<Request<I, O>> batch;
+        synchronized (this) {
+            if (scheduled != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = take();
+        }
+        executor.execute(() -> send(batch));
+    }
+
+    private List<Request<I, O>> take() {
+        List<Request<I, O>> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return batch;
+    }
+
+    private void send(List<Request<I, O>> batch) {
+        if (batch.size() == 1) {
+            sendAlone(batch.getFirst());
+            return;
+        }
+        List<O> results;
+        try {
+            results = batchCall.apply(batch.stream().map(Request::item).toList());
+        } catch (RuntimeException | Error e) {
+            batch.forEach(request -> request.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Request<I, O> request = batch.get(i);
+            O result = results != null && i < results.size() ? results.get(i) : null;
+            if (result != null) {
+                request.result().complete(result);
+            } else {
+                executor.execute(() -> sendAlone(request));
+            }
+        }
+    }
+
+    private void sendAlone(Request<I, O> request) {
+        try {
+            request.result().complete(singleCall.apply(request.item()));
+        } catch (RuntimeException | Error e) {
+            request.result().completeExceptionally(e);
+        }
+    }
+
+    private static <O> O await(CompletableFuture<O> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Request<I, O>(I item, CompletableFuture<O> result) {
+    }
+}
@@ -0,0 +1,292 @@
+package ca.bazlur.util;
+
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.ReadingMood;
+import ca.bazlur.model.UserPreferences;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class that resolves free-text genres, moods and reading times, typically from
+ * LLM output or user input, to {@link BookGenre}, {@link ReadingMood} and hours per week.
+ * Unrecognized input yields {@code null} or {@link Double#NaN} rather than an exception.
+ * <p>
+ * Text is folded for case, punctuation and hyphens and looked up in precomputed tables of
+ * the enum names and their aliases, with and without spaces ("Sci-Fi", "scifi"). Failing
+ * that, a close misspelling within a small edit distance is accepted if exactly one entry
+ * is that close, and finally the first known phrase inside the text is used
+ * ("dark science fiction" resolves to science fiction).
+ */
+public final class PreferenceNormalizer {
+
+    private static final Map<String, BookGenre> GENRE_ALIASES = Map.ofEntries(
+            Map.entry("novel", BookGenre.FICTION), Map.entry("novels", BookGenre.FICTION),
+            Map.entry("literary fiction", BookGenre.FICTION),
+            Map.entry("nonfiction", BookGenre.NON_FICTION), Map.entry("non fiction", BookGenre.NON_FICTION),
+            Map.entry("mysteries", BookGenre.MYSTERY), Map.entry("whodunit", BookGenre.MYSTERY),
+            Map.entry("whodunnit", BookGenre.MYSTERY), Map.entry("whodunits", BookGenre.MYSTERY),
+            Map.entry("detective", BookGenre.MYSTERY), Map.entry("crime", BookGenre.MYSTERY),
+            Map.entry("thrillers", BookGenre.THRILLER), Map.entry("suspense", BookGenre.THRILLER),
+            Map.entry("romantic", BookGenre.ROMANCE), Map.entry("love story", BookGenre.ROMANCE),
+            Map.entry("love stories", BookGenre.ROMANCE), Map.entry("romcom", BookGenre.ROMANCE),
+            Map.entry("rom com", BookGenre.ROMANCE),
+            Map.entry("sci fi", BookGenre.SCIENCE_FICTION), Map.entry("scifi", BookGenre.SCIENCE_FICTION),
+            Map.entry("sf", BookGenre.SCIENCE_FICTION), Map.entry("space opera", BookGenre.SCIENCE_FICTION),
+            Map.entry("cyberpunk", BookGenre.SCIENCE_FICTION), Map.entry("dystopian", BookGenre.SCIENCE_FICTION),
+            Map.entry("epic fantasy", BookGenre.FANTASY), Map.entry("high fantasy", BookGenre.FANTASY),
+            Map.entry("biographies", BookGenre.BIOGRAPHY), Map.entry("memoir", BookGenre.BIOGRAPHY),
+            Map.entry("memoirs", BookGenre.BIOGRAPHY), Map.entry("autobiography", BookGenre.BIOGRAPHY),
+            Map.entry("historical", BookGenre.HISTORY),
+            Map.entry("self improvement", BookGenre.SELF_HELP), Map.entry("personal development", BookGenre.SELF_HELP),
+            Map.entry("productivity", BookGenre.SELF_HELP),
+            Map.entry("entrepreneurship", BookGenre.BUSINESS), Map.entry("leadership", BookGenre.BUSINESS),
+            Map.entry("finance", BookGenre.BUSINESS),
+            Map.entry("fitness", BookGenre.HEALTH), Map.entry("nutrition", BookGenre.HEALTH),
+            Map.entry("wellness", BookGenre.HEALTH),
+            Map.entry("travelogue", BookGenre.TRAVEL), Map.entry("travel writing", BookGenre.TRAVEL),
+            Map.entry("cookbook", BookGenre.COOKING), Map.entry("cookbooks", BookGenre.COOKING),
+            Map.entry("recipes", BookGenre.COOKING),
+            Map.entry("art history", BookGenre.ART), Map.entry("painting", BookGenre.ART),
+            Map.entry("poems", BookGenre.POETRY), Map.entry("poem", BookGenre.POETRY),
+            Map.entry("plays", BookGenre.DRAMA), Map.entry("theatre", BookGenre.DRAMA),
+            Map.entry("theater", BookGenre.DRAMA),
+            Map.entry("childrens", BookGenre.CHILDREN), Map.entry("kids", BookGenre.CHILDREN),
+            Map.entry("picture books", BookGenre.CHILDREN),
+            Map.entry("ya", BookGenre.YOUNG_ADULT), Map.entry("teen", BookGenre.YOUNG_ADULT),
+            Map.entry("historical novel", BookGenre.HISTORICAL_FICTION),
+            Map.entry("historical novels", BookGenre.HISTORICAL_FICTION),
+            Map.entry("philosophical", BookGenre.PHILOSOPHY), Map.entry("stoicism", BookGenre.PHILOSOPHY));
+
+    private static final Map<String, ReadingMood> MOOD_ALIASES = Map.ofEntries(
+            Map.entry("escapism", ReadingMood.ESCAPIST), Map.entry("escape", ReadingMood.ESCAPIST),
+            Map.entry("get away", ReadingMood.ESCAPIST), Map.entry("lose myself", ReadingMood.ESCAPIST),
+            Map.entry("learn", ReadingMood.EDUCATIONAL), Map.entry("learning", ReadingMood.EDUCATIONAL),
+            Map.entry("informative", ReadingMood.EDUCATIONAL),
+            Map.entry("inspiring", ReadingMood.INSPIRATIONAL), Map.entry("inspired", ReadingMood.INSPIRATIONAL),
+            Map.entry("uplifting", ReadingMood.INSPIRATIONAL), Map.entry("motivational", ReadingMood.INSPIRATIONAL),
+            Map.entry("motivated", ReadingMood.INSPIRATIONAL),
+            Map.entry("relaxed", ReadingMood.RELAXING), Map.entry("relax", ReadingMood.RELAXING),
+            Map.entry("chill", ReadingMood.RELAXING), Map.entry("chilled", ReadingMood.RELAXING),
+            Map.entry("cozy", ReadingMood.RELAXING), Map.entry("cosy", ReadingMood.RELAXING),
+            Map.entry("calm", ReadingMood.RELAXING), Map.entry("unwind", ReadingMood.RELAXING),
+            Map.entry("light", ReadingMood.RELAXING),
+            Map.entry("challenge", ReadingMood.CHALLENGING), Map.entry("difficult", ReadingMood.CHALLENGING),
+            Map.entry("demanding", ReadingMood.CHALLENGING), Map.entry("complex", ReadingMood.CHALLENGING),
+            Map.entry("entertained", ReadingMood.ENTERTAINING), Map.entry("fun", ReadingMood.ENTERTAINING),
+            Map.entry("funny", ReadingMood.ENTERTAINING), Map.entry("lighthearted", ReadingMood.ENTERTAINING),
+            Map.entry("light hearted", ReadingMood.ENTERTAINING), Map.entry("humorous", ReadingMood.ENTERTAINING),
+            Map.entry("thought provoking", ReadingMood.THOUGHT_PROVOKING),
+            Map.entry("thoughtful", ReadingMood.THOUGHT_PROVOKING), Map.entry("curious", ReadingMood.THOUGHT_PROVOKING),
+            Map.entry("reflective", ReadingMood.THOUGHT_PROVOKING),
+            Map.entry("moving", ReadingMood.EMOTIONAL), Map.entry("sad", ReadingMood.EMOTIONAL),
+            Map.entry("melancholy", ReadingMood.EMOTIONAL), Map.entry("tearjerker", ReadingMood.EMOTIONAL),
+            Map.entry("heartfelt", ReadingMood.EMOTIONAL), Map.entry("nostalgic", ReadingMood.EMOTIONAL),
+            Map.entry("adventure", ReadingMood.ADVENTUROUS), Map.entry("adventures", ReadingMood.ADVENTUROUS),
+            Map.entry("exciting", ReadingMood.ADVENTUROUS), Map.entry("action packed", ReadingMood.ADVENTUROUS),
+            Map.entry("thrilling", ReadingMood.ADVENTUROUS));
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)?");
+
+    private static final Vocabulary<BookGenre> GENRES = new Vocabulary<>(BookGenre.values(), GENRE_ALIASES);
+    private static final Vocabulary<ReadingMood> MOODS = new Vocabulary<>(ReadingMood.values(), MOOD_ALIASES);
+
+    private PreferenceNormalizer() {
+    }
+
+    /**
+     * @return the genre, or {@code null} if the text does not resolve to one
+     */
+    public static BookGenre genre(String text) {
+        return GENRES.resolve(text);
+    }
+
+    /**
+     * @return the mood, or {@code null} if the text does not resolve to one
+     */
+    public static ReadingMood mood(String text) {
+        return MOODS.resolve(text);
+    }
+
+    /**
+     * Reads hours per week from text such as "5 hours a week", "an hour a day" or a bare
+     * "5" or "3-4", which are taken as hours per week.
+     *
+     * @return the hours per week, or {@link Double#NaN} if the text states none
+     */
+    public static double hoursPerWeek(String text) {
+        double hours = ReadingTimeParser.hoursPerWeek(text);
+        if (Double.isNaN(hours) && text != null) {
+            Matcher matcher = NUMBER.matcher(text);
+            if (matcher.find()) {
+                hours = Double.parseDouble(matcher.group().replace(',', '.'));
+                // "3-4" is a range; use its midpoint
+                int end = matcher.end();
+                if (end < text.length() && text.charAt(end) == '-' && matcher.find() && matcher.start() == end + 1) {
+                    hours = (hours + Double.parseDouble(matcher.group().replace(',', '.'))) / 2;
+                }
+            }
+        }
+        return hours > 0 && Double.isFinite(hours) ? hours : Double.NaN;
+    }
+
+    /**
+     * Rewrites the genre and mood as enum names and the reading time as a number of hours
+     * per week, wherever they resolve. Fields that do not resolve are kept as they are.
+     */
+    public static UserPreferences canonicalize(UserPreferences preferences) {
+        if (preferences == null) {
+            return null;
+        }
+        BookGenre genre = genre(preferences.favoriteGenre());
+        ReadingMood mood = mood(preferences.currentMood());
+        double hours = hoursPerWeek(preferences.readingTimePerWeek());
+        return new UserPreferences(
+                genre != null ? genre.name() : preferences.favoriteGenre(),
+                mood != null ? mood.name() : preferences.currentMood(),
+                Double.isNaN(hours) ? preferences.readingTimePerWeek() : formatHours(hours),
+                preferences.authorInterest());
+    }
+
+    /**
+     * @return every folded genre name and alias with its genre
+     */
+    public static Map<String, BookGenre> genreAliases() {
+        return GENRES.phrases;
+    }
+
+    /**
+     * @return every folded mood name and alias with its mood
+     */
+    public static Map<String, ReadingMood> moodAliases() {
+        return MOODS.phrases;
+    }
+
+    public static String formatHours(double hours) {
+        double rounded = Math.round(hours * 10) / 10.0;
+        return rounded == Math.rint(rounded) ? Long.toString((long) rounded) : Double.toString(rounded);
+    }
+
+    /**
+     * Restricted Damerau-Levenshtein distance, giving up once it exceeds the bound.
+     *
+     * @return the distance, or {@code bound + 1} if it is larger than the bound
+     */
+    static int distance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    /**
+     * Precomputed lookup tables for one enum.
+     */
+    private static final class Vocabulary<E extends Enum<E>> {
+
+        /**
+         * Folded names and aliases, as matched inside longer text.
+         */
+        private final Map<String, E> phrases;
+
+        /**
+         * Folded names and aliases with their spaces removed, for exact and fuzzy lookups.
+         */
+        private final Map<String, E> compact;
+        private final String[] compactKeys;
+        private final AhoCorasick<E> scanner;
+
+        Vocabulary(E[] values, Map<String, E> aliases) {
+            Map<String, E> phrases = new HashMap<>();
+            for (E value : values) {
+                phrases.put(TextUtil.normalizeForKey(value.name()), value);
+            }
+            aliases.forEach((alias, value) -> phrases.put(TextUtil.normalizeForKey(alias), value));
+            this.phrases = Map.copyOf(phrases);
+
+            Map<String, E> compact = new HashMap<>();
+            AhoCorasick.Builder<E> scanner = AhoCorasick.builder();
+            phrases.forEach((phrase, value) -> {
+                compact.put(phrase.replace(" ", ""), value);
+                scanner.add(phrase, value);
+            });
+            this.compact = Map.copyOf(compact);
+            this.compactKeys = compact.keySet().toArray(String[]::new);
+            this.scanner = scanner.build();
+        }
+
+        E resolve(String text) {
+            if (text == null) {
+                return null;
+            }
+            String folded = TextUtil.normalizeForKey(text);
+            if (folded.isEmpty()) {
+                return null;
+            }
+            String key = folded.replace(" ", "");
+            E value = compact.get(key);
+            if (value == null) {
+                value = closest(key);
+            }
+            if (value == null) {
+                List<AhoCorasick.Match<E>> matches = scanner.findAll(folded);
+                value = matches.isEmpty() ? null : matches.get(0).value();
+            }
+            return value;
+        }
+
+        /**
+         * Finds the only entry within one edit of the key, or two edits for keys of eight
+         * characters or more. Short keys are too easily confused to be matched fuzzily.
+         */
+        private E closest(String key) {
+            if (key.length() < 4) {
+                return null;
+            }
+            int bound = key.length() >= 8 ? 2 : 1;
+            E best = null;
+            int bestDistance = bound + 1;
+            boolean ambiguous = false;
+            for (String candidate : compactKeys) {
+                int distance = distance(key, candidate, bound);
+                if (distance < bestDistance) {
+                    best = compact.get(candidate);
+                    bestDistance = distance;
+                    ambiguous = false;
+                } else if (distance == bestDistance && distance <= bound && compact.get(candidate) != best) {
+                    ambiguous = true;
+                }
+            }
+            return ambiguous ? null : best;
+        }
+    }
+}
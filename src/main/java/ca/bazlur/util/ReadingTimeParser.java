@@ -0,0 +1,155 @@
+package ca.bazlur.util;
+
+import java.util.Map;
+
+/**
+ * Utility class for reading an amount of reading time per week out of free text, such as
+ * "5 hours a week", "an hour a day", "30 mins every night" or "3-4 hrs".
+ * Amounts without a period are taken to be per week; ranges use their midpoint.
+ */
+public final class ReadingTimeParser {
+
+    private static final double DAYS_PER_WEEK = 7.0;
+    private static final double WEEKS_PER_MONTH = 30.44 / 7.0;
+
+    private static final Map<String, Double> NUMBER_WORDS = Map.ofEntries(
+            Map.entry("a", 1.0), Map.entry("an", 1.0), Map.entry("one", 1.0), Map.entry("two", 2.0),
+            Map.entry("three", 3.0), Map.entry("four", 4.0), Map.entry("five", 5.0), Map.entry("six", 6.0),
+            Map.entry("seven", 7.0), Map.entry("eight", 8.0), Map.entry("nine", 9.0), Map.entry("ten", 10.0),
+            Map.entry("eleven", 11.0), Map.entry("twelve", 12.0), Map.entry("fifteen", 15.0),
+            Map.entry("twenty", 20.0), Map.entry("thirty", 30.0), Map.entry("forty", 40.0),
+            Map.entry("forty five", 45.0), Map.entry("couple", 2.0), Map.entry("few", 3.0),
+            Map.entry("half", 0.5));
+
+    private static final Map<String, Double> UNITS_IN_HOURS = Map.ofEntries(
+            Map.entry("h", 1.0), Map.entry("hr", 1.0), Map.entry("hrs", 1.0), Map.entry("hour", 1.0),
+            Map.entry("hours", 1.0), Map.entry("m", 1 / 60.0), Map.entry("min", 1 / 60.0),
+            Map.entry("mins", 1 / 60.0), Map.entry("minute", 1 / 60.0), Map.entry("minutes", 1 / 60.0));
+
+    private static final Map<String, Double> PERIODS_IN_WEEKS = Map.ofEntries(
+            Map.entry("day", 1 / DAYS_PER_WEEK), Map.entry("daily", 1 / DAYS_PER_WEEK),
+            Map.entry("night", 1 / DAYS_PER_WEEK), Map.entry("nightly", 1 / DAYS_PER_WEEK),
+            Map.entry("evening", 1 / DAYS_PER_WEEK), Map.entry("morning", 1 / DAYS_PER_WEEK),
+            Map.entry("week", 1.0), Map.entry("weekly", 1.0), Map.entry("weekend", 1.0),
+            Map.entry("month", WEEKS_PER_MONTH), Map.entry("monthly", WEEKS_PER_MONTH));
+
+    private ReadingTimeParser() {
+    }
+
+    /**
+     * @return the hours per week stated in the text, or {@link Double#NaN} if it states none
+     */
+    public static double hoursPerWeek(String text) {
+        if (text == null || text.isBlank()) {
+            return Double.NaN;
+        }
+
+        String[] words = TextUtil.normalizeForKey(text).split(" ");
+        for (int i = 0; i < words.length; i++) {
+            double amount = number(words[i]);
+            int next = i + 1;
+            if (Double.isNaN(amount)) {
+                // "5h", "30min"
+                int unitStart = unitSuffix(words[i]);
+                if (unitStart <= 0) {
+                    continue;
+                }
+                amount = number(words[i].substring(0, unitStart));
+                if (Double.isNaN(amount)) {
+                    continue;
+                }
+                return amount * UNITS_IN_HOURS.get(words[i].substring(unitStart)) / period(words, next);
+            }
+
+            // "forty five", "3 4 hours" (from "3-4"), "3 to 4 hours", "1 or 2 hours"
+            if (next < words.length && NUMBER_WORDS.containsKey(words[i] + " " + words[next])) {
+                amount = NUMBER_WORDS.get(words[i] + " " + words[next]);
+                next++;
+            }
+            if (next + 1 < words.length && (words[next].equals("to") || words[next].equals("or"))
+                    && !Double.isNaN(number(words[next + 1]))) {
+                amount = (amount + number(words[next + 1])) / 2;
+                next += 2;
+            } else if (next < words.length && isDigits(words[i]) && isDigits(words[next])) {
+                amount = (amount + number(words[next])) / 2;
+                next++;
+            }
+            // "half an hour", "a couple of hours"
+            while (next < words.length && (words[next].equals("an") || words[next].equals("a")
+                    || words[next].equals("of") || words[next].equals("couple") || words[next].equals("few"))) {
+                if (words[next].equals("couple") || words[next].equals("few")) {
+                    amount *= NUMBER_WORDS.get(words[next]);
+                }
+                next++;
+            }
+            if (next < words.length && UNITS_IN_HOURS.containsKey(words[next])) {
+                double hours = amount * UNITS_IN_HOURS.get(words[next]);
+                return hours / period(words, next + 1);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Reads the period following an amount, e.g. "a day", "per week", "each night" or "daily".
+     *
+     * @return the period in weeks, one week if none is stated
+     */
+    private static double period(String[] words, int index) {
+        for (int i = index; i < Math.min(words.length, index + 3); i++) {
+            Double weeks = PERIODS_IN_WEEKS.get(words[i]);
+            if (weeks != null) {
+                return weeks;
+            }
+            if (!words[i].equals("a") && !words[i].equals("an") && !words[i].equals("per")
+                    && !words[i].equals("each") && !words[i].equals("every") && !words[i].equals("of")
+                    && !words[i].equals("reading") && !words[i].equals("the")) {
+                break;
+            }
+        }
+        return 1.0;
+    }
+
+    private static double number(String word) {
+        Double value = NUMBER_WORDS.get(word);
+        if (value != null) {
+            return value;
+        }
+        if (word.isEmpty() || !isAsciiDigit(word.charAt(0))) {
+            return Double.NaN;
+        }
+        int dots = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '.' || c == ',') {
+                dots++;
+            } else if (!isAsciiDigit(c)) {
+                return Double.NaN;
+            }
+        }
+        return dots <= 1 ? Double.parseDouble(word.replace(',', '.')) : Double.NaN;
+    }
+
+    private static boolean isDigits(String word) {
+        return !word.isEmpty() && isAsciiDigit(word.charAt(0)) && !Double.isNaN(number(word));
+    }
+
+    /**
+     * @return where a unit suffix such as "h" or "min" starts in a word like "5h", or -1
+     */
+    private static int unitSuffix(String word) {
+        int i = 0;
+        while (i < word.length() && (isAsciiDigit(word.charAt(i)) || word.charAt(i) == '.')) {
+            i++;
+        }
+        return i > 0 && UNITS_IN_HOURS.containsKey(word.substring(i)) ? i : -1;
+    }
+
+    /**
+     * Only ASCII digits; {@link Double#parseDouble} rejects the other digits
+     * {@link Character#isDigit} accepts, such as "٥".
+     */
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
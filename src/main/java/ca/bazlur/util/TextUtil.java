@@ -0,0 +1,43 @@
+package ca.bazlur.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Utility class for normalizing free-text user input.
+ */
+public final class TextUtil {
+
+    private TextUtil() {
+    }
+
+    /**
+     * Folds free text to a lookup key: Unicode compatibility forms, lower case, punctuation
+     * replaced by spaces and runs of whitespace collapsed. Decimal points and commas
+     * between digits are kept, so "2.5 hours" and "25 hours" stay distinct.
+     */
+    public static String normalizeForKey(String input) {
+        if (input == null) {
+            return "";
+        }
+
+        String folded = Normalizer.normalize(input, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            boolean keep = Character.isLetterOrDigit(c)
+                    || ((c == '.' || c == ',') && i > 0 && i + 1 < folded.length()
+                    && Character.isDigit(folded.charAt(i - 1)) && Character.isDigit(folded.charAt(i + 1)));
+            if (keep) {
+                key.append(c);
+            } else if (!key.isEmpty() && key.charAt(key.length() - 1) != ' ') {
+                key.append(' ');
+            }
+        }
+        int end = key.length();
+        if (end > 0 && key.charAt(end - 1) == ' ') {
+            key.setLength(end - 1);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package ca.bazlur.web;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.BookRecommendationAgent;
+import ca.bazlur.agent.ReportStreamListener;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.ReadingList;
+import com.embabel.agent.domain.io.UserInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams a recommendation report as server-sent events, so the reader sees the first
+ * recommendation while the rest of the report is still being written. Events, in order:
+ * <ul>
+ *     <li>{@code preferences}: the preferences extracted from the request</li>
+ *     <li>{@code recommendation}: one per recommended book, as soon as its reason is complete</li>
+ *     <li>{@code reading-list}: the reading list formed by the recommendations</li>
+ *     <li>{@code report}: the whole report, after which the stream ends</li>
+ *     <li>{@code error}: sent instead of the rest if the report cannot be generated</li>
+ * </ul>
+ * Each run takes a virtual thread. When the client disconnects or the stream times out, the
+ * run stops at its next event.
+ * <p>
+ * The actions are called directly, not planned and run by the agent platform, so they run
+ * without an agent process and without the tool groups their {@code @Action} annotations
+ * request: the web resource search gets no web tools, and its failure only drops the web
+ * resources from the report. With the live client the narrative also arrives in one chunk,
+ * as the platform's prompt runner does not stream. The endpoint is therefore only served when
+ * {@code book.recommendation.streaming.enabled} is set.
+ */
+@RestController
+@ConditionalOnProperty(name = "book.recommendation.streaming.enabled", havingValue = "true")
+public class RecommendationStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationStreamController.class);
+
+    private final BookRecommendationAgent agent;
+    private final BookRecommendationProperties.Streaming settings;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RecommendationStreamController(BookRecommendationAgent agent, BookRecommendationProperties properties) {
+        this.agent = agent;
+        this.settings = properties.getStreaming();
+    }
+
+    @GetMapping(path = "/recommendations/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam("request") String request) {
+        return stream(request, new SseEmitter(settings.getTimeout().toMillis()));
+    }
+
+    SseEmitter stream(String request, SseEmitter emitter) {
+        var open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+        executor.execute(() -> run(request, new Events(emitter, open)));
+        return emitter;
+    }
+
+    private void run(String request, Events events) {
+        try {
+            var preferences = agent.extractUserPreferences(new UserInput(request));
+            events.send("preferences", preferences);
+            var inputs = agent.gatherRecommendationInputs(preferences);
+            var report = agent.streamRecommendationReport(preferences, inputs, events);
+            events.send("report", report);
+            events.emitter.complete();
+        } catch (CancellationException e) {
+            logger.debug("Recommendation stream closed before the report was complete: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Could not stream recommendations for '{}'", request, e);
+            try {
+                events.send("error", Map.of("message", "The recommendation report could not be generated"));
+                events.emitter.complete();
+            } catch (CancellationException closed) {
+                logger.debug("Recommendation stream closed before the error was sent");
+            }
+        }
+    }
+
+    /**
+     * Sends report parts as events while the stream is open, and stops the run once it is not.
+     */
+    private record Events(SseEmitter emitter, AtomicBoolean open) implements ReportStreamListener {
+
+        @Override
+        public void recommendation(BookRecommendation recommendation) {
+            send("recommendation", recommendation);
+        }
+
+        @Override
+        public void readingList(ReadingList readingList) {
+            send("reading-list", readingList);
+        }
+
+        void send(String name, Object data) {
+            if (!open.get()) {
+                throw new CancellationException("Stream closed");
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                open.set(false);
+                throw new CancellationException("Client disconnected: " + e.getMessage());
+            }
+        }
+    }
+}
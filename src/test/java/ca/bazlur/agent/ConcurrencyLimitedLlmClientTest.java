@@ -0,0 +1,206 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.util.AdaptiveLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the limiter through a stub model client whose latency and blocking are set per model.
+ */
+class ConcurrencyLimitedLlmClientTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BookRecommendationProperties properties = new BookRecommendationProperties();
+    private final SlowLlmClient models = new SlowLlmClient();
+
+    @Test
+    void keepsASeparateLimitForEachModel() throws Exception {
+        var slow = new BookRecommendationProperties.Limits();
+        slow.setInitialLimit(2);
+        slow.setMinLimit(2);
+        slow.setMaxLimit(2);
+        slow.setMaxQueued(0);
+        properties.getLlmConcurrency().getModels().put("slow-model", slow);
+        var client = client();
+        var release = new CountDownLatch(1);
+        models.blockers.put("slow-model", release);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> held = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                held.add(callers.submit(() -> client.createObject(LlmCall.of("rank", "slow-model", ""), String.class)));
+            }
+            awaitInFlight("slow-model", 2);
+
+            assertThrows(AdaptiveLimiter.RejectedException.class,
+                    () -> client.createObject(LlmCall.of("rank", "slow-model", ""), String.class));
+            // the slow model's full limit does not hold back the others
+            assertEquals("fast-model", client.createObject(LlmCall.of("rank", "fast-model", ""), String.class));
+            assertEquals("default", client.createObjectIfPossible(LlmCall.of("rank", null, ""), String.class));
+
+            release.countDown();
+            for (Future<String> call : held) {
+                assertEquals("slow-model", call.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(2, models.maxInFlight("slow-model"));
+        assertEquals(1.0, rejected("slow-model"));
+        assertEquals(0.0, rejected("fast-model"));
+    }
+
+    @Test
+    void shedsCallsOnceTheModelSlowsDown() throws Exception {
+        var adaptive = new BookRecommendationProperties.Limits();
+        adaptive.setInitialLimit(CALLERS);
+        adaptive.setMinLimit(1);
+        adaptive.setMaxLimit(CALLERS);
+        adaptive.setMaxQueued(0);
+        // a few milliseconds of scheduling jitter must not read as a slowdown
+        adaptive.setTolerance(3.0);
+        properties.getLlmConcurrency().getModels().put("slowing-model", adaptive);
+        properties.getLlmConcurrency().getModels().put("steady-model", adaptive);
+        var client = client();
+
+        models.latencyMillis.put("slowing-model", 10L);
+        models.latencyMillis.put("steady-model", 10L);
+        callFor(client, "slowing-model", Duration.ofMillis(300));
+        callFor(client, "steady-model", Duration.ofMillis(300));
+        assertEquals(0.0, rejected("slowing-model"), "calls were shed before the slowdown");
+        assertEquals(CALLERS, limit("slowing-model"));
+
+        models.latencyMillis.put("slowing-model", 100L);
+        try (ExecutorService both = Executors.newVirtualThreadPerTaskExecutor()) {
+            var slowing = both.submit(() -> callFor(client, "slowing-model", Duration.ofSeconds(2)));
+            var steady = both.submit(() -> callFor(client, "steady-model", Duration.ofSeconds(2)));
+            slowing.get();
+            steady.get();
+        }
+
+        assertTrue(limit("slowing-model") < CALLERS, "limit stayed at " + limit("slowing-model"));
+        assertTrue(rejected("slowing-model") > 0, "no call was shed while the model was slow");
+        assertTrue(models.maxInFlight("slowing-model") <= CALLERS);
+        assertEquals(0.0, rejected("steady-model"), "the steady model shed calls");
+        assertEquals(CALLERS, limit("steady-model"));
+    }
+
+    private LlmClient client() {
+        return new ConcurrencyLimitedLlmClient(models, properties, new RecommendationMetrics(registry));
+    }
+
+    /**
+     * Keeps every caller calling the model until the duration has passed, ignoring rejections.
+     */
+    private static Void callFor(LlmClient client, String model, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                callers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            client.createObject(LlmCall.of("rank", model, ""), String.class);
+                        } catch (AdaptiveLimiter.RejectedException e) {
+                            Thread.sleep(1);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return null;
+    }
+
+    private void awaitInFlight(String model, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (models.inFlight(model) < calls) {
+            assertTrue(System.nanoTime() < deadline, "calls did not reach the model");
+            Thread.sleep(1);
+        }
+    }
+
+    private int limit(String model) {
+        return (int) registry.find("book.recommendation.llm.concurrency.limit").tag("model", model).gauge().value();
+    }
+
+    private double rejected(String model) {
+        var counter = registry.find("book.recommendation.llm.concurrency.rejected").tag("model", model)
+                .functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * Answers with the model's name after the model's latency, or once its blocker is released.
+     */
+    private static final class SlowLlmClient implements LlmClient {
+
+        final Map<String, Long> latencyMillis = new ConcurrentHashMap<>();
+        final Map<String, CountDownLatch> blockers = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> maxInFlight = new ConcurrentHashMap<>();
+
+        @Override
+        public <T> T createObject(LlmCall call, Class<T> type) {
+            return type.cast(answer(call));
+        }
+
+        @Override
+        public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+            return type.cast(answer(call));
+        }
+
+        @Override
+        public String streamText(LlmCall call, Consumer<String> chunks) {
+            String text = answer(call);
+            chunks.accept(text);
+            return text;
+        }
+
+        int inFlight(String model) {
+            return inFlight.computeIfAbsent(model, key -> new AtomicInteger()).get();
+        }
+
+        long maxInFlight(String model) {
+            return maxInFlight.computeIfAbsent(model, key -> new AtomicLong()).get();
+        }
+
+        private String answer(LlmCall call) {
+            String model = call.model() != null ? call.model() : "default";
+            int calls = inFlight.computeIfAbsent(model, key -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(model, key -> new AtomicLong()).accumulateAndGet(calls, Math::max);
+            try {
+                CountDownLatch blocker = blockers.get(model);
+                if (blocker != null) {
+                    blocker.await();
+                }
+                Thread.sleep(latencyMillis.getOrDefault(model, 0L));
+                return model;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.get(model).decrementAndGet();
+            }
+        }
+    }
+}
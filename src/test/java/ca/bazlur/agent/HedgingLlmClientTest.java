@@ -0,0 +1,305 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.metrics.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingLlmClientTest {
+
+    private static final String PRIMARY = "primary";
+    private static final String ALTERNATE = "alternate";
+    private static final int MIN_SAMPLES = 5;
+    private static final Duration MIN_DELAY = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StubLlmClient models = new StubLlmClient();
+    private HedgingLlmClient client;
+
+    @AfterEach
+    void closeClient() {
+        client.close();
+    }
+
+    @BeforeEach
+    void createClient() {
+        var properties = new BookRecommendationProperties();
+        var hedging = properties.getModelRouting().getHedging();
+        hedging.getAlternates().put(PRIMARY, ALTERNATE);
+        hedging.setPercentile(0.95);
+        hedging.setMinSamples(MIN_SAMPLES);
+        hedging.setMinDelay(MIN_DELAY);
+        client = new HedgingLlmClient(models, properties, new RecommendationMetrics(registry));
+    }
+
+    @Test
+    void doesNotHedgeUntilEnoughLatenciesAreKnown() {
+        models.answer(PRIMARY, Duration.ofMillis(300));
+        models.answer(ALTERNATE, Duration.ZERO);
+
+        assertEquals(PRIMARY, client.createObject(call(), String.class));
+        assertEquals(List.of(PRIMARY), models.calls);
+    }
+
+    @Test
+    void returnsAFastPrimaryWithoutSendingTheHedge() {
+        warmUp();
+        models.answer(ALTERNATE, Duration.ZERO);
+
+        assertEquals(PRIMARY, client.createObject(call(), String.class));
+        assertEquals(List.of(PRIMARY), models.calls);
+    }
+
+    @Test
+    void returnsTheAlternateAndCancelsASlowPrimary() throws InterruptedException {
+        warmUp();
+        var primaryCancelled = new CountDownLatch(1);
+        models.answer(PRIMARY, Duration.ofSeconds(30), primaryCancelled);
+        models.answer(ALTERNATE, Duration.ofMillis(10));
+
+        long start = System.nanoTime();
+        assertEquals(ALTERNATE, client.createObject(call(), String.class));
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= MIN_DELAY.toNanos(), "hedged before the latency budget");
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5), "waited for the slow primary");
+        assertEquals(List.of(PRIMARY, ALTERNATE), models.calls);
+        assertTrue(primaryCancelled.await(5, TimeUnit.SECONDS), "slow primary was not cancelled");
+        assertEquals(1.0, hedges(ALTERNATE), 0.0);
+    }
+
+    @Test
+    void returnsTheAlternateWhenThePrimaryFailsAfterTheHedgeIsSent() {
+        warmUp();
+        models.fail(PRIMARY, Duration.ofMillis(200), new IllegalStateException("primary failed"));
+        models.answer(ALTERNATE, Duration.ofMillis(400));
+
+        assertEquals(ALTERNATE, client.createObject(call(), String.class));
+        assertEquals(List.of(PRIMARY, ALTERNATE), models.calls);
+        assertEquals(1.0, hedges(ALTERNATE), 0.0);
+    }
+
+    @Test
+    void reportsThePrimaryFailureWhenBothFail() {
+        warmUp();
+        models.fail(PRIMARY, Duration.ofMillis(200), new IllegalStateException("primary failed"));
+        models.fail(ALTERNATE, Duration.ZERO, new IllegalStateException("alternate failed"));
+
+        var failure = assertThrows(IllegalStateException.class, () -> client.createObject(call(), String.class));
+
+        assertEquals("primary failed", failure.getMessage());
+        assertEquals(List.of(PRIMARY, ALTERNATE), models.calls);
+    }
+
+    @Test
+    void rethrowsAPrimaryFailureWithinTheBudgetWithoutHedging() {
+        warmUp();
+        models.fail(PRIMARY, Duration.ofMillis(10), new IllegalStateException("primary failed"));
+        models.answer(ALTERNATE, Duration.ZERO);
+
+        var failure = assertThrows(IllegalStateException.class, () -> client.createObject(call(), String.class));
+
+        assertEquals("primary failed", failure.getMessage());
+        assertEquals(List.of(PRIMARY), models.calls);
+    }
+
+    @Test
+    void tagsHedgesOfTheDefaultModelWithItsName() {
+        var properties = new BookRecommendationProperties();
+        var hedging = properties.getModelRouting().getHedging();
+        hedging.getAlternates().put(ConcurrencyLimitedLlmClient.DEFAULT_MODEL, ALTERNATE);
+        hedging.setMinSamples(MIN_SAMPLES);
+        hedging.setMinDelay(MIN_DELAY);
+        var defaultClient = new HedgingLlmClient(models, properties, new RecommendationMetrics(registry));
+        var call = LlmCall.of("recommendSimilarBooks", null, "prompt");
+        models.answer(ConcurrencyLimitedLlmClient.DEFAULT_MODEL, Duration.ofMillis(5));
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            defaultClient.createObject(call, String.class);
+        }
+        models.answer(ConcurrencyLimitedLlmClient.DEFAULT_MODEL, Duration.ofSeconds(30));
+        models.answer(ALTERNATE, Duration.ZERO);
+
+        assertEquals(ALTERNATE, defaultClient.createObject(call, String.class));
+
+        var counter = registry.find("book.recommendation.llm.hedged")
+                .tag("model", ConcurrencyLimitedLlmClient.DEFAULT_MODEL).tag("winner", ALTERNATE).counter();
+        assertNotNull(counter, "hedge not tagged with the default model");
+        assertEquals(1.0, counter.count(), 0.0);
+        defaultClient.close();
+    }
+
+    @Test
+    void closingInterruptsRunningCalls() throws Exception {
+        warmUp();
+        var primaryInterrupted = new CountDownLatch(1);
+        models.answer(PRIMARY, Duration.ofSeconds(30), primaryInterrupted);
+        models.answer(ALTERNATE, Duration.ofSeconds(30));
+        var caller = Executors.newSingleThreadExecutor();
+        try {
+            var running = caller.submit(() -> client.createObject(call(), String.class));
+            while (!models.calls.contains(PRIMARY)) {
+                Thread.sleep(1);
+            }
+
+            client.close();
+
+            assertTrue(primaryInterrupted.await(5, TimeUnit.SECONDS), "running call was not interrupted");
+            var failure = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalStateException, String.valueOf(failure.getCause()));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void postProcessorClosesTheHedgingClientWithItsBean() {
+        var properties = new BookRecommendationProperties();
+        properties.getLlmConcurrency().setEnabled(false);
+        var hedging = properties.getModelRouting().getHedging();
+        hedging.setEnabled(true);
+        hedging.getAlternates().put(PRIMARY, ALTERNATE);
+        hedging.setMinSamples(MIN_SAMPLES);
+        var postProcessor = new LlmClientPostProcessor(() -> properties, () -> new RecommendationMetrics(registry));
+
+        var decorated = (LlmClient) postProcessor.postProcessAfterInitialization(models, "llmClient");
+        models.answer(PRIMARY, Duration.ofMillis(5));
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            decorated.createObject(call(), String.class);
+        }
+        assertTrue(postProcessor.requiresDestruction(models));
+        postProcessor.postProcessBeforeDestruction(models, "llmClient");
+
+        assertThrows(RejectedExecutionException.class, () -> decorated.createObject(call(), String.class));
+    }
+
+    @Test
+    void doesNotHedgeModelsWithoutAnAlternate() {
+        models.answer("other", Duration.ZERO);
+        for (int i = 0; i < MIN_SAMPLES * 2; i++) {
+            assertEquals("other", client.createObject(LlmCall.of("action", "other", "prompt"), String.class));
+        }
+        assertEquals(MIN_SAMPLES * 2, models.calls.size());
+    }
+
+    @Test
+    void budgetIsThePercentileOfRecentLatencies() {
+        var latencies = new HedgingLlmClient.Latencies();
+        assertEquals(-1, latencies.budget(0.95, 1, 0));
+
+        for (int millis = 100; millis >= 1; millis--) {
+            latencies.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(95), latencies.budget(0.95, 20, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), latencies.budget(0.5, 20, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), latencies.budget(1.0, 20, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), latencies.budget(0.0, 20, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), latencies.budget(0.95, 20, TimeUnit.MILLISECONDS.toNanos(200)));
+        assertEquals(-1, latencies.budget(0.95, 101, 0));
+    }
+
+    @Test
+    void budgetOnlyCountsTheLatestLatencies() {
+        var latencies = new HedgingLlmClient.Latencies();
+        for (int i = 0; i < 1_000; i++) {
+            latencies.record(TimeUnit.SECONDS.toNanos(10));
+        }
+        for (int i = 0; i < 256; i++) {
+            latencies.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), latencies.budget(1.0, 20, 0));
+    }
+
+    /**
+     * Makes enough fast primary calls for hedging to start, with a budget of the minimum delay.
+     */
+    private void warmUp() {
+        models.answer(PRIMARY, Duration.ofMillis(5));
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            client.createObject(call(), String.class);
+        }
+        models.calls.clear();
+    }
+
+    private static LlmCall call() {
+        return LlmCall.of("recommendSimilarBooks", PRIMARY, "prompt");
+    }
+
+    private double hedges(String winner) {
+        var counter = registry.find("book.recommendation.llm.hedged").tag("winner", winner).counter();
+        assertNotNull(counter, "no hedge recorded for " + winner);
+        return counter.count();
+    }
+
+    /**
+     * Answers with the model's name, or fails, after a per-model delay.
+     */
+    private static final class StubLlmClient implements LlmClient {
+
+        private record Behavior(Duration delay, RuntimeException failure, CountDownLatch interrupted) {
+        }
+
+        private final Map<String, Behavior> behaviors = new ConcurrentHashMap<>();
+        final List<String> calls = new CopyOnWriteArrayList<>();
+
+        void answer(String model, Duration delay) {
+            answer(model, delay, new CountDownLatch(1));
+        }
+
+        void answer(String model, Duration delay, CountDownLatch interrupted) {
+            behaviors.put(model, new Behavior(delay, null, interrupted));
+        }
+
+        void fail(String model, Duration delay, RuntimeException failure) {
+            behaviors.put(model, new Behavior(delay, failure, new CountDownLatch(1)));
+        }
+
+        @Override
+        public <T> T createObject(LlmCall call, Class<T> type) {
+            String model = call.model() != null ? call.model() : ConcurrencyLimitedLlmClient.DEFAULT_MODEL;
+            calls.add(model);
+            Behavior behavior = behaviors.get(model);
+            try {
+                Thread.sleep(behavior.delay());
+            } catch (InterruptedException e) {
+                behavior.interrupted().countDown();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            }
+            if (behavior.failure() != null) {
+                throw behavior.failure();
+            }
+            return type.cast(model);
+        }
+
+        @Override
+        public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+            return createObject(call, type);
+        }
+
+        @Override
+        public String streamText(LlmCall call, Consumer<String> chunks) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
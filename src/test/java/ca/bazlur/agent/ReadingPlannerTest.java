@@ -0,0 +1,169 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.BookRecommendation;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.model.ReadingList;
+import ca.bazlur.model.RecommendationConfidence;
+import ca.bazlur.repository.BookRepositoryImpl;
+import ca.bazlur.repository.SimilarBookIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans from a small catalog at the default 40 pages an hour, without the similarity index,
+ * so candidates are the best-rated books of the theme's genre.
+ */
+class ReadingPlannerTest {
+
+    private static final List<Book> CATALOG = List.of(
+            new Book("Five Hours", "Author A", BookGenre.MYSTERY, "mystery-1", 200, "", 5.0),
+            new Book("Seven and a Half Hours", "Author B", BookGenre.MYSTERY, "mystery-2", 300, "", 4.8),
+            new Book("Two and a Half Hours", "Author C", BookGenre.MYSTERY, "mystery-3", 100, "", 4.5),
+            new Book("Twenty Five Hours", "Author D", BookGenre.MYSTERY, "mystery-4", 1_000, "", 4.0),
+            new Book("Twenty Hours", "Author E", BookGenre.FANTASY, "fantasy-1", 800, "", 4.9));
+
+    @TempDir
+    Path directory;
+
+    private BookRecommendationProperties properties;
+    private BookRepositoryImpl repository;
+
+    @BeforeEach
+    void loadCatalog() throws IOException {
+        StringBuilder catalog = new StringBuilder();
+        for (Book book : CATALOG) {
+            catalog.append(String.format(Locale.ROOT,
+                    "{\"title\":\"%s\",\"author\":\"%s\",\"genre\":\"%s\",\"isbn\":\"%s\","
+                            + "\"pageCount\":%d,\"description\":\"\",\"averageRating\":%.1f}%n",
+                    book.title(), book.author(), book.genre(), book.isbn(), book.pageCount(), book.averageRating()));
+        }
+        Path books = Files.writeString(directory.resolve("books.jsonl"), catalog);
+
+        properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("file:" + books);
+        properties.setCatalogSnapshotPath("");
+        properties.getSimilarity().setEnabled(false);
+        repository = new BookRepositoryImpl(properties);
+    }
+
+    @Test
+    void fillsTheTimeframeBestRatedFirstAndSchedulesEachWeek() {
+        ReadingList list = planner().plan("mystery", 3).orElseThrow();
+
+        // 5 + 7.5 + 2.5 hours fill three 5-hour weeks exactly; the 25-hour book does not fit
+        assertEquals(List.of("Five Hours", "Seven and a Half Hours", "Two and a Half Hours"), titles(list));
+        assertEquals(3, list.estimatedCompletionWeeks());
+        assertEquals("Mystery: a 3-week reading plan", list.listName());
+        assertEquals("3 books, about 15 hours at 5 hours a week, finishing within the 3 weeks available. "
+                + "Week 1: Five Hours; Weeks 2-3: Seven and a Half Hours; Week 3: Two and a Half Hours.",
+                list.description());
+        assertEquals(List.of(5, 8, 3), list.books().stream().map(BookRecommendation::estimatedReadingTimeHours).toList());
+        assertTrue(list.books().get(1).reasonForRecommendation().startsWith("Weeks 2-3 of the plan, about 8 hours"),
+                list.books().get(1).reasonForRecommendation());
+    }
+
+    @Test
+    void plansAtLeastOneWeek() {
+        ReadingList list = planner().plan("mystery", 0).orElseThrow();
+
+        assertEquals(List.of("Five Hours"), titles(list));
+        assertEquals(1, list.estimatedCompletionWeeks());
+    }
+
+    @Test
+    void fallsBackToTheShortestBookWhenNoneFits() {
+        ReadingList list = planner().plan("fantasy", 1).orElseThrow();
+
+        assertEquals(List.of("Twenty Hours"), titles(list));
+        assertEquals(4, list.estimatedCompletionWeeks());
+        assertTrue(list.description().contains("longer than the 1 week available"), list.description());
+        assertTrue(list.description().endsWith("Weeks 1-4: Twenty Hours."), list.description());
+    }
+
+    @Test
+    void stopsAtTheMaximumNumberOfBooks() {
+        properties.getReadingPlan().setMaxBooks(2);
+
+        ReadingList list = planner().plan("mystery", 10).orElseThrow();
+
+        assertEquals(List.of("Five Hours", "Seven and a Half Hours"), titles(list));
+    }
+
+    @Test
+    void countsWeeksOfFractionalHours() {
+        properties.getReadingPlan().setHoursPerWeek(2.5);
+
+        ReadingList list = planner().plan("mystery", 3).orElseThrow();
+
+        // 5 hours take weeks 1-2, and the 2.5-hour book fills week 3 on its own
+        assertEquals(List.of("Five Hours", "Two and a Half Hours"), titles(list));
+        assertEquals(3, list.estimatedCompletionWeeks());
+        assertTrue(list.description().contains("at 2.5 hours a week"), list.description());
+        assertTrue(list.description().endsWith("Weeks 1-2: Five Hours; Week 3: Two and a Half Hours."),
+                list.description());
+    }
+
+    @Test
+    void rejectsHoursPerWeekThatAreNotPositive() {
+        for (double hours : new double[]{0, -5, Double.NaN, Double.POSITIVE_INFINITY}) {
+            properties.getReadingPlan().setHoursPerWeek(hours);
+            assertThrows(IllegalArgumentException.class, this::planner, "hours per week " + hours);
+        }
+    }
+
+    @Test
+    void findsNothingForAThemeWithoutMatchingBooks() {
+        assertTrue(planner().plan("poetry", 4).isEmpty());
+        assertTrue(planner().plan("something else entirely", 4).isEmpty());
+    }
+
+    @Test
+    void retimesListsFromCatalogPageCounts() {
+        var listed = new ReadingList("LLM list", "", List.of(
+                recommendation("mystery-2", 1),
+                recommendation("not-in-catalog", 6)), null, 1);
+        var empty = new ReadingList("Empty list", "", List.of(), null, 9);
+        var unknown = new ReadingList("Unknown list", "", null, null, 7);
+        var report = new BookRecommendationReport("summary", null, null, Arrays.asList(listed, empty, unknown),
+                null, null, null, null, null);
+
+        BookRecommendationReport retimed = planner().retime(report);
+
+        // 7.5 catalog hours and the LLM's 6 hours for the unknown book take three 5-hour weeks
+        assertEquals(List.of(3, 9, 7), retimed.curatedReadingLists().stream()
+                .map(ReadingList::estimatedCompletionWeeks).toList());
+        assertSame(listed.books(), retimed.curatedReadingLists().getFirst().books());
+        assertEquals("summary", retimed.personalizedSummary());
+        assertNull(planner().retime(null));
+    }
+
+    private ReadingPlanner planner() {
+        return new ReadingPlanner(properties, repository, new SimilarBookIndex(repository, properties));
+    }
+
+    private static BookRecommendation recommendation(String isbn, int hours) {
+        return new BookRecommendation("Title " + isbn, "Author", BookGenre.MYSTERY, isbn, 4.0, "", "",
+                RecommendationConfidence.MEDIUM, List.of(), hours);
+    }
+
+    private static List<String> titles(ReadingList list) {
+        return list.books().stream().map(BookRecommendation::title).toList();
+    }
+}
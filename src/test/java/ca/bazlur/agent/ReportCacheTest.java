@@ -0,0 +1,87 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.BookRecommendationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void keepsReportsInMemoryUnlessADirectoryIsConfigured() {
+        var properties = new BookRecommendationProperties();
+        assertEquals("", properties.getReportCache().getDirectory());
+
+        var cache = new ReportCache(properties);
+        var generated = new AtomicInteger();
+        cache.forSimilarBooks("Dune", "Frank Herbert", () -> report(generated.incrementAndGet()));
+        var cached = cache.forSimilarBooks("dune", "Frank Herbert", () -> report(generated.incrementAndGet()));
+
+        assertEquals(1, generated.get());
+        assertEquals("report 1", cached.personalizedSummary());
+    }
+
+    @Test
+    void createsTheConfiguredDirectoryForTheOwnerOnly() throws IOException {
+        Path directory = root.resolve("cache/reports");
+        var properties = propertiesWithDirectory(directory);
+
+        new ReportCache(properties).forThematicList("Space", 4, () -> report(1));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".json")).count());
+        }
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.getParent())));
+        }
+    }
+
+    @Test
+    void reloadsReportsFromTheConfiguredDirectory() {
+        var properties = propertiesWithDirectory(root.resolve("reports"));
+        new ReportCache(properties).forThematicList("Space", 4, () -> report(1));
+
+        var reloaded = new ReportCache(properties).forThematicList("space", 4, () -> report(2));
+
+        assertEquals("report 1", reloaded.personalizedSummary());
+    }
+
+    @Test
+    void callsTheGeneratorEveryTimeWhenDisabled() {
+        var properties = propertiesWithDirectory(root.resolve("reports"));
+        properties.getReportCache().setEnabled(false);
+        var cache = new ReportCache(properties);
+
+        cache.forThematicList("Space", 4, () -> report(1));
+        var second = cache.forThematicList("Space", 4, () -> report(2));
+
+        assertEquals("report 2", second.personalizedSummary());
+        assertTrue(Files.notExists(root.resolve("reports")));
+    }
+
+    private static BookRecommendationProperties propertiesWithDirectory(Path directory) {
+        var properties = new BookRecommendationProperties();
+        properties.getReportCache().setDirectory(directory.toString());
+        return properties;
+    }
+
+    private static BookRecommendationReport report(int number) {
+        return new BookRecommendationReport("report " + number, null, null, null, null, null, null,
+                LocalDate.now().plusDays(3), null);
+    }
+}
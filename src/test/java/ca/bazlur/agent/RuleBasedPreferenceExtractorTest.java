@@ -0,0 +1,95 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.model.UserPreferences;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy and latency of the rule-based fast path over the hand-labeled inputs in
+ * {@code preference-samples.tsv}. Every labeled input must be extracted exactly as labeled and
+ * every unlabeled one left to the LLM; the average extraction time is logged, not asserted.
+ */
+class RuleBasedPreferenceExtractorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleBasedPreferenceExtractorTest.class);
+
+    private record Sample(String input, UserPreferences expected) {
+    }
+
+    private final RuleBasedPreferenceExtractor extractor = new RuleBasedPreferenceExtractor();
+
+    @Test
+    void extractsEveryLabeledSampleAndLeavesTheRestToTheLlm() throws IOException {
+        List<Sample> samples = samples();
+        List<String> mistakes = new ArrayList<>();
+        int extracted = 0;
+        for (Sample sample : samples) {
+            Optional<UserPreferences> preferences = extractor.extract(sample.input());
+            if (sample.expected() == null) {
+                preferences.ifPresent(found -> mistakes.add("extracted " + found + " from: " + sample.input()));
+            } else if (preferences.isEmpty()) {
+                mistakes.add("left to the LLM: " + sample.input());
+            } else if (!preferences.get().equals(sample.expected())) {
+                mistakes.add("extracted " + preferences.get() + " from: " + sample.input());
+            } else {
+                extracted++;
+            }
+        }
+
+        logger.info("Extracted {} of {} samples locally", extracted, samples.size());
+        assertTrue(mistakes.isEmpty(), String.join("\n", mistakes));
+    }
+
+    @Test
+    void measuresExtractionLatency() throws IOException {
+        List<Sample> samples = samples();
+        int warmup = 100_000;
+        int runs = 200_000;
+        int found = 0;
+        for (int i = 0; i < warmup; i++) {
+            found += extractor.extract(samples.get(i % samples.size()).input()).isPresent() ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            found += extractor.extract(samples.get(i % samples.size()).input()).isPresent() ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        logger.info("Average extraction time {} ns over {} runs", elapsed / runs, runs);
+        assertTrue(found > 0);
+    }
+
+    private static List<Sample> samples() throws IOException {
+        var resource = RuleBasedPreferenceExtractorTest.class.getResourceAsStream("/preference-samples.tsv");
+        assertNotNull(resource, "preference-samples.tsv is missing");
+        List<Sample> samples = new ArrayList<>();
+        try (var reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                assertEquals(4, fields.length, line);
+                UserPreferences expected = fields[1].isEmpty()
+                        ? null
+                        : new UserPreferences(fields[1], fields[2], fields[3], null);
+                samples.add(new Sample(fields[0], expected));
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,43 @@
+package ca.bazlur.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimilarBooksBatcherTest {
+
+    @Test
+    void ordersAnswersByTheirRequestNumber() {
+        Map<String, String> answers = Map.of("Request 2", "b", "1", "a", "request_3:", "c");
+
+        assertEquals(List.of("a", "b", "c"), SimilarBooksBatcher.byRequestNumber(answers, 3));
+    }
+
+    @Test
+    void readsOnlyALeadingOrTrailingNumber() {
+        Map<String, String> answers = Map.of(
+                "Request 1 (2nd ed)", "first",
+                "answer_2", "second",
+                "3. Dune, 2nd edition", "third");
+
+        assertEquals(List.of("first", "second", "third"), SimilarBooksBatcher.byRequestNumber(answers, 3));
+    }
+
+    @Test
+    void dropsKeysWithoutAUsableNumber() {
+        Map<String, String> answers = new HashMap<>();
+        answers.put("Dune (2nd ed) and more", "digits in the middle");
+        answers.put("Request 4", "out of range");
+        answers.put("Request 0", "zero");
+        answers.put("12345678901", "too long");
+        answers.put("", "empty");
+        answers.put(null, "null");
+
+        assertEquals(Arrays.asList(null, null, null), SimilarBooksBatcher.byRequestNumber(answers, 3));
+    }
+}
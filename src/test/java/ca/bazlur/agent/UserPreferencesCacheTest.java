@@ -0,0 +1,113 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.UserPreferences;
+import ca.bazlur.util.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserPreferencesCacheTest {
+
+    private final AtomicInteger extractions = new AtomicInteger();
+
+    @Test
+    void countsHitsAndMisses() {
+        var cache = new UserPreferencesCache(new BookRecommendationProperties());
+
+        UserPreferences first = cache.get("I love mysteries", this::extract);
+        UserPreferences second = cache.get("I love mysteries", this::extract);
+        cache.get("Fantasy on a rainy day", this::extract);
+
+        assertSame(first, second);
+        assertEquals(2, extractions.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void sharesOneExtractionAcrossCasingWhitespaceAndPunctuation() {
+        var cache = new UserPreferencesCache(new BookRecommendationProperties());
+
+        UserPreferences extracted = cache.get("I love mysteries, about 5 hours a week", this::extract);
+        for (String input : List.of(
+                "i love mysteries about 5 hours a week",
+                "  I LOVE   Mysteries!! About 5 hours a week.",
+                "I love mysteries -- about 5 hours a week?")) {
+            assertSame(extracted, cache.get(input, this::extract), input);
+        }
+
+        assertEquals(1, extractions.get());
+        assertEquals(3, cache.stats().hits());
+    }
+
+    @Test
+    void keepsDecimalPointsInTheKey() {
+        var cache = new UserPreferencesCache(new BookRecommendationProperties());
+
+        cache.get("2.5 hours a week", this::extract);
+        cache.get("25 hours a week", this::extract);
+        cache.get("2 5 hours a week", this::extract);
+
+        assertEquals(3, extractions.get());
+    }
+
+    @Test
+    void keysByTheModelExtractionIsRoutedTo() {
+        var properties = new BookRecommendationProperties();
+        var cache = new UserPreferencesCache(properties);
+
+        cache.get("I love mysteries", this::extract);
+        properties.getModelRouting().getActions().put("extract-user-preferences", "another-model");
+        cache.get("I love mysteries", this::extract);
+
+        assertEquals(2, extractions.get());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedInput() {
+        var properties = new BookRecommendationProperties();
+        properties.getPreferenceCache().setMaxSize(2);
+        var cache = new UserPreferencesCache(properties);
+
+        cache.get("mystery", this::extract);
+        cache.get("fantasy", this::extract);
+        cache.get("mystery", this::extract);
+        cache.get("romance", this::extract);
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        cache.get("mystery", this::extract);
+        assertEquals(3, extractions.get());
+        cache.get("fantasy", this::extract);
+        assertEquals(4, extractions.get());
+    }
+
+    @Test
+    void doesNotCacheInputsTheExtractorCannotHandle() {
+        var cache = new UserPreferencesCache(new BookRecommendationProperties());
+
+        assertNull(cache.get("???", () -> {
+            extractions.incrementAndGet();
+            return null;
+        }));
+        cache.get("???", this::extract);
+
+        assertEquals(2, extractions.get());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    private UserPreferences extract() {
+        int extraction = extractions.incrementAndGet();
+        return new UserPreferences("Mystery", "curious", "5", "author " + extraction);
+    }
+}
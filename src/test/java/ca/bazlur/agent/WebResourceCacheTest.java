@@ -0,0 +1,108 @@
+package ca.bazlur.agent;
+
+import ca.bazlur.BookRecommendationProperties;
+import com.embabel.agent.domain.library.InternetResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebResourceCacheTest {
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    void concurrentRequestsForOneBookShareOneSearch() throws Exception {
+        var cache = new WebResourceCache(new BookRecommendationProperties());
+        var release = new CountDownLatch(1);
+        Supplier<List<InternetResource>> slowSearch = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return search();
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<List<InternetResource>> results = new ArrayList<>();
+        try {
+            List<Future<List<InternetResource>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(callers.submit(() -> cache.forBook("Dune", "Frank Herbert", "Science Fiction", slowSearch)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().coalesced() < 7) {
+                assertTrue(System.nanoTime() < deadline, "requests did not coalesce");
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<List<InternetResource>> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, searches.get());
+        for (List<InternetResource> result : results) {
+            assertSame(results.getFirst(), result);
+        }
+    }
+
+    @Test
+    void keysPreferencesByTheirCanonicalForms() {
+        var cache = new WebResourceCache(new BookRecommendationProperties());
+
+        var first = cache.forPreferences("Sci-Fi", "adventurous", "5 hours a week", this::search);
+        var second = cache.forPreferences("science fiction", "Adventurous", "5", this::search);
+        cache.forPreferences("fantasy", "adventurous", "5", this::search);
+
+        assertSame(first, second);
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void doesNotCacheEmptyResults() {
+        var cache = new WebResourceCache(new BookRecommendationProperties());
+
+        assertEquals(List.of(), cache.forBook("Dune", "Frank Herbert", "Science Fiction", () -> {
+            searches.incrementAndGet();
+            return List.of();
+        }));
+        cache.forBook("Dune", "Frank Herbert", "Science Fiction", this::search);
+        cache.forBook("Dune", "Frank Herbert", "Science Fiction", this::search);
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSearch() {
+        var properties = new BookRecommendationProperties();
+        properties.getWebResourceCache().setMaxSize(1);
+        var cache = new WebResourceCache(properties);
+
+        cache.forBook("Dune", "Frank Herbert", "Science Fiction", this::search);
+        cache.forBook("Emma", "Jane Austen", "Romance", this::search);
+        cache.forBook("Dune", "Frank Herbert", "Science Fiction", this::search);
+
+        assertEquals(3, searches.get());
+        assertEquals(2, cache.stats().evictions());
+    }
+
+    private List<InternetResource> search() {
+        int search = searches.incrementAndGet();
+        return List.of(new InternetResource("https://example.com/" + search, "result " + search));
+    }
+}
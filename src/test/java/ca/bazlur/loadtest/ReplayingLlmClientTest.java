@@ -0,0 +1,128 @@
+package ca.bazlur.loadtest;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.LlmCall;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.model.UserPreferences;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayingLlmClientTest {
+
+    private static final String STORY = "Once upon a time, a reader found the perfect book.";
+
+    @TempDir
+    Path directory;
+
+    private BookRecommendationProperties properties;
+
+    @BeforeEach
+    void writeRecordings() throws IOException {
+        Path recordings = Files.writeString(directory.resolve("recordings.jsonl"), """
+                {"action": "extractUserPreferences", "type": "UserPreferences", "response": {"favoriteGenre": "MYSTERY", "currentMood": "RELAXING", "readingTimePerWeek": "4", "authorInterest": null}}
+                {"action": "extractUserPreferences", "type": "UserPreferences", "response": {"favoriteGenre": "FANTASY", "currentMood": "ADVENTUROUS", "readingTimePerWeek": "6", "authorInterest": null}}
+
+                {"action": "refinePreferences", "type": "UserPreferences", "response": {"favoriteGenre": "POETRY", "currentMood": "REFLECTIVE", "readingTimePerWeek": "2", "authorInterest": "Mary Oliver"}}
+                {"action": "narrate", "type": "String", "response": "%s"}
+                """.formatted(STORY));
+        properties = new BookRecommendationProperties();
+        properties.getLlmReplay().setRecordings("file:" + recordings);
+        // no simulated latency, so the tests run at full speed
+        properties.getLlmReplay().setLatencyMedian(Duration.ZERO);
+    }
+
+    @Test
+    void replaysTheRecordingsOfTheCallingActionInTurn() {
+        var client = client();
+        var call = LlmCall.of("extractUserPreferences", null, "I like mysteries");
+
+        List<String> genres = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            genres.add(client.createObject(call, UserPreferences.class).favoriteGenre());
+        }
+
+        assertEquals(List.of("MYSTERY", "FANTASY", "MYSTERY"), genres);
+        assertEquals("POETRY", client.createObject(LlmCall.of("refinePreferences", null, ""), UserPreferences.class)
+                .favoriteGenre());
+    }
+
+    @Test
+    void fallsBackToAnyRecordingOfTheType() {
+        var preferences = client().createObject(LlmCall.of("unrecordedAction", null, ""), UserPreferences.class);
+
+        assertTrue(List.of("MYSTERY", "FANTASY", "POETRY").contains(preferences.favoriteGenre()),
+                preferences.favoriteGenre());
+    }
+
+    @Test
+    void reportsTypesWithoutARecording() {
+        var client = client();
+        var call = LlmCall.of("rankBooks", null, "");
+
+        var thrown = assertThrows(IllegalStateException.class, () -> client.createObject(call, Duration.class));
+
+        assertEquals("No recorded Duration response for rankBooks", thrown.getMessage());
+        assertNull(client.createObjectIfPossible(call, Duration.class));
+    }
+
+    @Test
+    void streamsTheRecordedTextInChunks() {
+        List<String> chunks = new ArrayList<>();
+
+        String text = client().streamText(LlmCall.of("narrate", null, ""), chunks::add);
+
+        assertEquals(STORY, text);
+        assertEquals(STORY, String.join("", chunks));
+        assertEquals((STORY.length() + 15) / 16, chunks.size());
+    }
+
+    @Test
+    void reportsActionsWithoutARecordingToStream() {
+        var client = client();
+
+        var thrown = assertThrows(IllegalStateException.class,
+                () -> client.streamText(LlmCall.of("summarize", null, ""), chunk -> {
+                }));
+
+        assertEquals("No recorded response for summarize", thrown.getMessage());
+    }
+
+    @Test
+    void failsAtTheConfiguredErrorRate() {
+        properties.getLlmReplay().setErrorRate(1.0);
+        var client = client();
+
+        assertThrows(ReplayingLlmClient.SimulatedLlmException.class,
+                () -> client.createObject(LlmCall.of("extractUserPreferences", null, ""), UserPreferences.class));
+        assertThrows(ReplayingLlmClient.SimulatedLlmException.class,
+                () -> client.streamText(LlmCall.of("narrate", null, ""), chunk -> {
+                }));
+    }
+
+    @Test
+    void fitsTheLatencyDistributionToItsMedianAndP99() {
+        assertEquals(0.0, ReplayingLlmClient.sigma(Duration.ofMillis(800), Duration.ofMillis(800)));
+        assertEquals(0.0, ReplayingLlmClient.sigma(Duration.ZERO, Duration.ofSeconds(2)));
+        // a p99 of e^2.3263 times the median is one standard deviation of the log
+        assertEquals(1.0, ReplayingLlmClient.sigma(Duration.ofMillis(100),
+                Duration.ofNanos(Math.round(100_000_000 * Math.exp(2.3263)))), 1e-6);
+    }
+
+    private ReplayingLlmClient client() {
+        return new ReplayingLlmClient(properties, new RecommendationMetrics(new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,126 @@
+package ca.bazlur.metrics;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.repository.BookQuery;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookRepositoryImpl;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryMetricsPostProcessorTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger registryLookups = new AtomicInteger();
+    private final RepositoryMetricsPostProcessor postProcessor = new RepositoryMetricsPostProcessor(() -> {
+        registryLookups.incrementAndGet();
+        return registry;
+    });
+
+    private BookRepository repository;
+
+    @BeforeEach
+    void loadCatalog() throws IOException {
+        Path books = Files.writeString(directory.resolve("books.jsonl"), """
+                {"title":"The Silent River","author":"A. Writer","genre":"MYSTERY","isbn":"isbn-1","pageCount":200,"description":"","averageRating":4.0}
+                {"title":"River of Stars","author":"B. Writer","genre":"MYSTERY","isbn":"isbn-2","pageCount":300,"description":"","averageRating":4.5}
+                {"title":"Stars Above","author":"C. Writer","genre":"FANTASY","isbn":"isbn-3","pageCount":400,"description":"","averageRating":3.5}
+                """);
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("file:" + books);
+        properties.setCatalogSnapshotPath("");
+        repository = new BookRepositoryImpl(properties);
+    }
+
+    @Test
+    void wrapsRepositoriesInAMeteredDecorator() {
+        Object processed = postProcessor.postProcessAfterInitialization(repository, "bookRepository");
+
+        assertTrue(processed instanceof MeteredBookRepository, String.valueOf(processed));
+        BookRepository metered = (BookRepository) processed;
+        assertEquals(repository.findByGenre(BookGenre.MYSTERY), metered.findByGenre(BookGenre.MYSTERY));
+        assertEquals(repository.findByIsbn("isbn-3"), metered.findByIsbn("isbn-3"));
+    }
+
+    @Test
+    void leavesOtherBeansAndMeteredRepositoriesAlone() {
+        Object other = new Object();
+        assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+        assertEquals(0, registryLookups.get(), "the registry was looked up for a bean that is not wrapped");
+
+        Object metered = postProcessor.postProcessAfterInitialization(repository, "bookRepository");
+        assertSame(metered, postProcessor.postProcessAfterInitialization(metered, "bookRepository"));
+    }
+
+    @Test
+    void timesEachOperationAndRecordsItsResultSize() {
+        var metered = (BookRepository) postProcessor.postProcessAfterInitialization(repository, "bookRepository");
+
+        metered.findByGenre(BookGenre.MYSTERY);
+        metered.findByGenre(BookGenre.FANTASY);
+        metered.findByIsbn("missing");
+        metered.findPage(BookQuery.all(), null, 2);
+        metered.save(new Book("New Book", "D. Writer", BookGenre.POETRY, "isbn-4", 90, "", 5.0));
+
+        assertEquals(2, timer("findByGenre", "success").count());
+        assertEquals(3.0, summary("findByGenre").totalAmount(), 1e-9);
+        assertEquals(0.0, summary("findByIsbn").totalAmount(), 1e-9);
+        assertEquals(2.0, summary("findPage").totalAmount(), 1e-9);
+        assertEquals(1, timer("save", "success").count());
+        assertEquals(4, repository.findAll().size());
+    }
+
+    @Test
+    void recordsFailedOperationsAsErrors() {
+        var metered = (BookRepository) postProcessor.postProcessAfterInitialization(repository, "bookRepository");
+
+        assertThrows(IllegalArgumentException.class, () -> metered.findPage(BookQuery.all(), "not a cursor", 10));
+
+        assertEquals(1, timer("findPage", "error").count());
+        assertNull(registry.find(MeteredBookRepository.QUERY_TIMER)
+                .tag("operation", "findPage").tag("outcome", "success").timer());
+        assertNull(summary("findPage"));
+    }
+
+    @Test
+    void passesStreamsThroughUntimed() {
+        var metered = (BookRepository) postProcessor.postProcessAfterInitialization(repository, "bookRepository");
+
+        try (var books = metered.stream(BookQuery.forGenre(BookGenre.MYSTERY))) {
+            assertEquals(List.of("isbn-1", "isbn-2"), books.map(Book::isbn).toList());
+        }
+        assertNull(registry.find(MeteredBookRepository.QUERY_TIMER).tag("operation", "stream").timer());
+    }
+
+    private Timer timer(String operation, String outcome) {
+        Timer timer = registry.find(MeteredBookRepository.QUERY_TIMER)
+                .tag("operation", operation).tag("outcome", outcome).timer();
+        assertNotNull(timer, operation + " was not timed");
+        return timer;
+    }
+
+    private DistributionSummary summary(String operation) {
+        return registry.find(MeteredBookRepository.RESULT_SIZE).tag("operation", operation).summary();
+    }
+}
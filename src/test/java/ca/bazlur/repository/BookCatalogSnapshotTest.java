@@ -0,0 +1,180 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookCatalogSnapshotTest {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int BOOKS = 3_000;
+    private static final long FINGERPRINT = 42;
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private BookCatalog catalog;
+
+    @BeforeEach
+    void writeSnapshot() throws IOException {
+        catalog = new BookCatalog();
+        for (int i = 0; i < BOOKS; i++) {
+            catalog.put(book(i, identifier(i)));
+        }
+        catalog.seal();
+        path = directory.resolve("catalog.snapshot");
+        BookCatalogSnapshot.write(catalog, path, FINGERPRINT);
+    }
+
+    @Test
+    void reopensEveryBookAndItsKeys() {
+        BookCatalog reopened = open();
+
+        assertEquals(BOOKS, reopened.size());
+        for (int id = 0; id < BOOKS; id++) {
+            assertEquals(catalog.book(id), reopened.book(id));
+            assertEquals(catalog.titleKey(id), reopened.titleKey(id));
+            assertEquals(catalog.authorKey(id), reopened.authorKey(id));
+        }
+    }
+
+    @Test
+    void answersQueriesLikeTheCatalogItWasWrittenFrom() {
+        BookCatalog reopened = open();
+
+        for (BookQuery query : List.of(
+                BookQuery.all(),
+                BookQuery.forGenre(BookGenre.MYSTERY),
+                BookQuery.forTitle("river"),
+                BookQuery.forTitle("of the 12"),
+                BookQuery.forAuthor("nakamura"),
+                BookQuery.forGenre(BookGenre.FANTASY).withMinRating(3.5).withPageCountRange(200, 600),
+                BookQuery.all().withMinRating(4.8).withTitle("garden"))) {
+            assertEquals(catalog.findByQuery(query), reopened.findByQuery(query), query.toString());
+            assertEquals(catalog.findPage(query, 0, 50), reopened.findPage(query, 0, 50), query.toString());
+        }
+    }
+
+    @Test
+    void findsBooksByEitherIsbnFormAndOtherIdsLiterally() {
+        BookCatalog reopened = open();
+
+        // book 0 is stored under its ISBN-13, books 1 and 37 under their ISBN-10s, book 2 under another id
+        assertEquals(Optional.of(catalog.book(0)), reopened.findByIsbn("9780000000002"));
+        assertEquals(Optional.of(catalog.book(0)), reopened.findByIsbn("978-0-00-000000-2"));
+        assertEquals(Optional.of(catalog.book(0)), reopened.findByIsbn("0000000000"));
+        assertEquals(Optional.of(catalog.book(1)), reopened.findByIsbn("0-00-000001-9"));
+        assertEquals(Optional.of(catalog.book(1)), reopened.findByIsbn("978 0 00 000001 9"));
+        assertEquals(Optional.of(catalog.book(37)), reopened.findByIsbn("0-00-000037-X"));
+        assertEquals(Optional.of(catalog.book(37)), reopened.findByIsbn("000000037x"));
+        assertEquals(Optional.of(catalog.book(2)), reopened.findByIsbn("catalog-2"));
+        for (int i = 0; i < BOOKS; i += 7) {
+            assertEquals(Optional.of(catalog.book(i)), reopened.findByIsbn(identifier(i)), identifier(i));
+        }
+
+        assertEquals(Optional.empty(), reopened.findByIsbn("CATALOG-2"));
+        assertEquals(Optional.empty(), reopened.findByIsbn("9780000000026"));
+        assertEquals(Optional.empty(), reopened.findByIsbn("catalog-" + BOOKS));
+    }
+
+    @Test
+    void keepsBooksSavedAfterOpeningOnTheHeap() {
+        BookCatalog reopened = open();
+        Book replaced = new Book("A New Title", "Someone Else", BookGenre.POETRY, "catalog-2", 90, "", 5.0);
+        Book added = book(BOOKS, "added-book");
+
+        BookCatalog next = reopened.copy();
+        next.put(replaced);
+        next.put(added);
+        next.seal();
+
+        assertEquals(Optional.of(replaced), next.findByIsbn("catalog-2"));
+        assertEquals(Optional.of(added), next.findByIsbn("added-book"));
+        assertEquals(List.of(replaced), next.findByQuery(BookQuery.forTitle("new title")));
+        assertEquals(Optional.of(catalog.book(2)), reopened.findByIsbn("catalog-2"));
+        assertEquals(BOOKS, reopened.size());
+    }
+
+    @Test
+    void rejectsASnapshotOfAnotherSource() {
+        assertNull(BookCatalogSnapshot.open(path, FINGERPRINT + 1));
+    }
+
+    @Test
+    void rejectsMissingAndTruncatedSnapshots() throws IOException {
+        assertNull(BookCatalogSnapshot.open(directory.resolve("missing.snapshot"), FINGERPRINT));
+
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.copy(path, truncated);
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) / 2);
+        }
+        assertNull(BookCatalogSnapshot.open(truncated, FINGERPRINT));
+    }
+
+    private BookCatalog open() {
+        BookCatalog reopened = BookCatalogSnapshot.open(path, FINGERPRINT);
+        assertNotNull(reopened, "snapshot could not be opened");
+        return reopened.seal();
+    }
+
+    /**
+     * Every third book gets a valid ISBN-13, an ISBN-10 or an identifier that is no ISBN.
+     */
+    private static String identifier(int i) {
+        return switch (i % 3) {
+            case 0 -> isbn13(i);
+            case 1 -> isbn10(i);
+            default -> "catalog-" + i;
+        };
+    }
+
+    private static String isbn13(int i) {
+        String digits = "978" + "%09d".formatted(i);
+        int sum = 0;
+        for (int d = 0; d < 12; d++) {
+            sum += (digits.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private static String isbn10(int i) {
+        String digits = "%09d".formatted(i);
+        int sum = 0;
+        for (int d = 0; d < 9; d++) {
+            sum += (digits.charAt(d) - '0') * (10 - d);
+        }
+        int check = (11 - sum % 11) % 11;
+        return digits + (check == 10 ? "X" : String.valueOf(check));
+    }
+
+    private static Book book(int i, String identifier) {
+        SplittableRandom random = new SplittableRandom(i);
+        String[] words = {"River", "Garden", "Harbor", "Letter", "Winter", "Island"};
+        String[] names = {"Nakamura", "Okafor", "Moreau", "Lindqvist", "Haddad"};
+        return new Book(
+                "The %s of the %d".formatted(words[random.nextInt(words.length)], i),
+                "Author %s %d".formatted(names[random.nextInt(names.length)], i / 10),
+                GENRES[random.nextInt(GENRES.length)],
+                identifier,
+                50 + random.nextInt(1_000),
+                "Book number %d, with a description of ünïcödé text".formatted(i),
+                random.nextInt(51) / 10.0);
+    }
+}
@@ -0,0 +1,37 @@
+package ca.bazlur.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookCursorTest {
+
+    @Test
+    void decodesThePositionItEncoded() {
+        for (int position : new int[]{0, 1, 255, 1_000_000, Integer.MAX_VALUE}) {
+            assertEquals(position, BookCursor.decode(BookCursor.encode(position)));
+        }
+        assertEquals(0, BookCursor.decode(null));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : List.of("", "not a cursor", "b1:5", "%%%", "YjE6NQ==x")) {
+            assertThrows(IllegalArgumentException.class, () -> BookCursor.decode(cursor), cursor);
+        }
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        for (String value : List.of("b1:-5", "b2:5", "b1:", "b1:5x", "b1:99999999999", "5")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+            assertThrows(IllegalArgumentException.class, () -> BookCursor.decode(cursor), value);
+        }
+    }
+}
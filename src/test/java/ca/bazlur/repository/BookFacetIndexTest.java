@@ -0,0 +1,105 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookFacetIndexTest {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int BOOKS = 5_000;
+
+    private final List<Book> books = new ArrayList<>();
+    private final BookFacetIndex index = new BookFacetIndex();
+
+    @Test
+    void candidatesNarrowedByTheQueryAreExactlyTheMatches() {
+        addRandomBooks();
+        List<BookQuery> queries = List.of(
+                BookQuery.forGenre(BookGenre.MYSTERY),
+                BookQuery.all().withMinRating(4.5),
+                BookQuery.all().withMinRating(4.25),
+                BookQuery.all().withPageCountRange(250, 420),
+                BookQuery.all().withPageCountRange(null, 99),
+                BookQuery.all().withPageCountRange(2_500, null),
+                BookQuery.forGenre(BookGenre.FANTASY).withMinRating(3.75).withPageCountRange(300, 700),
+                BookQuery.forGenre(BookGenre.POETRY).withMinRating(5.0));
+
+        for (BookQuery query : queries) {
+            RoaringBitmap candidates = index.candidates(query);
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < books.size(); id++) {
+                if (query.matches(books.get(id))) {
+                    expected.add(id);
+                    assertTrue(candidates.contains(id), "matching book " + id + " is not a candidate of " + query);
+                }
+            }
+            List<Integer> verified = new ArrayList<>();
+            candidates.forEach((int id) -> {
+                if (query.matches(books.get(id))) {
+                    verified.add(id);
+                }
+            });
+            assertEquals(expected, verified, query.toString());
+        }
+    }
+
+    @Test
+    void bucketsKeepBooksOnTheirBoundaries() {
+        add(book(BookGenre.HISTORY, 4.5, 100));
+        add(book(BookGenre.HISTORY, 4.49, 99));
+        add(book(BookGenre.HISTORY, 0.0, 5_000));
+
+        assertEquals(RoaringBitmap.bitmapOf(0), index.candidates(BookQuery.all().withMinRating(4.5)));
+        assertTrue(index.candidates(BookQuery.all().withPageCountRange(100, 199)).contains(0));
+        assertTrue(index.candidates(BookQuery.all().withPageCountRange(null, 99)).contains(1));
+        assertTrue(index.candidates(BookQuery.all().withPageCountRange(3_000, null)).contains(2));
+    }
+
+    @Test
+    void removedBooksAreNoLongerCandidates() {
+        Book book = book(BookGenre.TRAVEL, 4.0, 320);
+        add(book);
+        index.remove(0, book);
+
+        assertTrue(index.candidates(BookQuery.forGenre(BookGenre.TRAVEL)).isEmpty());
+        assertTrue(index.candidates(BookQuery.all().withMinRating(4.0)).isEmpty());
+        assertTrue(index.candidates(BookQuery.all().withPageCountRange(300, 400)).isEmpty());
+    }
+
+    @Test
+    void queryWithoutIndexedCriteriaHasNoCandidates() {
+        add(book(BookGenre.ART, 3.0, 150));
+
+        assertNull(index.candidates(BookQuery.all()));
+        assertNull(index.candidates(BookQuery.forAuthor("someone")));
+    }
+
+    private void addRandomBooks() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < BOOKS; i++) {
+            add(book(GENRES[random.nextInt(GENRES.length)],
+                    random.nextInt(51) / 10.0,
+                    1 + random.nextInt(3_000)));
+        }
+    }
+
+    private void add(Book book) {
+        index.add(books.size(), book);
+        books.add(book);
+    }
+
+    private Book book(BookGenre genre, double rating, int pageCount) {
+        int id = books.size();
+        return new Book("Title " + id, "Author " + id, genre, "isbn-" + id, pageCount, "", rating);
+    }
+}
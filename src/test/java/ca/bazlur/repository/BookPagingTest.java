@@ -0,0 +1,177 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages through the same catalog in {@link BookRepositoryImpl} and {@link ColumnarBookRepository}.
+ */
+class BookPagingTest {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int BOOKS = 1_000;
+
+    @TempDir
+    Path directory;
+
+    private List<BookRepository> repositories;
+
+    @BeforeEach
+    void loadCatalog() throws IOException {
+        StringBuilder catalog = new StringBuilder();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = book(i, "isbn-" + i);
+            catalog.append(String.format(Locale.ROOT,
+                    "{\"title\":\"%s\",\"author\":\"%s\",\"genre\":\"%s\",\"isbn\":\"%s\","
+                            + "\"pageCount\":%d,\"description\":\"\",\"averageRating\":%.1f}%n",
+                    book.title(), book.author(), book.genre(), book.isbn(), book.pageCount(), book.averageRating()));
+        }
+        Path books = Files.writeString(directory.resolve("books.jsonl"), catalog);
+
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("file:" + books);
+        properties.setCatalogSnapshotPath("");
+        repositories = List.of(new BookRepositoryImpl(properties), new ColumnarBookRepository(properties));
+    }
+
+    @Test
+    void pagesThroughEveryMatchInStreamOrder() {
+        for (BookRepository repository : repositories) {
+            for (BookQuery query : List.of(
+                    BookQuery.all(),
+                    BookQuery.forGenre(BookGenre.MYSTERY),
+                    BookQuery.all().withMinRating(4.0).withPageCountRange(100, 500))) {
+                for (int pageSize : new int[]{1, 7, 100, BOOKS, BOOKS + 1}) {
+                    List<Book> streamed;
+                    try (Stream<Book> books = repository.stream(query)) {
+                        streamed = books.toList();
+                    }
+                    assertEquals(streamed, pageThrough(repository, query, pageSize), query + ", page size " + pageSize);
+                    assertEquals(repository.findByQuery(query), streamed, query.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void endsWithoutACursorOnTheLastPage() {
+        for (BookRepository repository : repositories) {
+            // the catalog divides into exactly ten pages, so the tenth must not point to an empty eleventh
+            BookPage page = repository.findPage(BookQuery.all(), null, BOOKS / 10);
+            for (int pages = 1; pages < 10; pages++) {
+                assertTrue(page.hasNext(), "page " + pages);
+                page = repository.findPage(BookQuery.all(), page.nextCursor(), BOOKS / 10);
+            }
+            assertEquals(BOOKS / 10, page.books().size());
+            assertNull(page.nextCursor());
+
+            BookPage none = repository.findPage(BookQuery.forTitle("no such title"), null, 10);
+            assertTrue(none.books().isEmpty());
+            assertFalse(none.hasNext());
+        }
+    }
+
+    @Test
+    void rejectsMalformedCursorsAndPageSizes() {
+        for (BookRepository repository : repositories) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> repository.findPage(BookQuery.all(), "not a cursor", 10));
+            assertThrows(IllegalArgumentException.class,
+                    () -> repository.findPage(BookQuery.all(), BookCursor.encode(5).substring(1), 10));
+            assertThrows(IllegalArgumentException.class,
+                    () -> repository.findPage(BookQuery.all(), null, 0));
+        }
+    }
+
+    @Test
+    void resumesFromACursorWhileBooksAreSaved() throws InterruptedException {
+        for (BookRepository repository : repositories) {
+            AtomicBoolean paging = new AtomicBoolean(true);
+            AtomicInteger added = new AtomicInteger();
+            Thread writer = Thread.ofPlatform().start(() -> {
+                SplittableRandom random = new SplittableRandom(7);
+                while (paging.get()) {
+                    int i = random.nextInt(BOOKS);
+                    repository.save(book(i + 1, "isbn-" + i));
+                    repository.save(book(BOOKS + added.get(), "added-" + added.getAndIncrement()));
+                }
+            });
+
+            List<String> seen = new ArrayList<>();
+            try {
+                while (added.get() == 0) {
+                    Thread.onSpinWait();
+                }
+                BookPage page = repository.findPage(BookQuery.all(), null, 37);
+                seen.addAll(isbns(page));
+                // stop before the writer's additions could keep the last page from ever arriving
+                while (page.hasNext() && seen.size() < BOOKS) {
+                    page = repository.findPage(BookQuery.all(), page.nextCursor(), 37);
+                    seen.addAll(isbns(page));
+                }
+            } finally {
+                paging.set(false);
+                writer.join();
+            }
+
+            assertEquals(seen.size(), new HashSet<>(seen).size(), "a book was seen twice");
+            for (int i = 0; i < BOOKS; i++) {
+                // replaced books keep their place, so every book is seen once and in catalog order
+                assertEquals("isbn-" + i, seen.get(i));
+            }
+        }
+    }
+
+    private static List<Book> pageThrough(BookRepository repository, BookQuery query, int pageSize) {
+        List<Book> books = new ArrayList<>();
+        Set<String> cursors = new HashSet<>();
+        BookPage page = repository.findPage(query, null, pageSize);
+        books.addAll(page.books());
+        while (page.hasNext()) {
+            assertTrue(cursors.add(page.nextCursor()), "cursor repeated");
+            assertFalse(page.books().isEmpty(), "empty page before the last");
+            page = repository.findPage(query, page.nextCursor(), pageSize);
+            books.addAll(page.books());
+        }
+        return books;
+    }
+
+    private static List<String> isbns(BookPage page) {
+        return page.books().stream().map(Book::isbn).toList();
+    }
+
+    private static Book book(int i, String isbn) {
+        SplittableRandom random = new SplittableRandom(i);
+        return new Book(
+                "Title %d".formatted(i),
+                "Author %d".formatted(i / 10),
+                GENRES[random.nextInt(GENRES.length)],
+                isbn,
+                50 + random.nextInt(1_000),
+                "",
+                random.nextInt(51) / 10.0);
+    }
+}
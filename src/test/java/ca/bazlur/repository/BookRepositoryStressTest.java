@@ -0,0 +1,133 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs mixed {@code findByGenre}/{@code save} traffic against the repository on every core and
+ * checks that readers only ever see consistent catalogs. The cost of a save as the catalog
+ * grows is measured by {@code BookRepositoryBenchmark} instead.
+ */
+class BookRepositoryStressTest {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int OPERATIONS_PER_THREAD = 4_000;
+    private static final int SAVE_PERCENT = 10;
+
+    @Test
+    void concurrentReadersSeeConsistentCatalogsWhileBooksAreSaved() throws InterruptedException {
+        BookRepositoryImpl repository = repository();
+        int initialSize = repository.findAll().size();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Traffic traffic = run(repository, threads);
+
+        assertTrue(traffic.failures.isEmpty(), () -> "Readers saw inconsistent catalogs: " + traffic.failures);
+        assertEquals(initialSize + traffic.saved.size(), repository.findAll().size());
+        for (Book book : traffic.saved) {
+            assertTrue(repository.findByGenre(book.genre()).contains(book), "Saved book missing: " + book.isbn());
+        }
+    }
+
+    private static Traffic run(BookRepositoryImpl repository, int threads) throws InterruptedException {
+        Traffic traffic = new Traffic();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long isbnBase = (long) t * OPERATIONS_PER_THREAD;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    work(repository, isbnBase, traffic);
+                } catch (Throwable e) {
+                    traffic.failures.add(e.toString());
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return traffic;
+    }
+
+    private static void work(BookRepositoryImpl repository, long isbnBase, Traffic traffic) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Book> mine = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            if (random.nextInt(100) < SAVE_PERCENT) {
+                Book book = book(isbnBase + i);
+                repository.save(book);
+                traffic.saved.add(book);
+                mine.add(book);
+            } else {
+                BookGenre genre = GENRES[random.nextInt(GENRES.length)];
+                List<Book> found = repository.findByGenre(genre);
+                Set<String> isbns = new HashSet<>();
+                for (Book book : found) {
+                    if (book.genre() != genre) {
+                        traffic.failures.add("%s returned for %s".formatted(book.isbn(), genre));
+                    }
+                    if (!isbns.add(book.isbn())) {
+                        traffic.failures.add("%s returned twice for %s".formatted(book.isbn(), genre));
+                    }
+                }
+                // a thread always sees its own saves
+                for (Book own : mine) {
+                    if (own.genre() == genre && !isbns.contains(own.isbn())) {
+                        traffic.failures.add("%s missing after save".formatted(own.isbn()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static BookRepositoryImpl repository() {
+        BookRecommendationProperties properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("classpath:books.json");
+        properties.setCatalogSnapshotPath("");
+        return new BookRepositoryImpl(properties);
+    }
+
+    private static Book book(long isbn) {
+        return new Book(words(isbn, 3), words(isbn % 997, 2), GENRES[(int) (isbn % GENRES.length)],
+                "stress-%d".formatted(isbn), 80 + (int) (isbn % 1_100), "", 1 + isbn % 41 / 10.0);
+    }
+
+    /**
+     * Random words over the Latin Extended letters, so that saves keep adding distinct trigrams,
+     * like those of a multilingual catalog.
+     */
+    private static String words(long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder words = new StringBuilder();
+        for (int w = 0; w < count; w++) {
+            words.append(w == 0 ? "" : " ");
+            for (int c = 0; c < 6; c++) {
+                words.append((char) (0x100 + random.nextInt(0x150)));
+            }
+        }
+        return words.toString();
+    }
+
+    private static final class Traffic {
+
+        private final Set<Book> saved = ConcurrentHashMap.newKeySet();
+        private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    }
+}
@@ -0,0 +1,157 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Loads the same catalog into {@link ColumnarBookRepository} and {@link BookRepositoryImpl}
+ * and checks that both answer every lookup and query with the same books in the same order.
+ */
+class ColumnarBookRepositoryTest {
+
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final int BOOKS = 2_000;
+    private static final String[] WORDS = {"River", "Garden", "Harbor", "Letter", "Winter", "Island", "Café"};
+    private static final String[] NAMES = {"Nakamura", "Okafor", "Moreau", "Lindqvist", "Haddad", "Ørsted"};
+
+    @TempDir
+    Path directory;
+
+    private BookRepository indexed;
+    private BookRepository columnar;
+
+    @BeforeEach
+    void loadCatalog() throws IOException {
+        StringBuilder catalog = new StringBuilder();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = book(i, identifier(i));
+            catalog.append(String.format(Locale.ROOT,
+                    "{\"title\":\"%s\",\"author\":\"%s\",\"genre\":\"%s\",\"isbn\":\"%s\","
+                            + "\"pageCount\":%d,\"description\":\"%s\",\"averageRating\":%.1f}%n",
+                    book.title(), book.author(), book.genre(), book.isbn(),
+                    book.pageCount(), book.description(), book.averageRating()));
+        }
+        Path books = Files.writeString(directory.resolve("books.jsonl"), catalog);
+
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("file:" + books);
+        properties.setCatalogSnapshotPath("");
+        indexed = new BookRepositoryImpl(properties);
+        columnar = new ColumnarBookRepository(properties);
+    }
+
+    @Test
+    void loadsTheSameBooks() {
+        assertEquals(BOOKS, columnar.findAll().size());
+        assertEquals(indexed.findAll(), columnar.findAll());
+    }
+
+    @Test
+    void findsTheSameBooksByGenreTitleAndAuthor() {
+        assertSameAnswers();
+    }
+
+    @Test
+    void findsTheSameBooksByIsbn() {
+        for (int i = 0; i < BOOKS; i += 3) {
+            for (String isbn : List.of(identifier(i), isbn13(i), isbn10(i), "catalog-" + i, "CATALOG-" + i)) {
+                assertEquals(indexed.findByIsbn(isbn), columnar.findByIsbn(isbn), isbn);
+            }
+        }
+        assertFalse(columnar.findByIsbn(isbn10(3)).isEmpty());
+        assertEquals(indexed.findByIsbn("missing"), columnar.findByIsbn("missing"));
+    }
+
+    @Test
+    void answersTheSameAfterBooksAreReplacedAndAdded() {
+        for (BookRepository repository : List.of(indexed, columnar)) {
+            // book 3 is stored under its ISBN-13 and replaced under its ISBN-10
+            repository.save(new Book("A Winter Letter", "Someone Else", BookGenre.POETRY, isbn10(3), 90, "", 5.0));
+            repository.save(new Book("Changed Title", "Okafor 1", BookGenre.MYSTERY, "catalog-2", 300, "", 3.3));
+            repository.saveAll(List.of(book(BOOKS, "added-1"), book(BOOKS + 1, isbn13(BOOKS + 1))));
+        }
+
+        assertEquals(indexed.findAll(), columnar.findAll());
+        assertEquals(indexed.findByIsbn(isbn13(3)), columnar.findByIsbn(isbn13(3)));
+        assertSameAnswers();
+    }
+
+    private void assertSameAnswers() {
+        for (BookGenre genre : GENRES) {
+            assertEquals(indexed.findByGenre(genre), columnar.findByGenre(genre), genre.name());
+        }
+        for (String text : List.of("river", "of the 1", "café", "CAFÉ", "ga", "x", "no such words")) {
+            assertEquals(indexed.findByTitle(text), columnar.findByTitle(text), text);
+        }
+        for (String text : List.of("nakamura", "ørsted", "ØRSTED", "okafor 1", "o", "nobody")) {
+            assertEquals(indexed.findByAuthor(text), columnar.findByAuthor(text), text);
+        }
+        for (BookQuery query : List.of(
+                BookQuery.all(),
+                BookQuery.all().withMinRating(4.5),
+                BookQuery.all().withPageCountRange(250, 420),
+                BookQuery.all().withPageCountRange(null, 99),
+                BookQuery.forGenre(BookGenre.FANTASY).withMinRating(3.5).withPageCountRange(200, 600),
+                BookQuery.forGenre(BookGenre.MYSTERY).withAuthor("haddad").withTitle("harbor"))) {
+            assertEquals(indexed.findByQuery(query), columnar.findByQuery(query), query.toString());
+            assertEquals(indexed.findTopByQuery(query, Book::averageRating, 25),
+                    columnar.findTopByQuery(query, Book::averageRating, 25), query.toString());
+        }
+    }
+
+    /**
+     * Every third book gets a valid ISBN-13, an ISBN-10 or an identifier that is no ISBN.
+     */
+    private static String identifier(int i) {
+        return switch (i % 3) {
+            case 0 -> isbn13(i);
+            case 1 -> isbn10(i);
+            default -> "catalog-" + i;
+        };
+    }
+
+    private static String isbn13(int i) {
+        String digits = "978" + "%09d".formatted(i);
+        int sum = 0;
+        for (int d = 0; d < 12; d++) {
+            sum += (digits.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private static String isbn10(int i) {
+        String digits = "%09d".formatted(i);
+        int sum = 0;
+        for (int d = 0; d < 9; d++) {
+            sum += (digits.charAt(d) - '0') * (10 - d);
+        }
+        int check = (11 - sum % 11) % 11;
+        return digits + (check == 10 ? "X" : String.valueOf(check));
+    }
+
+    private static Book book(int i, String identifier) {
+        SplittableRandom random = new SplittableRandom(i);
+        return new Book(
+                "The %s of the %d".formatted(WORDS[random.nextInt(WORDS.length)], i),
+                "%s %d".formatted(NAMES[random.nextInt(NAMES.length)], i / 10),
+                GENRES[random.nextInt(GENRES.length)],
+                identifier,
+                50 + random.nextInt(1_000),
+                "Book number %d".formatted(i),
+                random.nextInt(51) / 10.0);
+    }
+}
@@ -0,0 +1,116 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recall of the HNSW graph against brute-force cosine similarity over books vectorized the
+ * way {@link SimilarBookIndex} does it.
+ */
+class HnswIndexTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HnswIndexTest.class);
+    private static final int CATALOG_SIZE = 3_000;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+
+    @Test
+    void rejectsFewerThanTwoLinks() {
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(0, 100));
+    }
+
+    @Test
+    void findsTheExactNeighborsOfMostQueries() {
+        assertTrue(recall(16, 64) >= 0.95, "recall below 0.95 with the default settings");
+    }
+
+    @Test
+    void buildsASearchableGraphWithTheFewestLinksAllowed() {
+        assertTrue(recall(2, 64) >= 0.3, "recall below 0.3 with two links per node");
+    }
+
+    @Test
+    void returnsNothingFromAnEmptyIndex() {
+        assertEquals(List.of(), new HnswIndex(16, 100).search(SparseVector.EMPTY, K, 64));
+    }
+
+    /**
+     * @return the share of the exact {@link #K} nearest neighbors the index finds, over
+     * {@link #QUERIES} catalog books used as queries
+     */
+    private static double recall(int maxLinks, int efSearch) {
+        List<SparseVector> vectors = catalogVectors();
+        var index = new HnswIndex(maxLinks, 100);
+        vectors.forEach(index::add);
+
+        var random = new SplittableRandom(7);
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            SparseVector query = vectors.get(random.nextInt(vectors.size()));
+            Set<Integer> exact = exactNeighbors(vectors, query);
+            for (HnswIndex.Candidate candidate : index.search(query, K, efSearch)) {
+                if (exact.contains(candidate.node())) {
+                    found++;
+                }
+            }
+        }
+        double recall = (double) found / (QUERIES * K);
+        logger.info("Recall@{} with {} links and ef {}: {}", K, maxLinks, efSearch, recall);
+        return recall;
+    }
+
+    private static Set<Integer> exactNeighbors(List<SparseVector> vectors, SparseVector query) {
+        Set<Integer> nearest = new HashSet<>();
+        IntStream.range(0, vectors.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer node) -> query.dot(vectors.get(node))).reversed())
+                .limit(K)
+                .forEach(nearest::add);
+        return nearest;
+    }
+
+    /**
+     * Books whose titles and descriptions draw most words from a per-genre pool, so they form
+     * overlapping clusters like a real catalog rather than uniformly random points.
+     */
+    private static List<SparseVector> catalogVectors() {
+        var random = new SplittableRandom(42);
+        BookGenre[] genres = BookGenre.values();
+        List<Book> books = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            BookGenre genre = genres[random.nextInt(genres.length)];
+            String title = words(random, genre, 3);
+            String description = words(random, genre, 20);
+            books.add(new Book(title, "Author " + i, genre, "isbn-" + i, 200, description, 4.0));
+        }
+
+        var vectorizer = new BookVectorizer();
+        books.forEach(vectorizer::count);
+        return books.stream().map(vectorizer::vectorize).toList();
+    }
+
+    private static String words(SplittableRandom random, BookGenre genre, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int word = random.nextInt(4) == 0 ? random.nextInt(2_000) : genre.ordinal() * 100 + random.nextInt(100);
+            words.append(i == 0 ? "" : " ").append("word").append(Integer.toString(word, 26));
+        }
+        return words.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package ca.bazlur.repository;
+
+import ca.bazlur.model.Book;
+import ca.bazlur.model.BookGenre;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKTest {
+
+    private static final BookScorer BY_RATING = Book::averageRating;
+
+    @Test
+    void keepsTheHighestScoresBestFirst() {
+        TopK top = new TopK(3, BY_RATING);
+        for (double rating : new double[]{2.0, 4.5, 1.0, 3.0, 5.0, 4.0}) {
+            top.offer(book("rated " + rating, rating));
+        }
+
+        assertEquals(List.of("rated 5.0", "rated 4.5", "rated 4.0"), titles(top.result()));
+    }
+
+    @Test
+    void keepsTheBooksOfferedFirstAmongEqualScores() {
+        TopK top = new TopK(3, BY_RATING);
+        top.offer(book("first tie", 4.0));
+        top.offer(book("low", 1.0));
+        top.offer(book("second tie", 4.0));
+        top.offer(book("best", 5.0));
+        top.offer(book("third tie", 4.0));
+        top.offer(book("fourth tie", 4.0));
+
+        assertEquals(List.of("best", "first tie", "second tie"), titles(top.result()));
+    }
+
+    @Test
+    void matchesAStableSortOfEveryBook() {
+        SplittableRandom random = new SplittableRandom(11);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // few distinct ratings, so most books tie with many others
+            books.add(book("book " + i, random.nextInt(11) / 2.0));
+        }
+
+        for (int k : new int[]{1, 10, 250, 5_000, 6_000}) {
+            TopK top = new TopK(k, BY_RATING);
+            books.forEach(top::offer);
+
+            List<Book> sorted = new ArrayList<>(books);
+            sorted.sort(Comparator.comparingDouble(Book::averageRating).reversed());
+            assertEquals(sorted.subList(0, Math.min(k, sorted.size())), top.result(), "k = " + k);
+        }
+    }
+
+    @Test
+    void keepsNothingForANonPositiveK() {
+        for (int k : new int[]{0, -1}) {
+            TopK top = new TopK(k, BY_RATING);
+            top.offer(book("ignored", 5.0));
+
+            assertEquals(List.of(), top.result());
+        }
+    }
+
+    private static Book book(String title, double rating) {
+        return new Book(title, "Author", BookGenre.FICTION, title, 200, "", rating);
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::title).toList();
+    }
+}
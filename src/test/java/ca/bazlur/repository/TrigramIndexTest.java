@@ -0,0 +1,133 @@
+package ca.bazlur.repository;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void findsCandidatesContainingEveryTrigram() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "the silent river");
+        index.add(2, "river of stars");
+        index.add(3, "stars above");
+
+        assertEquals(RoaringBitmap.bitmapOf(1, 2), index.candidates("river"));
+        assertEquals(RoaringBitmap.bitmapOf(2, 3), index.candidates("stars"));
+        assertEquals(new RoaringBitmap(), index.candidates("ocean"));
+        assertNull(index.candidates("ri"));
+    }
+
+    @Test
+    void candidatesIncludeEveryKeyContainingTheNeedle() {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 0; id < 2_000; id++) {
+            index.add(id, key(id));
+        }
+
+        for (String needle : List.of("key 1", "number 19", "er 7", "y a", "number 1999", "no such key")) {
+            RoaringBitmap candidates = index.candidates(needle);
+            for (int id = 0; id < 2_000; id++) {
+                if (key(id).contains(needle)) {
+                    assertTrue(candidates.contains(id), "'" + needle + "' misses key " + id);
+                }
+            }
+        }
+        assertTrue(index.candidates("no such key").isEmpty());
+    }
+
+    @Test
+    void removedKeysAreNoLongerCandidates() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "the silent river");
+        index.add(2, "river of stars");
+
+        index.remove(1, "the silent river");
+
+        assertEquals(RoaringBitmap.bitmapOf(2), index.candidates("river"));
+        assertEquals(new RoaringBitmap(), index.candidates("silent"));
+    }
+
+    @Test
+    void copyWritesOnlyTheBucketsItTouches() {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 0; id < KEYS; id++) {
+            index.add(id, key(id));
+        }
+        index.seal();
+
+        TrigramIndex copy = index.copy();
+        assertEquals(0, copy.unsharedBuckets());
+        String key = "a brand new key";
+        copy.add(KEYS, key);
+
+        int trigrams = key.length() - TrigramIndex.GRAM_LENGTH + 1;
+        assertTrue(copy.unsharedBuckets() <= trigrams,
+                () -> "One key unshared " + copy.unsharedBuckets() + " buckets");
+        assertEquals(RoaringBitmap.bitmapOf(KEYS), copy.candidates("brand new"));
+        assertEquals(new RoaringBitmap(), index.candidates("brand new"));
+    }
+
+    @Test
+    void copyDoesNotChangeItsSource() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "shared key");
+        index.seal();
+
+        TrigramIndex copy = index.copy();
+        copy.remove(1, "shared key");
+        copy.add(2, "shared key");
+
+        assertEquals(RoaringBitmap.bitmapOf(1), index.candidates("shared"));
+        assertEquals(RoaringBitmap.bitmapOf(2), copy.candidates("shared"));
+    }
+
+    @Test
+    void keepsEveryPostingWhileTheBucketTableGrows() {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 0; id < KEYS; id++) {
+            index.add(id, key(id));
+            if (id % 1_000 == 0) {
+                index.seal();
+                index = index.copy();
+            }
+        }
+
+        for (int id = 0; id < KEYS; id += 97) {
+            assertTrue(index.candidates(key(id)).contains(id), "Missing key " + id);
+        }
+    }
+
+    @Test
+    void roundTripsThroughItsSerializedForm() throws IOException {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 0; id < 2_000; id++) {
+            index.add(id, key(id));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        TrigramIndex read = TrigramIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        for (int id = 0; id < 2_000; id += 13) {
+            assertEquals(index.candidates(key(id)), read.candidates(key(id)));
+        }
+    }
+
+    private static String key(int id) {
+        return "key %s number %d".formatted(Integer.toString(id * 7919, 36), id);
+    }
+}
@@ -0,0 +1,197 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    private static final Duration LONG = Duration.ofSeconds(30);
+
+    @Test
+    void rejectsRightAwayWhenTheQueueIsFull() throws Exception {
+        var limiter = new AdaptiveLimiter(1, 1, 1, 1, LONG, 2.0, 0.2);
+        var release = new CountDownLatch(1);
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> running = callers.submit(() -> limiter.call(() -> await(release, "running")));
+            awaitStats(limiter, 1, 0);
+            Future<String> waiting = callers.submit(() -> limiter.call(() -> "waiting"));
+            awaitStats(limiter, 1, 1);
+
+            long start = System.nanoTime();
+            assertThrows(AdaptiveLimiter.RejectedException.class, () -> limiter.call(() -> "rejected"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "rejection waited for a permit");
+
+            release.countDown();
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+            assertEquals("waiting", waiting.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, limiter.stats().rejected());
+        assertEquals(2, limiter.stats().admitted());
+    }
+
+    @Test
+    void rejectsAQueuedCallOnceTheMaximumWaitRunsOut() throws Exception {
+        var limiter = new AdaptiveLimiter(1, 1, 1, 1, Duration.ofMillis(100), 2.0, 0.2);
+        var release = new CountDownLatch(1);
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> running = callers.submit(() -> limiter.call(() -> await(release, "running")));
+            awaitStats(limiter, 1, 0);
+
+            long start = System.nanoTime();
+            var rejection = assertThrows(AdaptiveLimiter.RejectedException.class, () -> limiter.call(() -> "late"));
+            long waited = System.nanoTime() - start;
+
+            assertTrue(rejection.getMessage().contains("100 ms"), rejection.getMessage());
+            assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(100), "rejected before the maximum wait");
+            assertTrue(waited < TimeUnit.SECONDS.toNanos(5), "waited well beyond the maximum wait");
+            assertEquals(0, limiter.stats().queued());
+
+            release.countDown();
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void rejectsAnInterruptedWaiterAndKeepsItsInterrupt() throws Exception {
+        var limiter = new AdaptiveLimiter(1, 1, 1, 2, LONG, 2.0, 0.2);
+        var release = new CountDownLatch(1);
+        var interruptKept = new AtomicBoolean();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> running = callers.submit(() -> limiter.call(() -> await(release, "running")));
+            awaitStats(limiter, 1, 0);
+            Future<String> interrupted = callers.submit(() -> {
+                try {
+                    return limiter.call(() -> "interrupted");
+                } finally {
+                    interruptKept.set(Thread.currentThread().isInterrupted());
+                }
+            });
+            awaitStats(limiter, 1, 1);
+
+            interrupted.cancel(true);
+            awaitStats(limiter, 1, 0);
+            release.countDown();
+
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(interruptKept.get(), "the waiter's interrupt was cleared");
+        assertEquals(1, limiter.stats().rejected());
+        assertEquals(0, limiter.stats().inFlight());
+    }
+
+    @Test
+    void passesAPermitOnWhenAWaiterIsInterruptedAsItIsReleased() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            var limiter = new AdaptiveLimiter(1, 1, 1, 2, LONG, 2.0, 0.2);
+            var release = new CountDownLatch(1);
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<String> running = callers.submit(() -> limiter.call(() -> await(release, "running")));
+                awaitStats(limiter, 1, 0);
+                Future<String> first = callers.submit(() -> limiter.call(() -> "first"));
+                awaitStats(limiter, 1, 1);
+                Future<String> second = callers.submit(() -> limiter.call(() -> "second"));
+                awaitStats(limiter, 1, 2);
+
+                // The permit may be signalled to the first waiter just as it is interrupted.
+                release.countDown();
+                first.cancel(true);
+
+                assertEquals("running", running.get(5, TimeUnit.SECONDS));
+                assertEquals("second", second.get(5, TimeUnit.SECONDS), "permit lost in round " + round);
+                try {
+                    first.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException | CancellationException ignored) {
+                    // rejected, or admitted before the interrupt arrived
+                }
+            }
+            assertEquals(0, limiter.stats().inFlight());
+            assertEquals(0, limiter.stats().queued());
+        }
+    }
+
+    @Test
+    void shrinksTheLimitAsLatencyRisesAndRecoversOnceItFalls() throws Exception {
+        var limiter = new AdaptiveLimiter(16, 1, 16, 100, LONG, 2.0, 0.2);
+
+        runConcurrently(limiter, 16, 20, 2);
+        assertEquals(16, limiter.stats().limit());
+
+        runConcurrently(limiter, 16, 10, 30);
+        int shrunk = limiter.stats().limit();
+        assertTrue(shrunk <= 8, "limit did not shrink under rising latency: " + shrunk);
+
+        runConcurrently(limiter, 16, 40, 2);
+        int recovered = limiter.stats().limit();
+        assertTrue(recovered > 8, "limit did not recover: " + shrunk + " -> " + recovered);
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 0, 1, 1, LONG, 2.0, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 2, 1, 1, LONG, 2.0, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 1, 1, 1, LONG, 0.5, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 1, 1, 1, LONG, 2.0, 0));
+    }
+
+    /**
+     * Runs {@code callers} threads making {@code calls} calls each that take {@code millis}.
+     */
+    private static void runConcurrently(AdaptiveLimiter limiter, int callers, int calls, long millis)
+            throws InterruptedException, ExecutionException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[callers];
+            for (int i = 0; i < callers; i++) {
+                futures[i] = executor.submit(() -> {
+                    for (int call = 0; call < calls; call++) {
+                        limiter.call(() -> sleep(millis));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private static void awaitStats(AdaptiveLimiter limiter, int inFlight, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.stats().inFlight() != inFlight || limiter.stats().queued() != queued) {
+            assertTrue(System.nanoTime() < deadline, "limiter never reached " + inFlight + " in flight, "
+                    + queued + " queued: " + limiter.stats());
+            Thread.sleep(1);
+        }
+    }
+
+    private static String await(CountDownLatch latch, String result) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ca.bazlur.util;
+
+import ca.bazlur.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookUtilTest {
+
+    private static final String BOOK = """
+            {"title":"Book %d","author":"Author","genre":"FICTION","isbn":"isbn-%d","pageCount":200,\
+            "description":"","averageRating":4.0}""";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsEveryShardMatchingThePattern() throws IOException {
+        Files.writeString(directory.resolve("books-1.jsonl"), lines(0, 3));
+        Files.writeString(directory.resolve("books-2.json"), "[" + BOOK.formatted(3, 3) + "]");
+
+        List<Book> books = new CopyOnWriteArrayList<>();
+        int loaded = BookUtil.loadBooks("file:" + directory + "/books-*", books::add);
+
+        assertEquals(4, loaded);
+        assertEquals(4, books.size());
+    }
+
+    @Test
+    void fallsBackToBuiltInBooksWhenTheCatalogDoesNotExist() {
+        List<Book> books = new CopyOnWriteArrayList<>();
+        int loaded = BookUtil.loadBooks("file:" + directory.resolve("missing.json"), books::add);
+
+        assertEquals(4, loaded);
+        assertEquals(4, books.size());
+    }
+
+    @Test
+    void failsInsteadOfMixingATruncatedShardWithFallbackBooks() throws IOException {
+        String truncated = lines(0, 2) + BOOK.formatted(2, 2).substring(0, 30);
+        Files.writeString(directory.resolve("books.jsonl"), truncated);
+
+        List<Book> books = new CopyOnWriteArrayList<>();
+        var failure = assertThrows(IllegalStateException.class,
+                () -> BookUtil.loadBooks("file:" + directory.resolve("books.jsonl"), books::add));
+
+        assertTrue(failure.getMessage().contains("books.jsonl"), failure.getMessage());
+        assertTrue(books.stream().noneMatch(book -> book.title().equals("The Midnight Library")),
+                "Fallback books were mixed into a partial catalog");
+    }
+
+    @Test
+    void failsWhenOneOfSeveralShardsIsBroken() throws IOException {
+        Files.writeString(directory.resolve("books-1.jsonl"), lines(0, 3));
+        Files.writeString(directory.resolve("books-2.jsonl"), lines(3, 3) + "{\"title\":");
+
+        assertThrows(IllegalStateException.class,
+                () -> BookUtil.loadBooks("file:" + directory + "/books-*.jsonl", book -> {
+                }));
+    }
+
+    private static String lines(int first, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = first; i < first + count; i++) {
+            lines.append(BOOK.formatted(i, i)).append('\n');
+        }
+        return lines.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringCacheTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        var cache = new ExpiringCache<String, Object>(10, Duration.ofMinutes(1));
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        Object loaded = new Object();
+
+        List<Object> results = callConcurrently(cache, release, key -> {
+            loads.incrementAndGet();
+            await(release);
+            return loaded;
+        });
+
+        assertEquals(1, loads.get());
+        for (Object result : results) {
+            assertSame(loaded, result);
+        }
+        assertEquals(CALLERS - 1, cache.stats().coalesced());
+        assertSame(loaded, cache.getIfPresent("key"));
+    }
+
+    @Test
+    void aFailedLoadReachesEveryWaiterAndIsNotCached() throws Exception {
+        var cache = new ExpiringCache<String, Object>(10, Duration.ofMinutes(1));
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var failure = new IllegalStateException("search failed");
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = submit(callers, cache, key -> {
+                loads.incrementAndGet();
+                await(release);
+                throw failure;
+            });
+            awaitCoalesced(cache, CALLERS - 1);
+            release.countDown();
+
+            for (Future<Object> future : futures) {
+                ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+                assertSame(failure, thrown.getCause());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertNull(cache.getIfPresent("key"));
+        assertEquals("retried", cache.get("key", key -> "retried"));
+    }
+
+    @Test
+    void doesNotCacheNullValues() {
+        var cache = new ExpiringCache<String, String>(10, Duration.ofMinutes(1));
+
+        assertNull(cache.get("key", key -> null));
+
+        assertEquals("loaded", cache.get("key", key -> "loaded"));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        var cache = new ExpiringCache<String, String>(2, Duration.ofMinutes(1));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.getIfPresent("a");
+
+        cache.put("c", "C");
+
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("A", cache.getIfPresent("a"));
+        assertEquals("C", cache.getIfPresent("c"));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() throws InterruptedException {
+        var cache = new ExpiringCache<String, String>(10, Duration.ofMillis(50));
+        cache.put("key", "value");
+        assertEquals("value", cache.getIfPresent("key"));
+
+        Thread.sleep(100);
+
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(1, cache.stats().expirations());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void givesEachValueItsOwnTimeToLive() throws InterruptedException {
+        var cache = new ExpiringCache<String, String>(10,
+                value -> value.startsWith("short") ? Duration.ofMillis(50) : Duration.ofMinutes(1));
+        cache.put("short", "short lived");
+        cache.put("long", "long lived");
+
+        Thread.sleep(100);
+
+        assertNull(cache.getIfPresent("short"));
+        assertEquals("long lived", cache.getIfPresent("long"));
+    }
+
+    @Test
+    void doesNotCacheValuesWithoutATimeToLive() {
+        var cache = new ExpiringCache<String, String>(10, value -> value.isEmpty() ? Duration.ZERO : null);
+
+        cache.put("empty", "");
+        cache.put("unknown", "value");
+
+        assertNull(cache.getIfPresent("empty"));
+        assertNull(cache.getIfPresent("unknown"));
+        assertEquals(0, cache.stats().size());
+    }
+
+    private static List<Object> callConcurrently(ExpiringCache<String, Object> cache, CountDownLatch release,
+                                                 Function<String, Object> loader) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = submit(callers, cache, loader);
+            awaitCoalesced(cache, CALLERS - 1);
+            release.countDown();
+
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static List<Future<Object>> submit(ExecutorService callers, ExpiringCache<String, Object> cache,
+                                               Function<String, Object> loader) {
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(callers.submit(() -> cache.get("key", loader)));
+        }
+        return futures;
+    }
+
+    /**
+     * Waits until every caller but the loading one is waiting for the load.
+     */
+    private static void awaitCoalesced(ExpiringCache<?, ?> cache, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.stats().coalesced() < waiters) {
+            assertTrue(System.nanoTime() < deadline, "callers did not coalesce");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
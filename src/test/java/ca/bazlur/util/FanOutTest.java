@@ -0,0 +1,202 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutTest {
+
+    private static final Duration LONG = Duration.ofSeconds(30);
+    private static final Duration SHORT = Duration.ofMillis(100);
+
+    @Test
+    void joinsTheResultsOfForkedBranches() {
+        try (var fanOut = FanOut.concurrent()) {
+            var first = fanOut.fork("first", LONG, () -> "a");
+            var second = fanOut.fork("second", LONG, () -> "b");
+
+            assertEquals("a", fanOut.join(first));
+            assertEquals("b", fanOut.join(second));
+        }
+    }
+
+    @Test
+    void joinTimesOutAndCancelsEveryBranch() throws InterruptedException {
+        var slowInterrupted = new CountDownLatch(1);
+        var otherInterrupted = new CountDownLatch(1);
+        try (var fanOut = FanOut.concurrent()) {
+            var slow = fanOut.fork("slow", SHORT, () -> sleepUntilInterrupted(slowInterrupted));
+            var otherStarted = new CountDownLatch(1);
+            fanOut.fork("other", LONG, () -> {
+                otherStarted.countDown();
+                return sleepUntilInterrupted(otherInterrupted);
+            });
+            assertTrue(otherStarted.await(5, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            var timeout = assertThrows(FanOut.BranchTimeoutException.class, () -> fanOut.join(slow));
+
+            assertTrue(timeout.getMessage().contains("slow"), timeout.getMessage());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "join did not time out");
+            assertTrue(slowInterrupted.await(5, TimeUnit.SECONDS), "timed-out branch was not cancelled");
+            assertTrue(otherInterrupted.await(5, TimeUnit.SECONDS), "other branch was not cancelled");
+        }
+    }
+
+    @Test
+    void failingJoinRethrowsAndCancelsEveryBranch() throws InterruptedException {
+        var otherStarted = new CountDownLatch(1);
+        var otherInterrupted = new CountDownLatch(1);
+        try (var fanOut = FanOut.concurrent()) {
+            fanOut.fork("other", LONG, () -> {
+                otherStarted.countDown();
+                return sleepUntilInterrupted(otherInterrupted);
+            });
+            assertTrue(otherStarted.await(5, TimeUnit.SECONDS));
+            var failing = fanOut.fork("failing", LONG, () -> {
+                throw new IllegalArgumentException("boom");
+            });
+
+            var failure = assertThrows(IllegalArgumentException.class, () -> fanOut.join(failing));
+
+            assertEquals("boom", failure.getMessage());
+            assertTrue(otherInterrupted.await(5, TimeUnit.SECONDS), "other branch was not cancelled");
+        }
+    }
+
+    @Test
+    void joinOrElseCancelsOnlyItsOwnBranch() throws InterruptedException {
+        var slowInterrupted = new CountDownLatch(1);
+        var otherFinished = new AtomicBoolean();
+        try (var fanOut = FanOut.concurrent()) {
+            var slow = fanOut.fork("slow", SHORT, () -> sleepUntilInterrupted(slowInterrupted));
+            var other = fanOut.fork("other", LONG, () -> {
+                Thread.sleep(300);
+                otherFinished.set(true);
+                return "done";
+            });
+
+            assertEquals("fallback", fanOut.joinOrElse(slow, "fallback"));
+            assertTrue(slowInterrupted.await(5, TimeUnit.SECONDS), "timed-out branch was not cancelled");
+            assertEquals("done", fanOut.join(other));
+            assertTrue(otherFinished.get());
+        }
+    }
+
+    @Test
+    void closeCancelsBranchesStillRunning() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        try (var fanOut = FanOut.concurrent()) {
+            fanOut.fork("abandoned", LONG, () -> {
+                started.countDown();
+                return sleepUntilInterrupted(interrupted);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        }
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "branch outlived its fan-out");
+    }
+
+    @Test
+    void forkedBranchesRunOnOtherThreadsWithoutTheCallersThreadLocals() {
+        var context = ThreadLocal.withInitial(() -> "none");
+        context.set("agent process");
+        try (var fanOut = FanOut.concurrent()) {
+            var caller = Thread.currentThread();
+            var branch = fanOut.fork("context", LONG, () -> {
+                assertNotSame(caller, Thread.currentThread());
+                return context.get();
+            });
+
+            assertEquals("none", fanOut.join(branch));
+        } finally {
+            context.remove();
+        }
+    }
+
+    @Test
+    void callOrElseRunsOnTheCallerWithItsThreadLocals() {
+        var context = ThreadLocal.withInitial(() -> "none");
+        context.set("agent process");
+        try (var fanOut = FanOut.concurrent()) {
+            var caller = Thread.currentThread();
+
+            var seen = fanOut.callOrElse("context", LONG, () -> {
+                assertSame(caller, Thread.currentThread());
+                return context.get();
+            }, "fallback");
+
+            assertEquals("agent process", seen);
+        } finally {
+            context.remove();
+        }
+    }
+
+    @Test
+    void callOrElseTimesOutByInterruptingTheCallerAndClearsTheInterrupt() {
+        var interrupted = new CountDownLatch(1);
+        try (var fanOut = FanOut.concurrent()) {
+            long start = System.nanoTime();
+
+            var result = fanOut.callOrElse("slow", SHORT, () -> sleepUntilInterrupted(interrupted), "fallback");
+
+            assertEquals("fallback", result);
+            assertEquals(0, interrupted.getCount());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "call did not time out");
+            assertFalse(Thread.currentThread().isInterrupted(), "timeout interrupt leaked to the caller");
+        }
+    }
+
+    @Test
+    void callOrElseReturnsTheFallbackWhenTheBranchFails() {
+        try (var fanOut = FanOut.concurrent()) {
+            var result = fanOut.callOrElse("failing", LONG, () -> {
+                throw new IllegalStateException("boom");
+            }, "fallback");
+
+            assertEquals("fallback", result);
+        }
+    }
+
+    @Test
+    void callOrElseDoesNotInterruptABranchThatFinishedInTime() throws InterruptedException {
+        try (var fanOut = FanOut.concurrent()) {
+            assertEquals("quick", fanOut.callOrElse("quick", SHORT, () -> "quick", "fallback"));
+            Thread.sleep(SHORT.toMillis() * 3);
+            assertFalse(Thread.currentThread().isInterrupted(), "expired alarm interrupted the caller");
+        }
+    }
+
+    @Test
+    void callOrElseKeepsAnInterruptFromElsewhere() {
+        try (var fanOut = FanOut.concurrent()) {
+            assertThrows(IllegalStateException.class, () -> fanOut.callOrElse("interrupted", LONG, () -> {
+                Thread.currentThread().interrupt();
+                Thread.sleep(LONG.toMillis());
+                return "unreachable";
+            }, "fallback"));
+            assertTrue(Thread.interrupted(), "the caller's own interrupt was swallowed");
+        }
+    }
+
+    private static String sleepUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(LONG.toMillis());
+            return "finished";
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+}
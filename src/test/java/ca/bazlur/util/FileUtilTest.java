@@ -0,0 +1,47 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileUtilTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void createsDirectoriesOnlyTheOwnerCanUse() throws IOException {
+        Path directory = root.resolve("cache/reports");
+
+        FileUtil.createPrivateDirectories(directory);
+
+        assertTrue(Files.isDirectory(directory));
+        if (posix()) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.getParent())));
+        }
+    }
+
+    @Test
+    void leavesAnExistingDirectoryAsItIs() throws IOException {
+        if (!posix()) {
+            return;
+        }
+        Files.setPosixFilePermissions(root, PosixFilePermissions.fromString("rwxr-x---"));
+
+        FileUtil.createPrivateDirectories(root);
+
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(root)));
+    }
+
+    private boolean posix() {
+        return root.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+}
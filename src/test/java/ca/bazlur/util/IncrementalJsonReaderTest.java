@@ -0,0 +1,136 @@
+package ca.bazlur.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalJsonReaderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String DOCUMENT = """
+            {
+              "personalizedSummary": "Quiet mysteries for slow evenings 📚",
+              "reasonsByIsbn": {
+                "isbn-1": "A locked-room puzzle — résumé included 🔍",
+                "isbn-2": "Escaped \\"quotes\\" and a newline\\n stay intact"
+              },
+              "readingListDescription": "From cosy to dark 🌙",
+              "identifiedReadingPatterns": ["evenings", "series", 3, 2.5, true, null],
+              "authorRecommendations": {"Agatha Christie": {"why": "the classics"}}
+            }""";
+
+    private static final List<String> EXPECTED_PATHS = List.of(
+            "/personalizedSummary",
+            "/reasonsByIsbn/isbn-1",
+            "/reasonsByIsbn/isbn-2",
+            "/reasonsByIsbn",
+            "/readingListDescription",
+            "/identifiedReadingPatterns/0",
+            "/identifiedReadingPatterns/1",
+            "/identifiedReadingPatterns/2",
+            "/identifiedReadingPatterns/3",
+            "/identifiedReadingPatterns/4",
+            "/identifiedReadingPatterns/5",
+            "/identifiedReadingPatterns",
+            "/authorRecommendations/Agatha Christie",
+            "/authorRecommendations");
+
+    @Test
+    void readsTheSameDocumentWhateverTheChunkSize() throws IOException {
+        JsonNode expected = objectMapper.readTree(DOCUMENT);
+        for (int size : new int[]{1, 3, 7, 1000}) {
+            List<String> paths = new ArrayList<>();
+            List<JsonNode> values = new ArrayList<>();
+            var reader = new IncrementalJsonReader(objectMapper, (path, value) -> {
+                paths.add(path.toString().replace("~1", "/"));
+                values.add(value);
+            });
+
+            feed(reader, DOCUMENT, size);
+
+            assertEquals(expected, reader.finish(), "chunks of " + size);
+            assertEquals(EXPECTED_PATHS, paths, "chunks of " + size);
+            assertEquals(expected.at("/reasonsByIsbn/isbn-1"), values.get(1), "chunks of " + size);
+            assertEquals(expected.get("reasonsByIsbn"), values.get(3), "chunks of " + size);
+        }
+    }
+
+    @Test
+    void reportsEachValueAsSoonAsItIsComplete() {
+        List<String> paths = new ArrayList<>();
+        var reader = new IncrementalJsonReader(objectMapper, (path, value) -> paths.add(path.toString()));
+
+        reader.feed("{\"personalizedSummary\": \"done\", \"reasonsByIsbn\": {\"isbn-1\": \"fir");
+        assertEquals(List.of("/personalizedSummary"), paths);
+
+        reader.feed("st\", ");
+        assertEquals(List.of("/personalizedSummary", "/reasonsByIsbn/isbn-1"), paths);
+
+        reader.feed("\"isbn-2\": \"second\"}}");
+        assertEquals(4, paths.size());
+    }
+
+    @Test
+    void ignoresACodeFenceAroundTheDocument() throws IOException {
+        String fenced = "Here is the report:\n```json\n" + DOCUMENT + "\n```\nAnything else?";
+        for (int size : new int[]{1, 3, 7, 1000}) {
+            var reader = new IncrementalJsonReader(objectMapper, (path, value) -> {
+            });
+
+            feed(reader, fenced, size);
+
+            assertEquals(objectMapper.readTree(DOCUMENT), reader.finish(), "chunks of " + size);
+        }
+    }
+
+    @Test
+    void joinsSurrogatePairsSplitAcrossChunks() {
+        String emoji = "📚";
+        var reader = new IncrementalJsonReader(objectMapper, (path, value) -> {
+        });
+
+        reader.feed("{\"title\": \"Books " + emoji.charAt(0));
+        reader.feed("" + emoji.charAt(1) + emoji.charAt(0));
+        reader.feed(emoji.charAt(1) + "\"}");
+
+        assertEquals("Books " + emoji + emoji, reader.finish().get("title").asText());
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        var reader = new IncrementalJsonReader(objectMapper, (path, value) -> {
+        });
+
+        assertThrows(UncheckedIOException.class, () -> reader.feed("{\"title\": nope}"));
+    }
+
+    @Test
+    void failsToFinishAnIncompleteDocument() {
+        var incomplete = new IncrementalJsonReader(objectMapper, (path, value) -> {
+        });
+        incomplete.feed("{\"title\": \"Dune\"");
+        var failure = assertThrows(IllegalStateException.class, incomplete::finish);
+        assertTrue(failure.getMessage().contains("ended"), failure.getMessage());
+
+        var empty = new IncrementalJsonReader(objectMapper, (path, value) -> {
+        });
+        empty.feed("Sorry, I cannot help with that.");
+        assertThrows(IllegalStateException.class, empty::finish);
+    }
+
+    private static void feed(IncrementalJsonReader reader, String text, int size) {
+        for (int i = 0; i < text.length(); i += size) {
+            reader.feed(text.substring(i, Math.min(text.length(), i + size)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsbnUtilTest {
+
+    @Test
+    void convertsIsbn10ToTheMatchingIsbn13() {
+        assertEquals(9780306406157L, IsbnUtil.toIsbn13("0306406152"));
+        assertEquals(9780306406157L, IsbnUtil.toIsbn13("9780306406157"));
+        assertEquals(9780804429573L, IsbnUtil.toIsbn13("080442957X"));
+        assertEquals(9780000000002L, IsbnUtil.toIsbn13("0000000000"));
+    }
+
+    @Test
+    void ignoresHyphensAndSpaces() {
+        for (String isbn : List.of("0-306-40615-2", "0 306 40615 2", "978-0-306-40615-7", " 978 0306 406157 ", "0-8044-2957-X")) {
+            assertTrue(IsbnUtil.toIsbn13(isbn) > 0, isbn);
+        }
+        assertEquals(IsbnUtil.toIsbn13("9780306406157"), IsbnUtil.toIsbn13("978-0-306-40615-7"));
+        assertEquals(IsbnUtil.toIsbn13("0306406152"), IsbnUtil.toIsbn13("0 306 40615 2"));
+        assertEquals(IsbnUtil.toIsbn13("080442957X"), IsbnUtil.toIsbn13("0-8044-2957-x"));
+    }
+
+    @Test
+    void acceptsThe979Prefix() {
+        assertEquals(9791234567896L, IsbnUtil.toIsbn13("979-1-234-56789-6"));
+    }
+
+    @Test
+    void rejectsABadCheckDigit() {
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("0306406153"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("9780306406158"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("9791234567890"));
+    }
+
+    @Test
+    void rejectsThirteenDigitsWithoutTheBooklandPrefix() {
+        // valid EAN-13 check digits, but not in the 978 or 979 ranges
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("4006381333931"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("9771234567003"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("0000000000000"));
+    }
+
+    @Test
+    void rejectsAMisplacedX() {
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("X306406152"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("03064061X2"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("978030640615X"));
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13("978030640X157"));
+    }
+
+    @Test
+    void rejectsOtherIdentifiers() {
+        for (String id : List.of("", "isbn-1", "030640615", "03064061522", "97803064061577", "0306_406152")) {
+            assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13(id), id);
+        }
+        assertEquals(IsbnUtil.NOT_AN_ISBN, IsbnUtil.toIsbn13(null));
+    }
+
+    @Test
+    void comparesIdentifiersAsIsbnsOrLiterally() {
+        assertTrue(IsbnUtil.sameIsbn("0-306-40615-2", "9780306406157"));
+        assertTrue(IsbnUtil.sameIsbn("isbn-1", "isbn-1"));
+        assertFalse(IsbnUtil.sameIsbn("isbn-1", "ISBN-1"));
+        assertFalse(IsbnUtil.sameIsbn("4006381333931", "400-6381-333-931"));
+        assertFalse(IsbnUtil.sameIsbn("0306406152", "9780306406164"));
+    }
+}
@@ -0,0 +1,159 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    private static final Duration LONG_WINDOW = Duration.ofSeconds(30);
+    private static final Duration SHORT_WINDOW = Duration.ofMillis(300);
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final List<Integer> singles = new CopyOnWriteArrayList<>();
+
+    @Test
+    void sendsAFullBatchWithoutWaitingForTheWindow() throws Exception {
+        var batcher = new MicroBatcher<Integer, String>("full", LONG_WINDOW, 3, recordBatch(this::answerAll), this::answer);
+
+        List<String> results = submitAll(batcher, 1, 2, 3);
+
+        assertEquals(List.of("1", "2", "3"), results);
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.getFirst().size());
+        assertEquals(List.of(), singles);
+    }
+
+    @Test
+    void sendsAPartialBatchOnceTheWindowPasses() throws Exception {
+        var batcher = new MicroBatcher<Integer, String>("window", SHORT_WINDOW, 10, recordBatch(this::answerAll), this::answer);
+
+        List<String> results = submitAll(batcher, 1, 2);
+
+        assertEquals(List.of("1", "2"), results);
+        assertEquals(1, batches.size());
+        assertEquals(List.of(), singles);
+    }
+
+    @Test
+    void answersALoneRequestWithTheSingleCall() {
+        var batcher = new MicroBatcher<Integer, String>("alone", SHORT_WINDOW, 10, recordBatch(this::answerAll), this::answer);
+
+        assertEquals("7", batcher.submit(7));
+        assertEquals(List.of(), batches);
+        assertEquals(List.of(7), singles);
+    }
+
+    @Test
+    void startsANewBatchAfterAFullOneWasSent() throws Exception {
+        var batcher = new MicroBatcher<Integer, String>("generations", SHORT_WINDOW, 2, recordBatch(this::answerAll), this::answer);
+
+        assertEquals(List.of("1", "2"), submitAll(batcher, 1, 2));
+        // the first batch's timer must not flush the next batch early or twice
+        assertEquals(List.of("3", "4"), submitAll(batcher, 3, 4));
+        assertEquals(List.of("5"), submitAll(batcher, 5));
+
+        assertEquals(2, batches.size());
+        assertEquals(List.of(5), singles);
+    }
+
+    @Test
+    void retriesRequestsTheBatchLeftWithoutAResult() throws Exception {
+        Function<List<Integer>, List<String>> shortAndNull = items -> Arrays.asList(null, "2");
+        var batcher = new MicroBatcher<Integer, String>("short", LONG_WINDOW, 3, recordBatch(shortAndNull), this::answer);
+
+        List<String> results = submitAll(batcher, 1, 2, 3);
+
+        assertEquals(List.of("1", "2", "3"), results);
+        assertEquals(2, singles.size());
+        assertTrue(singles.containsAll(List.of(1, 3)));
+    }
+
+    @Test
+    void retriesEveryRequestWhenTheBatchReturnsNull() throws Exception {
+        var batcher = new MicroBatcher<Integer, String>("null", LONG_WINDOW, 2, recordBatch(items -> null), this::answer);
+
+        assertEquals(List.of("1", "2"), submitAll(batcher, 1, 2));
+        assertEquals(2, singles.size());
+    }
+
+    @Test
+    void failsEveryRequestWithTheBatchCallsException() throws InterruptedException {
+        var failure = new IllegalStateException("batch failed");
+        Function<List<Integer>, List<String>> failing = items -> {
+            throw failure;
+        };
+        var batcher = new MicroBatcher<Integer, String>("failing", LONG_WINDOW, 2, recordBatch(failing), this::answer);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = callers.submit(() -> batcher.submit(1));
+            Future<String> second = callers.submit(() -> batcher.submit(2));
+
+            assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+            assertSame(failure, assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+        }
+        assertEquals(List.of(), singles);
+    }
+
+    @Test
+    void callsTheSingleCallDirectlyWithoutAWindow() {
+        var batcher = new MicroBatcher<Integer, String>("direct", Duration.ZERO, 10, recordBatch(this::answerAll), this::answer);
+
+        assertEquals("1", batcher.submit(1));
+        assertEquals(List.of(1), singles);
+        assertEquals(List.of(), batches);
+    }
+
+    @Test
+    void rejectsANonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MicroBatcher<Integer, String>("invalid", LONG_WINDOW, 0, this::answerAll, this::answer));
+    }
+
+    private Function<List<Integer>, List<String>> recordBatch(Function<List<Integer>, List<String>> call) {
+        return items -> {
+            batches.add(items);
+            return call.apply(items);
+        };
+    }
+
+    private List<String> answerAll(List<Integer> items) {
+        return items.stream().map(String::valueOf).toList();
+    }
+
+    private String answer(Integer item) {
+        singles.add(item);
+        return String.valueOf(item);
+    }
+
+    private static List<String> submitAll(MicroBatcher<Integer, String> batcher, Integer... items)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (Integer item : items) {
+                futures.add(callers.submit(() -> batcher.submit(item)));
+            }
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        }
+    }
+}
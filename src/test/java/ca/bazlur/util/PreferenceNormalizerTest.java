@@ -0,0 +1,52 @@
+package ca.bazlur.util;
+
+import ca.bazlur.model.BookGenre;
+import ca.bazlur.model.ReadingMood;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreferenceNormalizerTest {
+
+    private static final List<String> UNRECOGNIZED = Arrays.asList(
+            null, "", " ", "\t\n", "٥ hours a week", "٣-٤ hrs", "٣-4", "-", "--5", "5-", ".", ",,",
+            "1.2.3", "9".repeat(400) + " hours", "0", "-3 hours", "???", "\u0000￿", "\uD83D",
+            "📚", "hours hours hours", "x".repeat(10_000));
+
+    @Test
+    void resolvesNamesAliasesAndMisspellings() {
+        assertEquals(BookGenre.SCIENCE_FICTION, PreferenceNormalizer.genre("Sci-Fi"));
+        assertEquals(BookGenre.MYSTERY, PreferenceNormalizer.genre("whodunit"));
+        assertEquals(BookGenre.FANTASY, PreferenceNormalizer.genre("fantsy"));
+        assertEquals(ReadingMood.ADVENTUROUS, PreferenceNormalizer.mood("adventurous"));
+        assertEquals(5.0, PreferenceNormalizer.hoursPerWeek("5"), 1e-9);
+        assertEquals(3.5, PreferenceNormalizer.hoursPerWeek("3-4"), 1e-9);
+        assertEquals(7.0, PreferenceNormalizer.hoursPerWeek("an hour a day"), 1e-9);
+    }
+
+    @Test
+    void neverThrowsOnUnrecognizedInput() {
+        for (String text : UNRECOGNIZED) {
+            assertDoesNotThrow(() -> PreferenceNormalizer.hoursPerWeek(text), String.valueOf(text));
+            assertDoesNotThrow(() -> PreferenceNormalizer.genre(text), String.valueOf(text));
+            assertDoesNotThrow(() -> PreferenceNormalizer.mood(text), String.valueOf(text));
+        }
+    }
+
+    @Test
+    void yieldsNaNForTextWithoutAUsableReadingTime() {
+        for (String text : Arrays.asList(null, "", "٥ hours a week", "٣-٤ hrs", ".",
+                "9".repeat(400) + " hours", "0", "???", "📚", "hours hours hours")) {
+            assertTrue(Double.isNaN(PreferenceNormalizer.hoursPerWeek(text)), String.valueOf(text));
+        }
+        assertNull(PreferenceNormalizer.genre(null));
+        assertNull(PreferenceNormalizer.genre("٥"));
+        assertNull(PreferenceNormalizer.mood(""));
+    }
+}
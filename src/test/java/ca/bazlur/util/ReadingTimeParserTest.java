@@ -0,0 +1,35 @@
+package ca.bazlur.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadingTimeParserTest {
+
+    @Test
+    void readsAmountsUnitsAndPeriods() {
+        assertEquals(5.0, ReadingTimeParser.hoursPerWeek("5 hours a week"), 1e-9);
+        assertEquals(7.0, ReadingTimeParser.hoursPerWeek("an hour a day"), 1e-9);
+        assertEquals(3.5, ReadingTimeParser.hoursPerWeek("30 mins every night"), 1e-9);
+        assertEquals(3.5, ReadingTimeParser.hoursPerWeek("3-4 hrs"), 1e-9);
+        assertEquals(1.5, ReadingTimeParser.hoursPerWeek("1 to 2 hours"), 1e-9);
+        assertEquals(6.0, ReadingTimeParser.hoursPerWeek("6h"), 1e-9);
+        assertEquals(1.5, ReadingTimeParser.hoursPerWeek("1,5 hours"), 1e-9);
+    }
+
+    @Test
+    void ignoresNonAsciiDigitsInsteadOfThrowing() {
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek("٥ hours a week")));
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek("٣-٤ hrs")));
+        assertEquals(4.0, ReadingTimeParser.hoursPerWeek("٣ or 4 hours"), 1e-9);
+    }
+
+    @Test
+    void returnsNaNWhenNoTimeIsStated() {
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek(null)));
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek("")));
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek("whenever I can")));
+        assertTrue(Double.isNaN(ReadingTimeParser.hoursPerWeek("1.2.3 hours")));
+    }
+}
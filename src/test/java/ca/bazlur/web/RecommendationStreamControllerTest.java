@@ -0,0 +1,220 @@
+package ca.bazlur.web;
+
+import ca.bazlur.BookRecommendationProperties;
+import ca.bazlur.agent.BookRecommendationAgent;
+import ca.bazlur.agent.LlmCall;
+import ca.bazlur.agent.LlmClient;
+import ca.bazlur.agent.ReadingPlanner;
+import ca.bazlur.agent.RecommendationRanker;
+import ca.bazlur.agent.ReportCache;
+import ca.bazlur.agent.RuleBasedPreferenceExtractor;
+import ca.bazlur.agent.SimilarBooksBatcher;
+import ca.bazlur.agent.UserPreferencesCache;
+import ca.bazlur.agent.WebResourceCache;
+import ca.bazlur.metrics.RecommendationMetrics;
+import ca.bazlur.model.BookRecommendationReport;
+import ca.bazlur.repository.BookRepository;
+import ca.bazlur.repository.BookRepositoryImpl;
+import ca.bazlur.repository.SimilarBookIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the streaming endpoint's direct path: the agent's actions called by the controller
+ * outside the agent platform, with an LLM client that streams the narrative in small chunks
+ * and, like a web search without the platform's web tools, fails the web resource search.
+ */
+class RecommendationStreamControllerTest {
+
+    private static final String REQUEST = "Mystery novels, curious, 5 hours a week";
+    private static final int BOOKS = 5;
+
+    @TempDir
+    Path directory;
+
+    private final RecordingEmitter emitter = new RecordingEmitter();
+    private final StubLlmClient llmClient = new StubLlmClient();
+    private RecommendationStreamController controller;
+
+    @BeforeEach
+    void createController() throws IOException {
+        StringBuilder catalog = new StringBuilder();
+        for (int i = 0; i < BOOKS; i++) {
+            catalog.append("""
+                    {"title":"Mystery %d","author":"Author %d","genre":"MYSTERY","isbn":"isbn-%d","pageCount":250,\
+                    "description":"A quiet village mystery","averageRating":4.%d}
+                    """.formatted(i, i, i, i));
+        }
+        Path books = Files.writeString(directory.resolve("books.jsonl"), catalog);
+
+        var properties = new BookRecommendationProperties();
+        properties.setCatalogLocation("file:" + books);
+        properties.setCatalogSnapshotPath("");
+        properties.getSimilarity().setEnabled(false);
+        properties.getReportCache().setEnabled(false);
+        properties.getStreaming().setEnabled(true);
+
+        var metrics = new RecommendationMetrics(new SimpleMeterRegistry());
+        BookRepository repository = new BookRepositoryImpl(properties);
+        var similarBookIndex = new SimilarBookIndex(repository, properties);
+        var agent = new BookRecommendationAgent(
+                properties,
+                repository,
+                new UserPreferencesCache(properties),
+                new WebResourceCache(properties),
+                new RecommendationRanker(properties),
+                new RuleBasedPreferenceExtractor(),
+                similarBookIndex,
+                new ReadingPlanner(properties, repository, similarBookIndex),
+                metrics,
+                llmClient,
+                new ReportCache(properties),
+                new SimilarBooksBatcher(properties, llmClient, metrics));
+        controller = new RecommendationStreamController(agent, properties);
+    }
+
+    @Test
+    void streamsEachRecommendationBeforeTheNarrativeIsComplete() throws InterruptedException {
+        controller.stream(REQUEST, emitter);
+
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS), "stream did not complete");
+        List<String> events = emitter.events;
+        assertEquals("preferences", events.getFirst());
+        assertEquals("report", events.getLast());
+        assertEquals(BOOKS, events.stream().filter("recommendation"::equals).count(), events.toString());
+        assertEquals(1, events.stream().filter("reading-list"::equals).count(), events.toString());
+        assertTrue(llmClient.eventsBeforeLastChunk.get() > 1,
+                "no recommendation was sent before the narrative was complete: " + events);
+    }
+
+    @Test
+    void completesTheReportWithoutWebResourcesWhenTheWebSearchFails() throws InterruptedException {
+        controller.stream(REQUEST, emitter);
+
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS), "stream did not complete");
+        assertEquals(1, llmClient.webSearches.get());
+        var report = (BookRecommendationReport) emitter.data.getLast();
+        assertTrue(report.links().isEmpty(), report.links().toString());
+        assertEquals(BOOKS, report.topRecommendations().size());
+    }
+
+    @Test
+    void sendsAnErrorEventWhenTheReportFails() throws InterruptedException {
+        llmClient.failNarrative = true;
+        controller.stream(REQUEST, emitter);
+
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS), "stream did not complete");
+        assertEquals(List.of("preferences", "error"), emitter.events);
+    }
+
+    @Test
+    void stopsOnceTheClientDisconnects() throws InterruptedException {
+        emitter.failAfter = 1;
+
+        controller.stream(REQUEST, emitter);
+
+        assertTrue(llmClient.narrativeDone.await(10, TimeUnit.SECONDS), "narrative was never requested");
+        Thread.sleep(200);
+        assertEquals(List.of("preferences"), emitter.events);
+        assertEquals(2, emitter.attempts.get(), "kept sending after the client disconnected");
+        assertEquals(1, emitter.completed.getCount(), "completed a stream the client had left");
+    }
+
+    /**
+     * Records the name and data of each event, and can fail like a disconnected client.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<Object> data = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        volatile int failAfter = Integer.MAX_VALUE;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (attempts.incrementAndGet() > failAfter) {
+                throw new IOException("Broken pipe");
+            }
+            var items = List.copyOf(builder.build());
+            String header = items.getFirst().getData().toString();
+            events.add(header.substring("event:".length(), header.indexOf('\n')));
+            data.add(items.get(1).getData());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+
+    /**
+     * Streams a narrative with a reason for every catalog book in 7-character chunks, and fails
+     * web searches as they would fail without the platform's web tools.
+     */
+    private final class StubLlmClient implements LlmClient {
+
+        final AtomicInteger webSearches = new AtomicInteger();
+        final AtomicInteger eventsBeforeLastChunk = new AtomicInteger();
+        final CountDownLatch narrativeDone = new CountDownLatch(1);
+        volatile boolean failNarrative;
+
+        @Override
+        public <T> T createObject(LlmCall call, Class<T> type) {
+            if (call.action().equals("findWebResources")) {
+                webSearches.incrementAndGet();
+                throw new IllegalStateException("No web tools outside an agent process");
+            }
+            throw new IllegalStateException("Unexpected LLM call for " + call.action());
+        }
+
+        @Override
+        public <T> T createObjectIfPossible(LlmCall call, Class<T> type) {
+            return createObject(call, type);
+        }
+
+        @Override
+        public String streamText(LlmCall call, Consumer<String> chunks) {
+            try {
+                if (failNarrative) {
+                    throw new IllegalStateException("Model unavailable");
+                }
+                StringBuilder reasons = new StringBuilder();
+                for (int i = 0; i < BOOKS; i++) {
+                    reasons.append(i == 0 ? "" : ",").append("\"isbn-%d\":\"Reason %d\"".formatted(i, i));
+                }
+                String text = """
+                        ```json
+                        {"personalizedSummary":"Village mysteries","reasonsByIsbn":{%s},\
+                        "readingListDescription":"Cosy first","identifiedReadingPatterns":[],\
+                        "authorRecommendations":{},"expandHorizonsGenres":[]}
+                        ```""".formatted(reasons);
+                for (int i = 0; i < text.length(); i += 7) {
+                    if (i + 7 >= text.length()) {
+                        eventsBeforeLastChunk.set(emitter.events.size());
+                    }
+                    chunks.accept(text.substring(i, Math.min(text.length(), i + 7)));
+                }
+                return text;
+            } finally {
+                narrativeDone.countDown();
+            }
+        }
+    }
+}